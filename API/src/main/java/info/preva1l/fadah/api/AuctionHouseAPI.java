@@ -89,7 +89,7 @@ public abstract class AuctionHouseAPI {
      * Get a players history
      *
      * @param offlinePlayer a player
-     * @return the players history, ordered from newest to oldest
+     * @return the players most recent history, ordered from newest to oldest
      */
     public abstract List<HistoricItem> getHistory(OfflinePlayer offlinePlayer);
 
@@ -97,7 +97,7 @@ public abstract class AuctionHouseAPI {
      * Get a players history
      *
      * @param uuid a player uuid
-     * @return the players history, ordered from newest to oldest
+     * @return the players most recent history, ordered from newest to oldest
      */
     public abstract List<HistoricItem> getHistory(UUID uuid);
 
@@ -2,15 +2,39 @@ package info.preva1l.fadah.records;
 
 import org.bukkit.inventory.ItemStack;
 
+import java.util.UUID;
+
+/**
+ * An item waiting to be claimed from a collection box or expired items.
+ *
+ * @param id        the unique id of this item, two identical items added at the same time still have different ids.
+ * @param itemStack the item.
+ * @param dateAdded when the item was added, in epoch millis.
+ */
 public record CollectableItem(
+        UUID id,
         ItemStack itemStack,
         long dateAdded
 ) {
+    public CollectableItem {
+        // Data stored before items had ids has none
+        if (id == null) id = UUID.randomUUID();
+    }
+
+    public CollectableItem(ItemStack itemStack, long dateAdded) {
+        this(UUID.randomUUID(), itemStack, dateAdded);
+    }
+
     @Override
     public boolean equals(Object o) {
-        if (o instanceof  CollectableItem collectableItem) {
-            return collectableItem.dateAdded == this.dateAdded() && collectableItem.itemStack.equals(this.itemStack);
+        if (o instanceof CollectableItem collectableItem) {
+            return collectableItem.id.equals(this.id);
         }
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
 }
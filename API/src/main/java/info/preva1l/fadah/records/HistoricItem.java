@@ -12,6 +12,7 @@ import java.util.UUID;
 
 @Getter
 public class HistoricItem {
+    private final @Expose @NotNull UUID id;
     private final @Expose @NotNull UUID ownerUUID;
     private final @Expose @NotNull Long loggedDate;
     private final @Expose @NotNull LoggedAction action;
@@ -21,6 +22,7 @@ public class HistoricItem {
 
     /**
      * A historic item
+     * @param id the unique id of this entry
      * @param ownerUUID the person who the log belongs to
      * @param loggedDate when the action happened, in epoch millis
      * @param action the action that got logged
@@ -28,8 +30,9 @@ public class HistoricItem {
      * @param price Nullable, only used for {@link LoggedAction#LISTING_START}, {@link LoggedAction#LISTING_PURCHASED}, {@link LoggedAction#LISTING_SOLD}
      * @param purchaserUUID Nullable, only used for {@link LoggedAction#LISTING_SOLD}
      */
-    public HistoricItem(@NotNull UUID ownerUUID, @NotNull Long loggedDate, @NotNull LoggedAction action,
+    public HistoricItem(@NotNull UUID id, @NotNull UUID ownerUUID, @NotNull Long loggedDate, @NotNull LoggedAction action,
                         @NotNull ItemStack itemStack, @Nullable Double price, @Nullable UUID purchaserUUID) {
+        this.id = id;
         this.ownerUUID = ownerUUID;
         this.loggedDate = loggedDate;
         this.action = action;
@@ -38,17 +41,26 @@ public class HistoricItem {
         this.purchaserUUID = purchaserUUID;
     }
 
+    /**
+     * A new historic item with a random id
+     * @see #HistoricItem(UUID, UUID, Long, LoggedAction, ItemStack, Double, UUID)
+     */
+    public HistoricItem(@NotNull UUID ownerUUID, @NotNull Long loggedDate, @NotNull LoggedAction action,
+                        @NotNull ItemStack itemStack, @Nullable Double price, @Nullable UUID purchaserUUID) {
+        this(UUID.randomUUID(), ownerUUID, loggedDate, action, itemStack, price, purchaserUUID);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         HistoricItem that = (HistoricItem) o;
-        return Objects.equals(price, that.price) && Objects.equals(ownerUUID, that.ownerUUID) && Objects.equals(loggedDate, that.loggedDate) && Objects.equals(purchaserUUID, that.purchaserUUID) && action == that.action && Objects.equals(itemStack, that.itemStack);
+        return Objects.equals(id, that.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(ownerUUID, loggedDate, action, itemStack, price, purchaserUUID);
+        return Objects.hashCode(id);
     }
 
     /**
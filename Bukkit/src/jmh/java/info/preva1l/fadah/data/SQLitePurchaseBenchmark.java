@@ -0,0 +1,229 @@
+package info.preva1l.fadah.data;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Purchases per second against a local SQLite file, with the connection setup the SQLite handler used before
+ * performance mode, one pool of 50 connections on a rollback journal, and with performance mode on,
+ * a write-ahead log, a single writer connection and a small read pool.
+ * <p>
+ * The handler needs a running plugin, so the pools are set up here the same way it sets them up,
+ * with the default performance mode settings, and each purchase runs the statements the DAOs run for one.
+ * Purchases come from several threads at once, as they do from the async database futures.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class SQLitePurchaseBenchmark {
+    private static final int BUSY_TIMEOUT = 5000;
+    private static final int READ_POOL_SIZE = 4;
+    private static final int CACHE_SIZE = 16;
+    private static final int MMAP_SIZE = 128;
+
+    // The tables a purchase touches, as they are once the schema migrations have run
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS listings
+            (
+                id           INTEGER PRIMARY KEY AUTOINCREMENT,
+                uuid         TEXT    NOT NULL,
+                ownerUUID    TEXT    NOT NULL,
+                ownerName    TEXT    NOT NULL,
+                category     TEXT    NOT NULL,
+                currency     TEXT    NOT NULL,
+                creationDate INTEGER NOT NULL,
+                deletionDate INTEGER NOT NULL,
+                price        REAL    NOT NULL,
+                tax          REAL    NOT NULL,
+                itemStack    BLOB    NOT NULL,
+                biddable     INTEGER NOT NULL,
+                bids         TEXT NULLABLE
+            )""",
+            "CREATE UNIQUE INDEX IF NOT EXISTS listings_uuid ON listings (uuid)",
+            "CREATE INDEX IF NOT EXISTS listings_owner ON listings (ownerUUID)",
+            """
+            CREATE TABLE IF NOT EXISTS collection_boxV3
+            (
+                id         INTEGER PRIMARY KEY AUTOINCREMENT,
+                uuid       TEXT    NOT NULL,
+                playerUUID TEXT    NOT NULL,
+                dateAdded  INTEGER NOT NULL,
+                itemStack  BLOB    NOT NULL
+            )""",
+            "CREATE UNIQUE INDEX IF NOT EXISTS collection_boxV3_uuid ON collection_boxV3 (uuid)",
+            "CREATE INDEX IF NOT EXISTS collection_boxV3_player ON collection_boxV3 (playerUUID, dateAdded)",
+            """
+            CREATE TABLE IF NOT EXISTS historyV3
+            (
+                id            INTEGER PRIMARY KEY AUTOINCREMENT,
+                uuid          TEXT    NOT NULL,
+                playerUUID    TEXT    NOT NULL,
+                loggedDate    INTEGER NOT NULL,
+                loggedAction  INTEGER NOT NULL,
+                itemStack     BLOB    NOT NULL,
+                price         REAL NULLABLE,
+                purchaserUUID TEXT NULLABLE
+            )""",
+            "CREATE UNIQUE INDEX IF NOT EXISTS historyV3_uuid ON historyV3 (uuid)",
+            "CREATE INDEX IF NOT EXISTS historyV3_player ON historyV3 (playerUUID, loggedDate)",
+    };
+
+    @Param({"false", "true"})
+    public boolean performanceMode;
+
+    private Path directory;
+    private HikariDataSource writer;
+    private HikariDataSource readers;
+    private final byte[] item = new byte[512];
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        directory = Files.createTempDirectory("fadah-sqlite");
+        String url = "jdbc:sqlite:" + directory.resolve("FadahData.db").toAbsolutePath();
+        if (performanceMode) {
+            writer = createDataSource(url, "FadahSQLiteWriter", 1);
+            readers = createDataSource(url, "FadahSQLiteReader", READ_POOL_SIZE);
+        } else {
+            writer = createDataSource(url, "FadahHikariPool", 50);
+            readers = writer;
+        }
+        try (Connection connection = writer.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) statement.execute(sql);
+        }
+        ThreadLocalRandom.current().nextBytes(item);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (readers != writer) readers.close();
+        writer.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+        }
+    }
+
+    /**
+     * A listing is put up and bought, the item goes to the buyers collection box and the sale is logged for both players.
+     */
+    @Benchmark
+    public void purchase() throws SQLException {
+        UUID listing = UUID.randomUUID();
+        UUID seller = UUID.randomUUID();
+        UUID buyer = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        try (Connection connection = writer.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO `listings`
+                     (`uuid`,`ownerUUID`,`ownerName`, `category`, `currency`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`)
+                     VALUES (?,?,?,?,?,?,?,?,?,?,?,?);""")) {
+            statement.setString(1, listing.toString());
+            statement.setString(2, seller.toString());
+            statement.setString(3, "Seller");
+            statement.setString(4, "blocks");
+            statement.setString(5, "vault");
+            statement.setLong(6, now);
+            statement.setLong(7, now + 86400000L);
+            statement.setDouble(8, 100);
+            statement.setDouble(9, 5);
+            statement.setBytes(10, item);
+            statement.setBoolean(11, false);
+            statement.setString(12, "");
+            statement.executeUpdate();
+        }
+
+        // The listing is read back before it is bought
+        try (Connection connection = readers.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     SELECT `ownerUUID`, `ownerName`, `category`, `currency`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`
+                     FROM `listings`
+                     WHERE `uuid`=?;""")) {
+            statement.setString(1, listing.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) throw new IllegalStateException("The listing was not saved!");
+            }
+        }
+
+        try (Connection connection = writer.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     DELETE FROM `listings`
+                     WHERE uuid = ?;""")) {
+            statement.setString(1, listing.toString());
+            statement.executeUpdate();
+        }
+
+        try (Connection connection = writer.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO `collection_boxV3`
+                         (`uuid`, `playerUUID`, `dateAdded`, `itemStack`)
+                     VALUES (?, ?, ?, ?);""")) {
+            statement.setString(1, UUID.randomUUID().toString());
+            statement.setString(2, buyer.toString());
+            statement.setLong(3, now);
+            statement.setBytes(4, item);
+            statement.executeUpdate();
+        }
+
+        log(seller, buyer, now);
+        log(buyer, seller, now);
+    }
+
+    private void log(UUID player, UUID other, long now) throws SQLException {
+        try (Connection connection = writer.getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO `historyV3`
+                         (`uuid`, `playerUUID`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`)
+                     VALUES (?, ?, ?, ?, ?, ?, ?);""")) {
+            statement.setString(1, UUID.randomUUID().toString());
+            statement.setString(2, player.toString());
+            statement.setLong(3, now);
+            statement.setInt(4, 0);
+            statement.setBytes(5, item);
+            statement.setDouble(6, 100);
+            statement.setString(7, other.toString());
+            statement.executeUpdate();
+        }
+    }
+
+    private HikariDataSource createDataSource(String url, String name, int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setAutoCommit(true);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl(url);
+        config.setConnectionTestQuery("SELECT 1");
+        config.setMaxLifetime(60000);
+        config.setIdleTimeout(45000);
+        config.setMaximumPoolSize(poolSize);
+        config.addDataSourceProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT));
+        if (performanceMode) {
+            config.addDataSourceProperty("journal_mode", "WAL");
+            config.addDataSourceProperty("synchronous", "NORMAL");
+            config.addDataSourceProperty("temp_store", "MEMORY");
+            config.addDataSourceProperty("cache_size", String.valueOf(-CACHE_SIZE * 1024));
+            config.addDataSourceProperty("mmap_size", String.valueOf(MMAP_SIZE * 1024L * 1024L));
+        } else {
+            config.addDataSourceProperty("journal_mode", "DELETE");
+        }
+        return new HikariDataSource(config);
+    }
+}
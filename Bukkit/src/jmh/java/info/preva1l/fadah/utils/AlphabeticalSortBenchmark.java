@@ -0,0 +1,60 @@
+package info.preva1l.fadah.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sorting listings by name when the color codes are stripped on every comparison,
+ * as the alphabetical sort did before, with comparing keys stripped once per listing.
+ * <p>
+ * Reading a display name needs a running server, so listings are stood in for by their color coded names.
+ * This measures the stripping and the comparisons, not the item meta lookups, which both ways did on every comparison.
+ * Run with the gc profiler to see the allocation rate of each.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AlphabeticalSortBenchmark {
+    private static final String[] NAMES = {"Diamond Sword", "Enchanted Golden Apple", "Netherite Pickaxe", "Elytra", "Shulker Box"};
+    private static final String[] COLORS = {"&6&l", "§b", "&#55ffaa", "&c&o", ""};
+
+    @Param({"1000", "10000"})
+    public int listings;
+
+    private List<String> names;
+    private List<Keyed> keyed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        names = new ArrayList<>(listings);
+        for (int i = 0; i < listings; i++) {
+            names.add(COLORS[random.nextInt(COLORS.length)] + NAMES[random.nextInt(NAMES.length)] + " #" + random.nextInt(listings));
+        }
+        keyed = new ArrayList<>(listings);
+        for (String name : names) {
+            keyed.add(new Keyed(name, StringUtils.removeColorCodes(name).toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    @Benchmark
+    public void stripOnCompare(Blackhole blackhole) {
+        List<String> sorted = new ArrayList<>(names);
+        sorted.sort(Comparator.comparing(name -> StringUtils.removeColorCodes(name).toLowerCase(Locale.ROOT)));
+        blackhole.consume(sorted);
+    }
+
+    @Benchmark
+    public void precomputedKeys(Blackhole blackhole) {
+        List<Keyed> sorted = new ArrayList<>(keyed);
+        sorted.sort(Comparator.comparing(Keyed::key));
+        blackhole.consume(sorted);
+    }
+
+    private record Keyed(String name, String key) {
+    }
+}
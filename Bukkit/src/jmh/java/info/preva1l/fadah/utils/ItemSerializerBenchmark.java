@@ -0,0 +1,93 @@
+package info.preva1l.fadah.utils;
+
+import info.preva1l.fadah.utils.serialization.ItemCodec;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares storing items as text, as the database columns did before they held binary, with storing the bytes as they are.
+ * <p>
+ * The real codecs need a running server, so items are encoded by a stand-in codec that returns bytes the size of a real item.
+ * This measures the format around the codec, the header, compression and Base64, not the codecs themselves.
+ * The stored size of each is printed when the benchmark is set up.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemSerializerBenchmark {
+    // Roughly a plain item, a named and enchanted tool, and a filled shulker box
+    @Param({"64", "512", "8192"})
+    public int itemSize;
+
+    private ItemStack[] items;
+    private String text;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+        ItemSerializer.setCodec(new FixedCodec(itemSize));
+        items = new ItemStack[]{new ItemStack(Material.STONE)};
+        text = ItemSerializer.serialize(items);
+        binary = ItemSerializer.serializeToBytes(items);
+        System.out.printf("%n%d byte item: %d bytes as text, %d bytes as binary%n", itemSize, text.length(), binary.length);
+    }
+
+    @Benchmark
+    public String writeText() {
+        return ItemSerializer.serialize(items);
+    }
+
+    @Benchmark
+    public byte[] writeBinary() {
+        return ItemSerializer.serializeToBytes(items);
+    }
+
+    @Benchmark
+    public ItemStack[] readText() {
+        return ItemSerializer.deserialize(text);
+    }
+
+    @Benchmark
+    public ItemStack[] readBinary() {
+        return ItemSerializer.deserializeFromBytes(binary);
+    }
+
+    private static final class FixedCodec implements ItemCodec {
+        private final byte[] encoded;
+        private final ItemStack decoded = new ItemStack(Material.STONE);
+
+        private FixedCodec(int size) {
+            // Item data repeats its keys and is mostly small numbers, so it compresses about as well as this does
+            Random random = new Random(size);
+            encoded = new byte[size];
+            for (int i = 0; i < size; i++) {
+                encoded[i] = (byte) (i % 4 == 0 ? random.nextInt(256) : i % 23);
+            }
+        }
+
+        @Override
+        public byte getId() {
+            return 99;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public byte[] encode(ItemStack item) {
+            return encoded;
+        }
+
+        @Override
+        public ItemStack decode(byte[] data) {
+            return decoded;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import info.preva1l.fadah.currency.RedisEconomyCurrency;
 import info.preva1l.fadah.currency.VaultCurrency;
 import info.preva1l.fadah.data.DatabaseManager;
 import info.preva1l.fadah.data.DatabaseType;
+import info.preva1l.fadah.filters.Restrictions;
 import info.preva1l.fadah.hooks.HookManager;
 import info.preva1l.fadah.hooks.impl.DiscordHook;
 import info.preva1l.fadah.hooks.impl.EcoItemsHook;
@@ -24,10 +25,13 @@ import info.preva1l.fadah.migrator.AuctionHouseMigrator;
 import info.preva1l.fadah.migrator.MigratorManager;
 import info.preva1l.fadah.migrator.zAuctionHouseMigrator;
 import info.preva1l.fadah.multiserver.Broker;
+import info.preva1l.fadah.multiserver.Delta;
+import info.preva1l.fadah.multiserver.Lease;
 import info.preva1l.fadah.multiserver.Message;
 import info.preva1l.fadah.multiserver.Payload;
 import info.preva1l.fadah.multiserver.RedisBroker;
 import info.preva1l.fadah.records.*;
+import info.preva1l.fadah.utils.ItemSerializer;
 import info.preva1l.fadah.utils.Metrics;
 import info.preva1l.fadah.utils.StringUtils;
 import info.preva1l.fadah.utils.TaskManager;
@@ -49,6 +53,8 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -67,7 +73,8 @@ public final class Fadah extends JavaPlugin {
     @Getter private BasicConfig categoriesFile;
     @Getter private BasicConfig menusFile;
 
-    @Getter private Broker broker;
+    @Getter private volatile Broker broker;
+    private volatile Lease expiryLease;
     @Getter private CommandManager commandManager;
     @Getter private HookManager hookManager;
     @Getter private LayoutManager layoutManager;
@@ -92,10 +99,11 @@ public final class Fadah extends JavaPlugin {
         loadCommands();
 
         getServer().getPluginManager().registerEvents(new PlayerListener(), this);
-        TaskManager.Async.runTask(this, listingExpiryTask(), 10L);
+        TaskManager.Async.run(this, this::archiveHistory);
         FastInvManager.register(this);
 
         loadBroker();
+        ListingExpiry.start(this::expireListings, () -> expiryLease == null || expiryLease.isHeld());
 
         customItemKey = NamespacedKey.minecraft("auctionhouse");
 
@@ -119,6 +127,8 @@ public final class Fadah extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        ListingExpiry.stop();
+        if (expiryLease != null) expiryLease.release();
         DatabaseManager.getInstance().shutdown();
         if (broker != null) broker.destroy();
         if (metrics != null) metrics.shutdown();
@@ -128,34 +138,54 @@ public final class Fadah extends JavaPlugin {
         }
     }
 
-    private Runnable listingExpiryTask() {
-        return () -> {
-            for (UUID key : ListingCache.getListings().keySet()) {
-                Listing listing = ListingCache.getListing(key);
-                if (listing == null) continue;
-                if (Instant.now().toEpochMilli() >= listing.getDeletionDate()) {
-                    ListingCache.removeListing(listing);
-                    DatabaseManager.getInstance().delete(Listing.class, listing);
-
-                    CollectableItem collectableItem = new CollectableItem(listing.getItemStack(), Instant.now().toEpochMilli());
-                    ExpiredItems items = ExpiredItems.of(listing.getOwner());
-                    items.collectableItems().add(collectableItem);
-                    DatabaseManager.getInstance().save(ExpiredItems.class, items);
-                    if (!Config.i().getBroker().isEnabled()) {
-                        ExpiredListingsCache.addItem(listing.getOwner(), collectableItem);
-                    } else {
-                        Message.builder()
-                                .type(Message.Type.EXPIRED_LISTINGS_UPDATE)
-                                .payload(Payload.withUUID(listing.getOwner()))
-                                .build().send(Fadah.getINSTANCE().getBroker());
-                    }
-
-                    TransactionLogger.listingExpired(listing);
-
-                    getServer().getPluginManager().callEvent(new ListingEndEvent(listing, ListingEndReason.EXPIRED));
-                }
+    /**
+     * Archives old history and schedules the next run once it is done.
+     * The config is read on every run, so a reload can turn archiving on or off and change how often it runs.
+     */
+    private void archiveHistory() {
+        int retentionDays = Config.i().getHistory().getRetentionDays();
+        CompletableFuture<Integer> archived = retentionDays > 0
+                ? DatabaseManager.getInstance().archive(History.class,
+                        Instant.now().minus(retentionDays, ChronoUnit.DAYS).toEpochMilli())
+                : CompletableFuture.completedFuture(0);
+        archived.whenComplete((count, e) -> {
+            if (count != null && count > 0) getConsole().info("Archived %d history entries older than %d days."
+                    .formatted(count, retentionDays));
+            if (isEnabled()) {
+                TaskManager.Async.runLater(this, this::archiveHistory,
+                        Math.max(1, Config.i().getHistory().getArchiveInterval()) * 60L * 20L);
+            }
+        });
+    }
+
+    private void expireListings(List<Listing> listings) {
+        for (Listing listing : listings) {
+            // Removed here first, so the listing cannot be bought once it is on its way back to the seller
+            ListingCache.removeListing(listing);
+            if (Config.i().getBroker().isEnabled()) {
+                Message.builder()
+                        .type(Message.Type.LISTING_REMOVE)
+                        .payload(Payload.withUUID(listing.getId()))
+                        .build().send(broker);
             }
-        };
+            DatabaseManager.getInstance().delete(Listing.class, listing);
+
+            CollectableItem collectableItem = new CollectableItem(listing.getItemStack(), Instant.now().toEpochMilli());
+            CompletableFuture<Void> saved = DatabaseManager.getInstance()
+                    .saveSpecific(ExpiredItems.class, ExpiredItems.of(listing.getOwner()), collectableItem);
+            if (!Config.i().getBroker().isEnabled()) {
+                ExpiredListingsCache.addItem(listing.getOwner(), collectableItem);
+            } else {
+                saved.thenRun(() -> Message.builder()
+                        .type(Message.Type.EXPIRED_LISTINGS_UPDATE)
+                        .payload(Payload.withDelta(listing.getOwner(), Delta.added(collectableItem)))
+                        .build().send(Fadah.getINSTANCE().getBroker()));
+            }
+
+            TransactionLogger.listingExpired(listing);
+
+            getServer().getPluginManager().callEvent(new ListingEndEvent(listing, ListingEndReason.EXPIRED));
+        }
     }
 
     private void loadCommands() {
@@ -198,8 +228,10 @@ public final class Fadah extends JavaPlugin {
     }
 
     private void loadDataAndPopulateCaches() {
+        ItemSerializer.configure();
         DatabaseManager.getInstance(); // Make the connection happen during startup
         CategoryCache.update();
+        Restrictions.compile();
     }
 
     private void loadHooks() {
@@ -217,6 +249,13 @@ public final class Fadah extends JavaPlugin {
     }
 
     private void loadBroker() {
+        // Reloading, the old lease would otherwise keep its key renewed and no new lease could ever take it.
+        // Left in place until it is replaced, a released lease is never held so nothing expires in between
+        if (expiryLease != null) expiryLease.release();
+        // Stops the old sender and subscriber threads, the lease above is released through it so it goes after.
+        // Safe on the subscriber thread, which is where a reload asked for by another server runs
+        if (broker != null) broker.destroy();
+
         Config.Broker settings = Config.i().getBroker();
         if (settings.isEnabled()) {
             getConsole().info("Connecting to Broker...");
@@ -226,6 +265,8 @@ public final class Fadah extends JavaPlugin {
                 getConsole().severe("Broker has not been enabled as the selected");
                 getConsole().severe("       database is not compatible!");
                 getConsole().severe("------------------------------------------");
+                expiryLease = null;
+                broker = null;
                 return;
             }
             broker = switch (settings.getType()) {
@@ -233,8 +274,14 @@ public final class Fadah extends JavaPlugin {
             };
             broker.connect();
             getConsole().info("Successfully connected to broker!");
+
+            expiryLease = new Lease(broker, "expiry", settings.getExpiryFailover() * 1000L);
+            // Renewed a few times per lease, so one slow renewal does not hand it over
+            expiryLease.start(Math.max(1000L, settings.getExpiryFailover() * 1000L / 3));
             return;
         }
+        expiryLease = null;
+        broker = null;
         getConsole().info("Not connecting to broker. (Not Enabled)");
     }
 
@@ -269,6 +316,9 @@ public final class Fadah extends JavaPlugin {
         metrics = new Metrics(this, METRICS_ID);
         metrics.addCustomChart(new Metrics.SingleLineChart("items_listed", () -> ListingCache.getListings().size()));
         metrics.addCustomChart(new Metrics.SimplePie("database_type", () -> Config.i().getDatabase().getType().getFriendlyName()));
+        metrics.addCustomChart(new Metrics.SimplePie("database_executor", () -> DatabaseManager.getInstance().getExecutor().isVirtual() ? "Virtual Threads" : "Platform Threads"));
+        metrics.addCustomChart(new Metrics.SingleLineChart("database_queue_depth", () -> DatabaseManager.getInstance().getExecutor().getQueueDepth()));
+        metrics.addCustomChart(new Metrics.SingleLineChart("database_execution_time", () -> (int) Math.round(DatabaseManager.getInstance().getExecutor().getAverageExecutionMillis())));
         metrics.addCustomChart(new Metrics.SimplePie("multi_server", () -> Config.i().getBroker().isEnabled() ? Config.i().getBroker().getType().getDisplayName() : "None"));
 
         getConsole().info("Metrics Logging Started!");
@@ -326,28 +376,28 @@ public final class Fadah extends JavaPlugin {
     }
 
     public CompletableFuture<Void> loadPlayerData(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            boolean needsFixing = DatabaseManager.getInstance().needsFixing(uuid).join();
-            if (needsFixing) {
-                DatabaseManager.getInstance().fixPlayerData(uuid).join();
-            }
-
-            Optional<CollectionBox> collectionBox = DatabaseManager.getInstance().get(CollectionBox.class, uuid).join();
-            collectionBox.ifPresent(list -> CollectionBoxCache.update(uuid, list.collectableItems()));
-
-            Optional<ExpiredItems> expiredItems = DatabaseManager.getInstance().get(ExpiredItems.class, uuid).join();
-            expiredItems.ifPresent(list -> ExpiredListingsCache.update(uuid, list.collectableItems()));
-
-            Optional<History> history = DatabaseManager.getInstance().get(History.class, uuid).join();
-            history.ifPresent(list -> HistoricItemsCache.update(uuid, list.collectableItems()));
-            return null;
-        });
+        DatabaseManager database = DatabaseManager.getInstance();
+        return database.needsFixing(uuid)
+                .thenCompose(needsFixing -> needsFixing
+                        ? database.fixPlayerData(uuid)
+                        : CompletableFuture.<Void>completedFuture(null))
+                // The three reads are independent, so they are issued together instead of one after another
+                .thenCompose(ignored -> CompletableFuture.allOf(
+                        database.get(CollectionBox.class, uuid).thenAccept(collectionBox ->
+                                collectionBox.ifPresent(list -> CollectionBoxCache.update(uuid, list.collectableItems()))),
+                        database.get(ExpiredItems.class, uuid).thenAccept(expiredItems ->
+                                expiredItems.ifPresent(list -> ExpiredListingsCache.update(uuid, list.collectableItems()))),
+                        database.get(History.class, uuid).thenAccept(history ->
+                                history.ifPresent(list -> HistoricItemsCache.update(uuid, list.collectableItems())))
+                ));
     }
 
     public void reload() {
         FastInvManager.closeAll(this);
         Config.reload();
         Lang.reload();
+        ItemSerializer.configure();
+        Restrictions.compile();
         Fadah.getINSTANCE().getMenusFile().load();
         Fadah.getINSTANCE().getLayoutManager().reloadLayout(LayoutManager.MenuType.MAIN);
         Fadah.getINSTANCE().getLayoutManager().reloadLayout(LayoutManager.MenuType.NEW_LISTING);
@@ -359,6 +409,7 @@ public final class Fadah extends JavaPlugin {
         Fadah.getINSTANCE().getLayoutManager().reloadLayout(LayoutManager.MenuType.HISTORY);
         Fadah.getINSTANCE().getCategoriesFile().load();
         CategoryCache.update();
+        ListingDisplayCache.invalidateAll();
         loadBroker();
     }
 }
@@ -0,0 +1,92 @@
+package info.preva1l.fadah.cache;
+
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versioned change notifications for the caches.
+ * <p>
+ * Every mutation of a cache is published to its topic, which moves the topic version and, for player scoped data,
+ * the version of the affected player. Consumers such as menus remember the version they last rendered
+ * and only rebuild once it has moved.
+ * </p>
+ */
+@UtilityClass
+public final class CacheBus {
+    // Versions are drawn from one clock so a version is never handed out twice, even after a player is forgotten
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Topic, AtomicLong> versions = new EnumMap<>(Topic.class);
+    private final Map<Topic, Map<UUID, Long>> playerVersions = new EnumMap<>(Topic.class);
+
+    static {
+        for (Topic topic : Topic.values()) {
+            versions.put(topic, new AtomicLong());
+            playerVersions.put(topic, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Publish a change that is not scoped to a single player.
+     *
+     * @param topic the topic that changed.
+     */
+    public void publish(@NotNull Topic topic) {
+        versions.get(topic).set(clock.incrementAndGet());
+    }
+
+    /**
+     * Publish a change to a players data.
+     *
+     * @param topic  the topic that changed.
+     * @param player the player whose data changed.
+     */
+    public void publish(@NotNull Topic topic, @NotNull UUID player) {
+        long version = clock.incrementAndGet();
+        versions.get(topic).set(version);
+        playerVersions.get(topic).put(player, version);
+    }
+
+    /**
+     * Stop tracking a player, used when their data is invalidated.
+     *
+     * @param topic  the topic to stop tracking the player on.
+     * @param player the player to forget.
+     */
+    public void forget(@NotNull Topic topic, @NotNull UUID player) {
+        playerVersions.get(topic).remove(player);
+    }
+
+    /**
+     * Get the current version of a topic, this moves whenever anything on the topic changes.
+     *
+     * @param topic the topic.
+     * @return the current version.
+     */
+    public long version(@NotNull Topic topic) {
+        return versions.get(topic).get();
+    }
+
+    /**
+     * Get the current version of a players data on a topic.
+     *
+     * @param topic  the topic.
+     * @param player the player.
+     * @return the current version, 0 if nothing has been published for the player.
+     */
+    public long version(@NotNull Topic topic, @NotNull UUID player) {
+        return playerVersions.get(topic).getOrDefault(player, 0L);
+    }
+
+    public enum Topic {
+        LISTINGS,
+        COLLECTION_BOX,
+        EXPIRED_LISTINGS,
+        HISTORY,
+    }
+}
@@ -12,18 +12,29 @@ import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Predicate;
 
+/**
+ * The categories from the config, with everything needed to find the category of an item built up front.
+ * <p>
+ * Categories are searched in priority order, an item belongs to the first one that either lists its material or,
+ * for custom items, allows custom items. On update that search is done once for every material,
+ * so finding the category of an item is a single lookup.
+ * </p>
+ */
 @UtilityClass
 public final class CategoryCache {
-    private List<Category> categories = new ArrayList<>();
     private final BasicConfig categoriesFile = Fadah.getINSTANCE().getCategoriesFile();
+    private volatile Index index = Index.of(List.of());
+    private volatile Predicate<ItemStack> customItems;
 
     public void update() {
-        categories = fillListWithCategories();
+        index = Index.of(fillListWithCategories());
+        customItems = null;
     }
 
     public Category getCategory(String id) {
-        return categories.stream().filter(category -> category.id().equals(id)).findFirst().orElse(null);
+        return index.byId().get(id);
     }
 
     public String getCatName(String id) {
@@ -35,23 +46,39 @@ public final class CategoryCache {
     }
 
     public List<Category> getCategories() {
-        return Collections.unmodifiableList(categories);
+        return index.categories();
     }
 
     @Nullable
     public String getCategoryForItem(ItemStack itemStack) {
-        for (Category category : getCategories()) {
-            if (category.isCustomItems()) {
-                if (Config.i().getHooks().isEcoItems()
-                        && Fadah.getINSTANCE().getHookManager().getHook(EcoItemsHook.class).isPresent()) {
-                    EcoItemsHook ecoItemsHook = Fadah.getINSTANCE().getHookManager().getHook(EcoItemsHook.class).get();
-                    if (ecoItemsHook.isEcoItem(itemStack)) return category.id();
-                }
-            }
-            if (category.materials() != null && category.materials().contains(itemStack.getType()))
-                return category.id();
+        Index current = index;
+        Category category;
+        if (current.customCategory() != null && getCustomItems().test(itemStack)) {
+            category = current.customItemsByMaterial().getOrDefault(itemStack.getType(), current.customCategory());
+        } else {
+            category = current.byMaterial().get(itemStack.getType());
+        }
+        return category == null ? null : category.id();
+    }
+
+    /**
+     * Hooks are loaded after the categories, so the matcher is found the first time it is needed
+     * and kept until the categories are updated again.
+     */
+    private Predicate<ItemStack> getCustomItems() {
+        Predicate<ItemStack> matcher = customItems;
+        if (matcher != null) return matcher;
+
+        if (!Config.i().getHooks().isEcoItems()) {
+            matcher = item -> false;
+        } else {
+            Optional<EcoItemsHook> hook = Fadah.getINSTANCE().getHookManager().getHook(EcoItemsHook.class);
+            // Not kept while the hook is missing, it may not have been loaded yet
+            if (hook.isEmpty()) return item -> false;
+            matcher = hook.get()::isEcoItem;
         }
-        return null;
+        customItems = matcher;
+        return matcher;
     }
 
     public List<Category> fillListWithCategories() {
@@ -91,4 +118,38 @@ public final class CategoryCache {
         list.sort(Comparator.comparingInt(Category::priority).reversed());
         return list;
     }
-}
\ No newline at end of file
+
+    /**
+     * @param categories            the categories, highest priority first.
+     * @param byId                  the categories by their id.
+     * @param byMaterial            the category of each material, for items that are not custom items.
+     * @param customCategory        the first category that allows custom items, or null if none do.
+     * @param customItemsByMaterial the category of custom items made from each material,
+     *                              only for materials listed by a category before the custom category.
+     */
+    private record Index(
+            List<Category> categories,
+            Map<String, Category> byId,
+            Map<Material, Category> byMaterial,
+            @Nullable Category customCategory,
+            Map<Material, Category> customItemsByMaterial
+    ) {
+        static Index of(List<Category> categories) {
+            Map<String, Category> byId = new HashMap<>();
+            Map<Material, Category> byMaterial = new EnumMap<>(Material.class);
+            Map<Material, Category> customItemsByMaterial = new EnumMap<>(Material.class);
+            Category customCategory = null;
+            for (Category category : categories) {
+                byId.putIfAbsent(category.id(), category);
+                if (category.materials() != null) {
+                    for (Material material : category.materials()) {
+                        byMaterial.putIfAbsent(material, category);
+                        if (customCategory == null) customItemsByMaterial.putIfAbsent(material, category);
+                    }
+                }
+                if (category.isCustomItems() && customCategory == null) customCategory = category;
+            }
+            return new Index(List.copyOf(categories), byId, byMaterial, customCategory, customItemsByMaterial);
+        }
+    }
+}
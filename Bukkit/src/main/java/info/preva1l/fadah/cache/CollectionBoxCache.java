@@ -3,57 +3,56 @@ package info.preva1l.fadah.cache;
 import info.preva1l.fadah.records.CollectableItem;
 import lombok.experimental.UtilityClass;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 @UtilityClass
 public class CollectionBoxCache {
-    private final Map<UUID, List<CollectableItem>> collectionbox = new ConcurrentHashMap<>();
+    private final TimeOrderedCache<CollectableItem> collectionbox =
+            new TimeOrderedCache<>(CollectableItem::dateAdded, CollectableItem::id);
 
     public void addItem(UUID playerUUID, CollectableItem item) {
-        collectionbox.compute(playerUUID, (uuid, items) -> {
-            if (items == null) {
-                items = new ArrayList<>();
-            }
-            items.add(item);
-
-            items.sort(Comparator.comparingLong(CollectableItem::dateAdded).reversed());
-            return items;
-        });
+        collectionbox.add(playerUUID, item);
+        CacheBus.publish(CacheBus.Topic.COLLECTION_BOX, playerUUID);
     }
 
     public void removeItem(UUID playerUUID, CollectableItem item) {
-        collectionbox.computeIfPresent(playerUUID, (uuid, items) -> {
-            items.remove(item);
-            return items;
-        });
+        collectionbox.remove(playerUUID, item);
+        CacheBus.publish(CacheBus.Topic.COLLECTION_BOX, playerUUID);
     }
 
     public void update(UUID playerUUID, List<CollectableItem> list) {
-        list.sort(Comparator.comparingLong(CollectableItem::dateAdded).reversed());
-        collectionbox.put(playerUUID, list);
+        collectionbox.replace(playerUUID, list);
+        CacheBus.publish(CacheBus.Topic.COLLECTION_BOX, playerUUID);
     }
 
     public void invalidate(UUID playerUUID) {
-        collectionbox.remove(playerUUID);
+        collectionbox.invalidate(playerUUID);
+        CacheBus.forget(CacheBus.Topic.COLLECTION_BOX, playerUUID);
     }
 
+    /**
+     * Get a copy of a players collection box, newest first.
+     *
+     * @param playerUUID the player.
+     * @return the items, safe to change.
+     */
     public List<CollectableItem> getCollectionBox(UUID playerUUID) {
-        if (collectionbox.get(playerUUID) == null) {
-            return new ArrayList<>();
-        }
-        List<CollectableItem> ret = new ArrayList<>();
-        collectionbox.computeIfPresent(playerUUID, (uuid, items) -> {
-            ret.addAll(items);
-            return items;
-        });
-        return ret;
+        return collectionbox.snapshot(playerUUID);
+    }
+
+    /**
+     * Get a live view of a players collection box, newest first, without copying them.
+     *
+     * @param playerUUID the player.
+     * @return the items, read only.
+     */
+    public Collection<CollectableItem> viewCollectionBox(UUID playerUUID) {
+        return collectionbox.view(playerUUID);
     }
 
     public boolean doesItemExist(UUID playerUUID, CollectableItem e) {
-        for (CollectableItem item : getCollectionBox(playerUUID)) { // todo: re-add strict checks
-            if (item.equals(e)) return true;
-        }
-        return false;
+        return collectionbox.contains(playerUUID, e);
     }
 }
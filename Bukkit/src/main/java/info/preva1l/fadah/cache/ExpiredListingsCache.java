@@ -3,57 +3,56 @@ package info.preva1l.fadah.cache;
 import info.preva1l.fadah.records.CollectableItem;
 import lombok.experimental.UtilityClass;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 @UtilityClass
 public class ExpiredListingsCache {
-    private final Map<UUID, List<CollectableItem>> expiredListings = new ConcurrentHashMap<>();
+    private final TimeOrderedCache<CollectableItem> expiredListings =
+            new TimeOrderedCache<>(CollectableItem::dateAdded, CollectableItem::id);
 
     public void addItem(UUID playerUUID, CollectableItem item) {
-        expiredListings.compute(playerUUID, (uuid, items) -> {
-            if (items == null) {
-                items = new ArrayList<>();
-            }
-            items.add(item);
-
-            items.sort(Comparator.comparingLong(CollectableItem::dateAdded).reversed());
-            return items;
-        });
+        expiredListings.add(playerUUID, item);
+        CacheBus.publish(CacheBus.Topic.EXPIRED_LISTINGS, playerUUID);
     }
 
     public void removeItem(UUID playerUUID, CollectableItem item) {
-        expiredListings.computeIfPresent(playerUUID, (uuid, items) -> {
-            items.remove(item);
-            return items;
-        });
+        expiredListings.remove(playerUUID, item);
+        CacheBus.publish(CacheBus.Topic.EXPIRED_LISTINGS, playerUUID);
     }
 
     public void update(UUID playerUUID, List<CollectableItem> list) {
-        list.sort(Comparator.comparingLong(CollectableItem::dateAdded).reversed());
-        expiredListings.put(playerUUID, list);
+        expiredListings.replace(playerUUID, list);
+        CacheBus.publish(CacheBus.Topic.EXPIRED_LISTINGS, playerUUID);
     }
 
     public void invalidate(UUID playerUUID) {
-        expiredListings.remove(playerUUID);
+        expiredListings.invalidate(playerUUID);
+        CacheBus.forget(CacheBus.Topic.EXPIRED_LISTINGS, playerUUID);
     }
 
+    /**
+     * Get a copy of a players expired listings, newest first.
+     *
+     * @param playerUUID the player.
+     * @return the items, safe to change.
+     */
     public List<CollectableItem> getExpiredListings(UUID playerUUID) {
-        if (expiredListings.get(playerUUID) == null) {
-            return new ArrayList<>();
-        }
-        List<CollectableItem> ret = new ArrayList<>();
-        expiredListings.computeIfPresent(playerUUID, (uuid, items) -> {
-            ret.addAll(items);
-            return items;
-        });
-        return ret;
+        return expiredListings.snapshot(playerUUID);
+    }
+
+    /**
+     * Get a live view of a players expired listings, newest first, without copying them.
+     *
+     * @param playerUUID the player.
+     * @return the items, read only.
+     */
+    public Collection<CollectableItem> viewExpiredListings(UUID playerUUID) {
+        return expiredListings.view(playerUUID);
     }
 
     public boolean doesItemExist(UUID playerUUID, CollectableItem e) {
-        for (CollectableItem item : getExpiredListings(playerUUID)) { // todo: readd strict checks
-            if (item.equals(e)) return true;
-        }
-        return false;
+        return expiredListings.contains(playerUUID, e);
     }
 }
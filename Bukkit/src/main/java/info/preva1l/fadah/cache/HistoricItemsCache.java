@@ -1,50 +1,59 @@
 package info.preva1l.fadah.cache;
 
+import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.records.HistoricItem;
 import lombok.experimental.UtilityClass;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Holds the most recent page of history for each online player, newest first.
+ * Older history is only read from the database when it is viewed.
+ */
 @UtilityClass
 public class HistoricItemsCache {
-    private final Map<UUID, List<HistoricItem>> historicItems = new ConcurrentHashMap<>();
+    private final TimeOrderedCache<HistoricItem> historicItems = new TimeOrderedCache<>(HistoricItem::getLoggedDate,
+            HistoricItem::getId, () -> Config.i().getHistory().getCachedEntries());
 
     public void addLog(UUID playerUUID, HistoricItem item) {
-        historicItems.compute(playerUUID, (uuid, items) -> {
-            if (items == null) {
-                items = new ArrayList<>();
-            }
-            items.add(item);
-
-            items.sort(Comparator.comparingLong(HistoricItem::getLoggedDate).reversed());
-            return items;
-        });
+        historicItems.add(playerUUID, item);
+        CacheBus.publish(CacheBus.Topic.HISTORY, playerUUID);
     }
 
     public void update(UUID playerUUID, List<HistoricItem> list) {
-        list.sort(Comparator.comparingLong(HistoricItem::getLoggedDate).reversed());
-        historicItems.put(playerUUID, list);
+        historicItems.replace(playerUUID, list);
+        CacheBus.publish(CacheBus.Topic.HISTORY, playerUUID);
     }
 
     public void invalidate(UUID playerUUID) {
-        historicItems.remove(playerUUID);
+        historicItems.invalidate(playerUUID);
+        CacheBus.forget(CacheBus.Topic.HISTORY, playerUUID);
     }
 
+    /**
+     * Get the most recent history of a player.
+     *
+     * @param playerUUID the player.
+     * @return a copy of the cached entries, newest first.
+     */
     public List<HistoricItem> getHistory(UUID playerUUID) {
-        if (historicItems.get(playerUUID) == null) {
-            return new ArrayList<>();
-        }
-        List<HistoricItem> ret = new ArrayList<>();
-        historicItems.computeIfPresent(playerUUID, (uuid, items) -> {
-            ret.addAll(items);
-            return items;
-        });
-        return ret;
+        return historicItems.snapshot(playerUUID);
+    }
+
+    /**
+     * Get a live view of the most recent history of a player, newest first, without copying it.
+     *
+     * @param playerUUID the player.
+     * @return the cached entries, read only.
+     */
+    public Collection<HistoricItem> viewHistory(UUID playerUUID) {
+        return historicItems.view(playerUUID);
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     public boolean playerExists(UUID uuid) {
-        return !getHistory(uuid).isEmpty();
+        return !historicItems.isEmpty(uuid);
     }
-}
\ No newline at end of file
+}
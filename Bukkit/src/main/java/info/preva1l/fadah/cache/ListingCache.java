@@ -1,42 +1,314 @@
 package info.preva1l.fadah.cache;
 
+import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.DatabaseManager;
+import info.preva1l.fadah.filters.SortingDirection;
+import info.preva1l.fadah.filters.SortingMethod;
 import info.preva1l.fadah.records.Listing;
 import lombok.experimental.UtilityClass;
+import org.bukkit.Material;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Level;
 
 @UtilityClass
 public final class ListingCache {
-    private Map<UUID, @NotNull Listing> listings = new ConcurrentHashMap<>();
+    // Replaced as a whole when the listings are reloaded, so nobody ever sees the cache half filled
+    private volatile Store store = new Store();
 
-    public void addListing(@Nullable Listing newListing) {
+    // Changes made while a reload is streaming, by listing id, laid over what it read before it is swapped in.
+    // Null when no reload is running, only ever touched while holding the cache lock
+    private Map<UUID, Optional<Listing>> changedDuringReload = null;
+    private boolean reloadAgain = false;
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    public synchronized void addListing(@Nullable Listing newListing) {
         if (newListing == null) {
             return;
         }
-        listings.put(newListing.getId(), newListing);
+        if (changedDuringReload != null) {
+            changedDuringReload.put(newListing.getId(), Optional.of(newListing));
+        }
+        Listing old = store.put(newListing);
+        if (old != null) {
+            deindex(old);
+        }
+        index(newListing);
+        CacheBus.publish(CacheBus.Topic.LISTINGS, newListing.getOwner());
     }
 
-    public void removeListing(@NotNull Listing listing) {
-        listings.remove(listing.getId());
+    public synchronized void removeListing(@NotNull Listing listing) {
+        removeListing(listing.getId());
+    }
+
+    /**
+     * Remove a listing, nothing happens if it is not cached.
+     *
+     * @param id the id of the listing.
+     */
+    public synchronized void removeListing(@NotNull UUID id) {
+        // Remembered even if it is not cached yet, so a reload that already read it does not bring it back
+        if (changedDuringReload != null) {
+            changedDuringReload.put(id, Optional.empty());
+        }
+        Listing removed = store.remove(id);
+        if (removed != null) {
+            deindex(removed);
+            CacheBus.publish(CacheBus.Topic.LISTINGS, removed.getOwner());
+        }
     }
 
     @Nullable
     public Listing getListing(@NotNull UUID id) {
-        return listings.get(id);
+        return store.listings.get(id);
     }
 
+    /**
+     * Reload every listing from the database.
+     * <p>
+     * The listings are read into a new cache which replaces the current one once they have all been read,
+     * until then the current listings stay up. Listings added or removed in the meantime are applied to both.
+     * If the read fails the current listings are kept.
+     * {@link #whenReady()} completes once the first load has finished.
+     * </p>
+     */
     public void update() {
-        Map<UUID, Listing> temp = new ConcurrentHashMap<>();
-        DatabaseManager.getInstance().getAll(Listing.class).thenAccept(listings -> listings.forEach(listing -> temp.put(listing.getId(), listing)));
-        listings = temp;
+        synchronized (ListingCache.class) {
+            if (changedDuringReload != null) {
+                // Already reloading, but it may have read past whatever this reload was asked for
+                reloadAgain = true;
+                return;
+            }
+            changedDuringReload = new HashMap<>();
+        }
+        Map<UUID, Listing> loaded = new ConcurrentHashMap<>();
+        DatabaseManager.getInstance().streamAll(Listing.class, listing -> loaded.put(listing.getId(), listing)).whenComplete((ignored, e) -> {
+            boolean again;
+            synchronized (ListingCache.class) {
+                if (e != null) {
+                    Fadah.getConsole().log(Level.SEVERE, "Failed to load listings!", e);
+                } else {
+                    replace(loaded);
+                }
+                changedDuringReload = null;
+                again = reloadAgain;
+                reloadAgain = false;
+            }
+            CacheBus.publish(CacheBus.Topic.LISTINGS);
+            ready.complete(null);
+            if (again) update();
+        });
+    }
+
+    private void replace(Map<UUID, Listing> loaded) {
+        changedDuringReload.forEach((id, listing) -> listing.ifPresentOrElse(
+                value -> loaded.put(id, value), () -> loaded.remove(id)));
+
+        Store old = store;
+        Store next = new Store();
+        loaded.values().forEach(next::put);
+        store = next;
+
+        // Listings that were kept as they are need nothing else updated
+        Set<UUID> changedOwners = new HashSet<>();
+        for (Listing listing : old.listings.values()) {
+            if (loaded.get(listing.getId()) == listing) continue;
+            deindex(listing);
+            changedOwners.add(listing.getOwner());
+        }
+        for (Listing listing : loaded.values()) {
+            if (old.listings.get(listing.getId()) == listing) continue;
+            index(listing);
+            changedOwners.add(listing.getOwner());
+        }
+        // Menus showing one players listings only watch that player
+        changedOwners.forEach(owner -> CacheBus.publish(CacheBus.Topic.LISTINGS, owner));
+    }
+
+    /**
+     * Check if the listings have been loaded from the database at least once.
+     *
+     * @return true if the cache is populated.
+     */
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * @return a future completed once the listings have been loaded from the database at least once.
+     */
+    public @NotNull CompletableFuture<Void> whenReady() {
+        return ready;
     }
 
     public Map<UUID, Listing> getListings() {
-        return new ConcurrentHashMap<>(listings);
+        return new ConcurrentHashMap<>(store.listings);
+    }
+
+    /**
+     * Get all the listings owned by a player.
+     *
+     * @param owner the owner of the listings.
+     * @return a list of listings owned by the player, empty if they have none.
+     */
+    public @NotNull List<Listing> getListingsByOwner(@NotNull UUID owner) {
+        Store current = store;
+        return current.slice(current.byOwner, owner);
+    }
+
+    /**
+     * Get the amount of listings a player currently has, without copying them.
+     *
+     * @param owner the owner of the listings.
+     * @return the amount of active listings the player has.
+     */
+    public int countListingsByOwner(@NotNull UUID owner) {
+        Set<UUID> ids = store.byOwner.get(owner);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Get all the listings in a category.
+     *
+     * @param categoryId the id of the category.
+     * @return a list of listings in the category, empty if there are none.
+     */
+    public @NotNull List<Listing> getListingsByCategory(@NotNull String categoryId) {
+        Store current = store;
+        return current.slice(current.byCategory, categoryId);
+    }
+
+    /**
+     * Get all the listings sold for a currency.
+     *
+     * @param currencyId the id of the currency.
+     * @return a list of listings using the currency, empty if there are none.
+     */
+    public @NotNull List<Listing> getListingsByCurrency(@NotNull String currencyId) {
+        Store current = store;
+        return current.slice(current.byCurrency, currencyId);
+    }
+
+    /**
+     * Get all the listings of a material.
+     *
+     * @param material the material of the listed item.
+     * @return a list of listings for the material, empty if there are none.
+     */
+    public @NotNull List<Listing> getListingsByMaterial(@NotNull Material material) {
+        Store current = store;
+        return current.slice(current.byMaterial, material);
+    }
+
+    /**
+     * Get a live, read only view of all the listings ordered by a sorting method.
+     * <p>
+     * The view is maintained as listings are added and removed, so it never needs to be sorted again.
+     * </p>
+     *
+     * @param method    the sorting method.
+     * @param direction the direction to sort in.
+     * @return the sorted view of the listings.
+     */
+    public @NotNull NavigableSet<Listing> getSortedListings(@NotNull SortingMethod method, @NotNull SortingDirection direction) {
+        NavigableSet<Listing> view = store.sorted.get(method);
+        return Collections.unmodifiableNavigableSet(direction == SortingDirection.ASCENDING ? view : view.descendingSet());
+    }
+
+    private void index(Listing listing) {
+        SearchIndex.index(listing);
+        ListingExpiry.track(listing);
+    }
+
+    private void deindex(Listing listing) {
+        SearchIndex.remove(listing);
+        ListingDisplayCache.invalidate(listing.getId());
+        ListingExpiry.untrack(listing);
+    }
+
+    private static final class Store {
+        private final Map<UUID, @NotNull Listing> listings = new ConcurrentHashMap<>();
+
+        // Secondary indexes, only ever mutated while holding the cache lock
+        private final Map<UUID, Set<UUID>> byOwner = new ConcurrentHashMap<>();
+        private final Map<String, Set<UUID>> byCategory = new ConcurrentHashMap<>();
+        private final Map<String, Set<UUID>> byCurrency = new ConcurrentHashMap<>();
+        private final Map<Material, Set<UUID>> byMaterial = new ConcurrentHashMap<>();
+
+        // Every sorting method is kept in its ascending order, descending is served from the reversed view
+        private final Map<SortingMethod, NavigableSet<Listing>> sorted = createSortedViews();
+
+        private @Nullable Listing put(@NotNull Listing listing) {
+            Listing old = listings.put(listing.getId(), listing);
+            if (old != null) {
+                deindex(old);
+            }
+            index(listing);
+            return old;
+        }
+
+        private @Nullable Listing remove(@NotNull UUID id) {
+            Listing removed = listings.remove(id);
+            if (removed != null) {
+                deindex(removed);
+            }
+            return removed;
+        }
+
+        private <K> List<Listing> slice(Map<K, Set<UUID>> index, K key) {
+            Set<UUID> ids = index.get(key);
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            List<Listing> ret = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                Listing listing = listings.get(id);
+                if (listing != null) ret.add(listing);
+            }
+            return ret;
+        }
+
+        private void index(Listing listing) {
+            add(byOwner, listing.getOwner(), listing.getId());
+            add(byCategory, listing.getCategoryID(), listing.getId());
+            add(byCurrency, listing.getCurrencyId(), listing.getId());
+            add(byMaterial, listing.getItemStack().getType(), listing.getId());
+            sorted.values().forEach(view -> view.add(listing));
+        }
+
+        private void deindex(Listing listing) {
+            remove(byOwner, listing.getOwner(), listing.getId());
+            remove(byCategory, listing.getCategoryID(), listing.getId());
+            remove(byCurrency, listing.getCurrencyId(), listing.getId());
+            remove(byMaterial, listing.getItemStack().getType(), listing.getId());
+            sorted.values().forEach(view -> view.remove(listing));
+        }
+
+        private <K> void add(Map<K, Set<UUID>> index, K key, UUID id) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+
+        private <K> void remove(Map<K, Set<UUID>> index, K key, UUID id) {
+            index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        private static Map<SortingMethod, NavigableSet<Listing>> createSortedViews() {
+            Map<SortingMethod, NavigableSet<Listing>> views = new EnumMap<>(SortingMethod.class);
+            for (SortingMethod method : SortingMethod.values()) {
+                // Ties are broken by id so listings that compare equal are not collapsed by the set
+                views.put(method, new ConcurrentSkipListSet<>(method.getSorter(SortingDirection.ASCENDING)
+                        .thenComparing(Listing::getId)));
+            }
+            return views;
+        }
     }
-}
\ No newline at end of file
+}
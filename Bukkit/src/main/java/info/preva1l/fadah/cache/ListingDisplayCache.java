@@ -0,0 +1,167 @@
+package info.preva1l.fadah.cache;
+
+import info.preva1l.fadah.records.Listing;
+import info.preva1l.fadah.utils.TimeUtil;
+import info.preva1l.fadah.utils.guis.LayoutManager;
+import lombok.experimental.UtilityClass;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pre-rendered display items for listings.
+ * <p>
+ * Everything in a listings lore apart from the time remaining is the same for every viewer and every refresh,
+ * so it is rendered once per menu and only the time is patched in when the item is shown or its countdown ticks.
+ * Entries are keyed by listing, menu and the generation of the config and lang they were rendered with.
+ * They are dropped when the listing is removed or changes, and everything is dropped on reload.
+ * </p>
+ */
+@UtilityClass
+public final class ListingDisplayCache {
+    /**
+     * Passed to the lore in place of the time remaining, replaced every time the item is shown.
+     */
+    public final String TIME_PLACEHOLDER = "{fadah-time-remaining}";
+
+    // Moved on reload, entries rendered with an older config or lang are keyed on an older generation and never served
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<UUID, Map<Key, Display>> displays = new ConcurrentHashMap<>();
+
+    /**
+     * Get the display item of a listing for a menu.
+     *
+     * @param menu    the menu the item is shown in.
+     * @param listing the listing.
+     * @param body    supplies the lore added under the items own lore, using {@link #TIME_PLACEHOLDER} for the time remaining.
+     *                Only called when the item is not cached yet.
+     * @return a copy of the display item with the current time remaining, safe to modify.
+     */
+    public @NotNull ItemStack getDisplayItem(@NotNull LayoutManager.MenuType menu, @NotNull Listing listing,
+                                             @NotNull Supplier<List<String>> body) {
+        String timeRemaining = TimeUtil.formatTimeUntil(listing.getDeletionDate());
+        Key key = new Key(menu, generation.get());
+        Display display = find(listing.getId(), key);
+        if (display == null) {
+            Display created = create(listing, body.get());
+            display = created;
+            // Checked under the same lock invalidate takes, so a listing removed while rendering is not cached again
+            displays.compute(listing.getId(), (id, cached) -> {
+                if (ListingCache.getListing(id) != listing) return cached;
+                Map<Key, Display> byKey = cached == null ? new ConcurrentHashMap<>() : cached;
+                byKey.keySet().removeIf(k -> k.generation() != key.generation());
+                byKey.putIfAbsent(key, created);
+                return byKey;
+            });
+        }
+        return display.render(timeRemaining);
+    }
+
+    /**
+     * Bring the time remaining on a display item up to date.
+     *
+     * @param menu      the menu the item is shown in.
+     * @param listing   the listing.
+     * @param itemStack the item as it is shown, starting with the lore of {@link #getDisplayItem}.
+     * @return a copy of the item with the current time remaining,
+     * or null when the time shown is still current or the display item is no longer cached.
+     */
+    public @Nullable ItemStack updateTime(@NotNull LayoutManager.MenuType menu, @NotNull Listing listing,
+                                          @NotNull ItemStack itemStack) {
+        Display display = find(listing.getId(), new Key(menu, generation.get()));
+        if (display == null) {
+            return null;
+        }
+        return display.update(itemStack, TimeUtil.formatTimeUntil(listing.getDeletionDate()));
+    }
+
+    public void invalidate(@NotNull UUID listingId) {
+        displays.remove(listingId);
+    }
+
+    /**
+     * Drop everything, used on reload when the config or lang the items were rendered with may have changed.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        displays.clear();
+    }
+
+    private @Nullable Display find(UUID listingId, Key key) {
+        Map<Key, Display> byKey = displays.get(listingId);
+        return byKey == null ? null : byKey.get(key);
+    }
+
+    private Display create(Listing listing, List<String> body) {
+        ItemStack base = listing.getItemStack().clone();
+        List<String> lore = new ArrayList<>();
+        ItemMeta meta = base.getItemMeta();
+        if (meta != null && meta.getLore() != null) {
+            lore.addAll(meta.getLore());
+        }
+        if (body != null) {
+            lore.addAll(body);
+        }
+
+        List<Integer> timeLines = new ArrayList<>();
+        for (int i = 0; i < lore.size(); i++) {
+            if (lore.get(i).contains(TIME_PLACEHOLDER)) timeLines.add(i);
+        }
+        return new Display(base, lore, timeLines);
+    }
+
+    private record Key(LayoutManager.MenuType menu, long generation) {
+    }
+
+    private record Display(ItemStack base, List<String> lore, List<Integer> timeLines) {
+        ItemStack render(String timeRemaining) {
+            ItemStack item = base.clone();
+            ItemMeta meta = item.getItemMeta();
+            if (meta == null) {
+                return item;
+            }
+            List<String> lines = new ArrayList<>(lore);
+            for (int line : timeLines) {
+                lines.set(line, lines.get(line).replace(TIME_PLACEHOLDER, timeRemaining));
+            }
+            meta.setLore(lines);
+            item.setItemMeta(meta);
+            return item;
+        }
+
+        @Nullable ItemStack update(ItemStack shown, String timeRemaining) {
+            ItemMeta meta = shown.getItemMeta();
+            if (meta == null || meta.getLore() == null) {
+                return null;
+            }
+            List<String> lines = new ArrayList<>(meta.getLore());
+            boolean changed = false;
+            for (int line : timeLines) {
+                if (line >= lines.size()) {
+                    return null;
+                }
+                String updated = lore.get(line).replace(TIME_PLACEHOLDER, timeRemaining);
+                if (!updated.equals(lines.get(line))) {
+                    lines.set(line, updated);
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return null;
+            }
+            ItemStack item = shown.clone();
+            meta.setLore(lines);
+            item.setItemMeta(meta);
+            return item;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package info.preva1l.fadah.cache;
+
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.records.Listing;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Expires listings when their deletion date is reached.
+ * <p>
+ * Every cached listing has a deadline in a {@link DelayQueue}, kept up to date by {@link ListingCache} as listings
+ * are added, so a single thread sleeps until the next listing is due instead of scanning every listing on a timer.
+ * Everything due at the same time is expired as one batch.
+ * Removing a listing does not search the queue for it, its deadline is skipped when it comes up instead,
+ * and the queue is compacted once enough of those have built up.
+ * </p>
+ * <p>
+ * On a network only one server expires listings, the others keep their deadlines on standby
+ * so they can take over where it left off.
+ * </p>
+ */
+@UtilityClass
+public class ListingExpiry {
+    private final int MIN_COMPACT_SIZE = 1024;
+    private final long STANDBY_INTERVAL = 1000;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    private final AtomicInteger stale = new AtomicInteger();
+    private volatile Thread thread;
+
+    /**
+     * Start expiring listings.
+     *
+     * @param onExpire  called on the expiry thread with each batch of listings that are due,
+     *                  they are still in the cache when it is called.
+     * @param canExpire whether this server is the one expiring listings.
+     */
+    public synchronized void start(@NotNull Consumer<List<Listing>> onExpire, @NotNull BooleanSupplier canExpire) {
+        if (thread != null) return;
+        thread = new Thread(() -> run(onExpire, canExpire), "Fadah-Expiry");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) return;
+        thread.interrupt();
+        thread = null;
+    }
+
+    void track(@NotNull Listing listing) {
+        deadlines.add(new Deadline(listing));
+    }
+
+    void untrack(@NotNull Listing listing) {
+        if (stale.incrementAndGet() > Math.max(MIN_COMPACT_SIZE, deadlines.size() / 2)) {
+            stale.set(0);
+            deadlines.removeIf(deadline -> !deadline.isCurrent());
+        }
+    }
+
+    private void run(Consumer<List<Listing>> onExpire, BooleanSupplier canExpire) {
+        List<Deadline> due = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Deadline next = deadlines.take();
+                if (!canExpire.getAsBoolean()) {
+                    // Another server is expiring listings, keep the deadline in case this one has to take over
+                    if (next.isCurrent()) deadlines.add(next);
+                    else stale.updateAndGet(count -> Math.max(0, count - 1));
+                    Thread.sleep(STANDBY_INTERVAL);
+                    continue;
+                }
+                due.add(next);
+            } catch (InterruptedException e) {
+                return;
+            }
+            deadlines.drainTo(due);
+
+            List<Listing> batch = new ArrayList<>(due.size());
+            for (Deadline deadline : due) {
+                if (deadline.isCurrent()) batch.add(deadline.listing);
+                else stale.updateAndGet(count -> Math.max(0, count - 1));
+            }
+            due.clear();
+            if (batch.isEmpty()) continue;
+
+            try {
+                onExpire.accept(batch);
+            } catch (Throwable t) {
+                Fadah.getConsole().log(Level.SEVERE, "Failed to expire listings!", t);
+            }
+        }
+    }
+
+    private record Deadline(Listing listing) implements Delayed {
+        /**
+         * A deadline only counts while its listing is the one in the cache, listings that were removed,
+         * or replaced by a newer copy with its own deadline, are skipped.
+         */
+        private boolean isCurrent() {
+            return ListingCache.getListing(listing.getId()) == listing;
+        }
+
+        @Override
+        public long getDelay(@NotNull TimeUnit unit) {
+            return unit.convert(listing.getDeletionDate() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(@NotNull Delayed other) {
+            return Long.compare(listing.getDeletionDate(), ((Deadline) other).listing.getDeletionDate());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package info.preva1l.fadah.cache;
+
+import info.preva1l.fadah.records.Listing;
+import info.preva1l.fadah.utils.StringUtils;
+import lombok.experimental.UtilityClass;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over the searchable text of every cached listing.
+ * <p>
+ * The material name, display name, lore and enchantments of a listing are tokenized into trigrams when it is cached.
+ * A query only has to verify the listings in its rarest trigram instead of inspecting every item on the auction house.
+ * </p>
+ */
+@UtilityClass
+public final class SearchIndex {
+    private final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+    private final Map<UUID, String[]> documents = new ConcurrentHashMap<>();
+
+    void index(@NotNull Listing listing) {
+        String[] fields = extractFields(listing.getItemStack());
+        documents.put(listing.getId(), fields);
+        for (String gram : grams(fields)) {
+            postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(listing.getId());
+        }
+    }
+
+    void remove(@NotNull Listing listing) {
+        String[] fields = documents.remove(listing.getId());
+        if (fields == null) {
+            return;
+        }
+        for (String gram : grams(fields)) {
+            postings.computeIfPresent(gram, (k, ids) -> {
+                ids.remove(listing.getId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Find every listing whose material, name, lore or enchantments contain the query.
+     *
+     * @param query the search query, case insensitive.
+     * @return the ids of the matching listings.
+     */
+    public @NotNull Set<UUID> search(@NotNull String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Set<UUID> matches = new HashSet<>();
+        matches.addAll(find(needle));
+        if (needle.contains(" ")) {
+            // Material names use underscores, so "diamond sword" should still find DIAMOND_SWORD
+            matches.addAll(find(needle.replace(" ", "_")));
+        }
+        return matches;
+    }
+
+    private List<UUID> find(String needle) {
+        Collection<UUID> candidates = documents.keySet();
+        if (needle.length() >= GRAM_LENGTH) {
+            for (String gram : grams(needle)) {
+                Set<UUID> posting = postings.get(gram);
+                if (posting == null) {
+                    return Collections.emptyList();
+                }
+                if (posting.size() < candidates.size()) {
+                    candidates = posting;
+                }
+            }
+        }
+
+        List<UUID> ret = new ArrayList<>();
+        for (UUID id : candidates) {
+            String[] fields = documents.get(id);
+            if (fields != null && contains(fields, needle)) {
+                ret.add(id);
+            }
+        }
+        return ret;
+    }
+
+    private boolean contains(String[] fields, String needle) {
+        for (String field : fields) {
+            if (field.contains(needle)) return true;
+        }
+        return false;
+    }
+
+    private String[] extractFields(ItemStack item) {
+        List<String> fields = new ArrayList<>();
+        fields.add(item.getType().name().toLowerCase(Locale.ROOT));
+        if (item.hasItemMeta()) {
+            ItemMeta meta = item.getItemMeta();
+            if (meta.hasDisplayName()) {
+                fields.add(normalize(meta.getDisplayName()));
+            }
+            if (meta.hasLore() && meta.getLore() != null) {
+                for (String line : meta.getLore()) {
+                    fields.add(normalize(line));
+                }
+            }
+            for (Enchantment enchantment : meta.getEnchants().keySet()) {
+                fields.add(enchantment.getKey().getKey().toLowerCase(Locale.ROOT));
+            }
+            if (meta instanceof EnchantmentStorageMeta storage) {
+                for (Enchantment enchantment : storage.getStoredEnchants().keySet()) {
+                    fields.add(enchantment.getKey().getKey().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private String normalize(String text) {
+        return StringUtils.removeColorCodes(text).toLowerCase(Locale.ROOT);
+    }
+
+    private Set<String> grams(String... fields) {
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM_LENGTH <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,133 @@
+package info.preva1l.fadah.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Items kept per player, newest first, shared by the collection box, expired items and history caches.
+ * <p>
+ * Each player has a skip list ordered by time, so adding an item is a single O(log n) insert rather than a sort,
+ * and an index of the items ids, so checking if an item exists never walks the list.
+ * Reads iterate the live skip list without copying it or taking a lock, writes to one player lock only that player.
+ * </p>
+ *
+ * @param <T> the type of item.
+ */
+final class TimeOrderedCache<T> {
+    private final Map<UUID, Timeline<T>> timelines = new ConcurrentHashMap<>();
+    private final ToLongFunction<T> timeOf;
+    private final Function<T, Object> idOf;
+    private final IntSupplier capacity;
+
+    /**
+     * @param timeOf   the time of an item, in epoch millis.
+     * @param idOf     the id of an item, must be unique per player.
+     * @param capacity the most items kept per player, the oldest are dropped past it.
+     */
+    TimeOrderedCache(ToLongFunction<T> timeOf, Function<T, Object> idOf, IntSupplier capacity) {
+        this.timeOf = timeOf;
+        this.idOf = idOf;
+        this.capacity = capacity;
+    }
+
+    TimeOrderedCache(ToLongFunction<T> timeOf, Function<T, Object> idOf) {
+        this(timeOf, idOf, () -> Integer.MAX_VALUE);
+    }
+
+    void add(UUID player, T item) {
+        timelines.computeIfAbsent(player, k -> new Timeline<>()).add(item, this);
+    }
+
+    void remove(UUID player, T item) {
+        Timeline<T> timeline = timelines.get(player);
+        if (timeline != null) timeline.remove(idOf.apply(item));
+    }
+
+    void replace(UUID player, Collection<T> items) {
+        Timeline<T> timeline = new Timeline<>();
+        for (T item : items) timeline.add(item, this);
+        timelines.put(player, timeline);
+    }
+
+    void invalidate(UUID player) {
+        timelines.remove(player);
+    }
+
+    boolean contains(UUID player, T item) {
+        Timeline<T> timeline = timelines.get(player);
+        return timeline != null && timeline.ids.containsKey(idOf.apply(item));
+    }
+
+    boolean isEmpty(UUID player) {
+        Timeline<T> timeline = timelines.get(player);
+        return timeline == null || timeline.items.isEmpty();
+    }
+
+    /**
+     * A live, read only view of a players items, newest first.
+     * Iterating it never copies the items and never fails while they are being changed.
+     */
+    @NotNull Collection<T> view(UUID player) {
+        Timeline<T> timeline = timelines.get(player);
+        return timeline == null ? List.of() : Collections.unmodifiableCollection(timeline.items.values());
+    }
+
+    /**
+     * A copy of a players items, newest first, for callers that need to index into them or change them.
+     */
+    @NotNull List<T> snapshot(UUID player) {
+        return new ArrayList<>(view(player));
+    }
+
+    private static final class Timeline<T> {
+        private final ConcurrentSkipListMap<Key, T> items = new ConcurrentSkipListMap<>();
+        private final Map<Object, Key> ids = new ConcurrentHashMap<>();
+        private long sequence = 0;
+        private int size = 0;
+
+        private synchronized void add(T item, TimeOrderedCache<T> cache) {
+            Object id = cache.idOf.apply(item);
+            Key previous = ids.remove(id);
+            if (previous != null) {
+                items.remove(previous);
+                size--;
+            }
+            Key key = new Key(cache.timeOf.applyAsLong(item), sequence++);
+            items.put(key, item);
+            ids.put(id, key);
+            size++;
+
+            int capacity = cache.capacity.getAsInt();
+            while (size > capacity) {
+                Map.Entry<Key, T> oldest = items.pollLastEntry();
+                ids.remove(cache.idOf.apply(oldest.getValue()));
+                size--;
+            }
+        }
+
+        private synchronized void remove(Object id) {
+            Key key = ids.remove(id);
+            if (key != null) {
+                items.remove(key);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Newest first, items added in the same millisecond keep the order they were added in.
+     */
+    private record Key(long time, long sequence) implements Comparable<Key> {
+        @Override
+        public int compareTo(@NotNull Key other) {
+            int byTime = Long.compare(other.time, time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
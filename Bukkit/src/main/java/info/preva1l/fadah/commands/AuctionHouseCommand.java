@@ -33,6 +33,7 @@ public class AuctionHouseCommand extends Command {
         subCommands.add(new ViewListingCommand(plugin));
         subCommands.add(new AboutSubCommand(plugin));
         subCommands.add(new ViewSubCommand(plugin));
+        subCommands.add(new DatabaseSubCommand(plugin));
     }
 
     @CommandArgs(name = "fadah", inGameOnly = false, permission = "fadah.use")
@@ -0,0 +1,52 @@
+package info.preva1l.fadah.commands.subcommands;
+
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.config.Lang;
+import info.preva1l.fadah.config.ListHelper;
+import info.preva1l.fadah.config.Tuple;
+import info.preva1l.fadah.data.DatabaseExecutor;
+import info.preva1l.fadah.data.DatabaseManager;
+import info.preva1l.fadah.data.WriteBehindQueue;
+import info.preva1l.fadah.multiserver.RedisBroker;
+import info.preva1l.fadah.utils.commands.SubCommand;
+import info.preva1l.fadah.utils.commands.SubCommandArgs;
+import info.preva1l.fadah.utils.commands.SubCommandArguments;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.DecimalFormat;
+
+public class DatabaseSubCommand extends SubCommand {
+    private final DecimalFormat format = new DecimalFormat("0.##");
+
+    public DatabaseSubCommand(Fadah plugin) {
+        super(plugin, Lang.i().getCommands().getDatabase().getAliases(), Lang.i().getCommands().getDatabase().getDescription());
+    }
+
+    @SubCommandArgs(name = "database", permission = "fadah.database", inGameOnly = false)
+    public void execute(@NotNull SubCommandArguments command) {
+        DatabaseExecutor executor = DatabaseManager.getInstance().getExecutor();
+        WriteBehindQueue queue = DatabaseManager.getInstance().getWriteQueue();
+        RedisBroker broker = plugin.getBroker() instanceof RedisBroker redisBroker ? redisBroker : null;
+        command.reply(String.join("\n", ListHelper.replace(Lang.i().getCommands().getDatabase().getMessage(),
+                Tuple.of("%executor%", executor.isVirtual() ? "Virtual" : "Platform"),
+                Tuple.of("%threads%", executor.isVirtual() ? "unbounded" : String.valueOf(executor.getThreads())),
+                Tuple.of("%queued%", String.valueOf(executor.getQueueDepth())),
+                Tuple.of("%active%", String.valueOf(executor.getActive())),
+                Tuple.of("%completed%", String.valueOf(executor.getCompleted())),
+                Tuple.of("%max-wait%", format.format(executor.getMaxWaitMillis())),
+                Tuple.of("%wait%", format.format(executor.getAverageWaitMillis())),
+                Tuple.of("%execution%", format.format(executor.getAverageExecutionMillis())),
+                Tuple.of("%pending%", queue == null ? "0" : String.valueOf(queue.getPending())),
+                Tuple.of("%coalesced%", queue == null ? "0" : String.valueOf(queue.getCoalesced())),
+                Tuple.of("%flushed%", queue == null ? "0" : String.valueOf(queue.getFlushed())),
+                Tuple.of("%overflows%", queue == null ? "0" : String.valueOf(queue.getOverflows())),
+                Tuple.of("%flush-size%", queue == null ? "0" : String.valueOf(queue.getLastFlushSize())),
+                Tuple.of("%flush-time%", queue == null ? "0" : String.valueOf(queue.getLastFlushTime())),
+                Tuple.of("%retries%", queue == null ? "0" : String.valueOf(queue.getRetries())),
+                Tuple.of("%failed%", queue == null ? "0" : String.valueOf(queue.getFailed())),
+                Tuple.of("%broker-queued%", broker == null ? "0" : String.valueOf(broker.getQueued())),
+                Tuple.of("%broker-sent%", broker == null ? "0" : String.valueOf(broker.getSent())),
+                Tuple.of("%broker-batches%", broker == null ? "0" : String.valueOf(broker.getBatches())),
+                Tuple.of("%broker-deduplicated%", broker == null ? "0" : String.valueOf(broker.getDeduplicated())))));
+    }
+}
@@ -4,6 +4,7 @@ import de.exlll.configlib.*;
 import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.DatabaseType;
 import info.preva1l.fadah.hooks.impl.DiscordHook;
+import info.preva1l.fadah.utils.serialization.ItemFormat;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -67,6 +68,22 @@ public class Config {
         private double defaultPrice = 500;
     }
 
+    @Comment("Only a players most recent history is kept in memory, older entries are read from the database when viewed.")
+    private History history = new History();
+
+    @Getter
+    @Configuration
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class History {
+        @Comment("How many history entries are kept in memory per player, and read per page when viewing older history.")
+        private int cachedEntries = 63;
+        @Comment({"History older than this many days is moved to the archive, 0 keeps everything.",
+                "Archived history is kept in the database but is no longer shown in game."})
+        private int retentionDays = 0;
+        @Comment("How often old history is archived, in minutes.")
+        private int archiveInterval = 60;
+    }
+
     private List<String> blacklists = List.of("%material% == \"BEDROCK\"", "%material% == \"NETHER_STAR\" && %name%.includes(\"Menu\")");
 
     private Hooks hooks = new Hooks();
@@ -167,6 +184,17 @@ public class Config {
         private String database = "Fadah";
         private boolean useSsl = false;
         private Advanced advanced = new Advanced();
+        @Comment({"How items are stored. Allowed: AUTO, BUKKIT, NATIVE",
+                "NATIVE is Paper's own item format, smaller and faster, AUTO uses it whenever the server is running Paper.",
+                "Servers that are not running Paper cannot read it, use BUKKIT on every server if any server sharing this database is not."})
+        private ItemFormat itemFormat = ItemFormat.AUTO;
+        @Comment("Only used by SQLITE.")
+        private Sqlite sqlite = new Sqlite();
+        @Comment({"Saves and deletes are queued and written to the database in batches.",
+                "Multiple changes to the same listing or player within one flush are merged into a single write."})
+        private WriteBehind writeBehind = new WriteBehind();
+        @Comment("The threads that run database queries, kept separate from the rest of the server.")
+        private Executor executor = new Executor();
 
         @Getter
         @Configuration
@@ -178,6 +206,44 @@ public class Config {
             private int keepaliveTime = 0;
             private int connectionTimeout = 5000;
         }
+
+        @Getter
+        @Configuration
+        @NoArgsConstructor(access = AccessLevel.PRIVATE)
+        public static class Sqlite {
+            @Comment({"Use a write-ahead log, so reads do not wait for writes,",
+                    "and send every write through a single connection, so writes never wait on each other."})
+            private boolean performanceMode = true;
+            @Comment("The connections used for reads when performance mode is on.")
+            private int readPoolSize = 4;
+            @Comment("The page cache of each connection, in megabytes.")
+            private int cacheSize = 16;
+            @Comment("How much of the database file is memory mapped, in megabytes, 0 turns it off.")
+            private int mmapSize = 128;
+        }
+
+        @Getter
+        @Configuration
+        @NoArgsConstructor(access = AccessLevel.PRIVATE)
+        public static class WriteBehind {
+            private boolean enabled = true;
+            @Comment("How often the queue is written to the database, in milliseconds.")
+            private long flushInterval = 50;
+            @Comment({"When this many writes are waiting the queue is flushed straight away,",
+                    "and new writes wait for room until it has been.",
+                    "The server thread never waits, its writes are refused and logged while the queue is full."})
+            private int maxQueueSize = 10000;
+        }
+
+        @Getter
+        @Configuration
+        @NoArgsConstructor(access = AccessLevel.PRIVATE)
+        public static class Executor {
+            @Comment("Run each query on its own virtual thread instead of a fixed pool of threads.")
+            private boolean virtualThreads = false;
+            @Comment("The size of the fixed pool, 0 matches the connection pool size.")
+            private int threads = 0;
+        }
     }
 
     @Comment({"A message broker is only required for x-server environments.",
@@ -195,6 +261,11 @@ public class Config {
         private int port = 6379;
         private String password = "myAwesomePassword";
         private String channel = "fadah.cache";
+        @Comment({"Only one server expires listings for the whole network.",
+                "How long it can stop responding, in seconds, before another server takes over."})
+        private int expiryFailover = 15;
+        @Comment("How long messages are held, in millis, so ones sent together are published as one batch.")
+        private int batchWindow = 5;
     }
 
     public void save() {
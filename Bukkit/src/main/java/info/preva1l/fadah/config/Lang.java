@@ -230,6 +230,27 @@ public class Lang {
             private List<String> aliases = List.of();
         }
 
+        private Database database = new Database();
+
+        @Getter
+        @Configuration
+        @NoArgsConstructor(access = AccessLevel.PRIVATE)
+        public static class Database {
+            private String description = "View database performance statistics";
+            private List<String> aliases = List.of("db");
+
+            private List<String> message = List.of(
+                    "&#9555FF&lAuctionHouse &eDatabase",
+                    "&fExecutor: &b%executor% &7(%threads% threads)",
+                    "&fQueued: &b%queued% &8&l| &fRunning: &b%active% &8&l| &fCompleted: &b%completed%",
+                    "&fWait: &b%wait%ms &7avg, &b%max-wait%ms &7max",
+                    "&fExecution: &b%execution%ms &7avg",
+                    "&fWrite Queue: &b%pending% &7pending, &b%coalesced% &7merged, &b%flushed% &7written, &b%overflows% &7overflows",
+                    "&fLast Flush: &b%flush-size% &7writes in &b%flush-time%ms &8&l| &fRetried: &b%retries% &8&l| &fFailed: &b%failed%",
+                    "&fBroker: &b%broker-queued% &7queued, &b%broker-sent% &7sent in &b%broker-batches% &7batches, &b%broker-deduplicated% &7deduplicated"
+            );
+        }
+
         private ViewListing viewListing = new ViewListing();
 
         @Getter
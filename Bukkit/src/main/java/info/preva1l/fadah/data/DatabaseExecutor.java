@@ -0,0 +1,123 @@
+package info.preva1l.fadah.data;
+
+import info.preva1l.fadah.Fadah;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs all blocking database work, so it never lands on the common pool.
+ * <p>
+ * Either a fixed pool of platform threads, which should match the connection pool size so tasks queue here
+ * instead of blocking while holding a thread, or a virtual thread per task.
+ * Tracks how many tasks are waiting and how long they wait and run for.
+ * </p>
+ */
+public final class DatabaseExecutor implements Executor {
+    private final ExecutorService delegate;
+    @Getter private final boolean virtual;
+    @Getter private final int threads;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalExecutionNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public DatabaseExecutor(boolean virtual, int threads) {
+        this.virtual = virtual;
+        this.threads = threads;
+        if (virtual) {
+            this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Fadah-Database-", 0).factory());
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            this.delegate = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "Fadah-Database-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        long submitted = System.nanoTime();
+        queued.incrementAndGet();
+        delegate.execute(() -> {
+            long started = System.nanoTime();
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            long wait = started - submitted;
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            try {
+                command.run();
+            } finally {
+                totalExecutionNanos.addAndGet(System.nanoTime() - started);
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @return the amount of tasks waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return the amount of tasks currently running.
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * @return the average time a task waited for a thread, in milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        long count = completed.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / (double) count / 1_000_000;
+    }
+
+    /**
+     * @return the longest time a task waited for a thread, in milliseconds.
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000D;
+    }
+
+    /**
+     * @return the average time a task took to run, in milliseconds.
+     */
+    public double getAverageExecutionMillis() {
+        long count = completed.get();
+        return count == 0 ? 0 : totalExecutionNanos.get() / (double) count / 1_000_000;
+    }
+
+    /**
+     * Stop accepting tasks and wait for the running ones to finish.
+     */
+    public void shutdown() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(10, TimeUnit.SECONDS)) {
+                Fadah.getConsole().warning("Timed out waiting for database tasks to finish!");
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
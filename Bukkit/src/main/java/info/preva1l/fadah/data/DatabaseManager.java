@@ -9,7 +9,10 @@ import info.preva1l.fadah.data.handler.MySQLHandler;
 import info.preva1l.fadah.data.handler.SQLiteHandler;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * This is the manager for all database interactions.
@@ -21,6 +24,12 @@ public final class DatabaseManager {
 
     private final Map<DatabaseType, Class<? extends DatabaseHandler>> databaseHandlers = new HashMap<>();
     private final DatabaseHandler handler;
+    private final DatabaseExecutor executor;
+    private final WriteBehindQueue writeQueue;
+
+    // Players whose data is known to be in the current format, they never need to be checked again
+    private final Set<UUID> migrated = ConcurrentHashMap.newKeySet();
+    private volatile boolean legacyData = true;
 
     private DatabaseManager() {
         Fadah.getConsole().info("Connecting to Database and populating caches...");
@@ -30,6 +39,14 @@ public final class DatabaseManager {
         databaseHandlers.put(DatabaseType.MONGO, MongoHandler.class);
 
         this.handler = initHandler();
+        Config.Database.Executor executorConf = Config.i().getDatabase().getExecutor();
+        this.executor = new DatabaseExecutor(executorConf.isVirtualThreads(), executorConf.getThreads() > 0
+                ? executorConf.getThreads()
+                : Config.i().getDatabase().getAdvanced().getPoolSize());
+        Config.Database.WriteBehind writeBehind = Config.i().getDatabase().getWriteBehind();
+        this.writeQueue = writeBehind.isEnabled()
+                ? new WriteBehindQueue(handler, writeBehind.getFlushInterval(), writeBehind.getMaxQueueSize())
+                : null;
         Fadah.getConsole().info("Connected to Database and populated caches!");
     }
 
@@ -38,7 +55,52 @@ public final class DatabaseManager {
             Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
             return CompletableFuture.completedFuture(List.of());
         }
-        return CompletableFuture.supplyAsync(() -> handler.getAll(clazz));
+        return CompletableFuture.supplyAsync(() -> handler.getAll(clazz), executor);
+    }
+
+    /**
+     * Stream every object of a type from the database to a consumer as it is read.
+     * Decoding is spread over a bounded pool of workers, when they fall behind the reading thread decodes too.
+     * An object that cannot be decoded is logged and skipped, whichever thread decoded it.
+     *
+     * @param clazz    the type of the objects.
+     * @param consumer the consumer, called from multiple threads.
+     * @return a future completed once every object has been consumed, or completed exceptionally if the read failed.
+     */
+    public <T> CompletableFuture<Void> streamAll(Class<T> clazz, Consumer<T> consumer) {
+        if (!isConnected()) {
+            Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            ThreadPoolExecutor decoder = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(workers * 64), new ThreadPoolExecutor.CallerRunsPolicy());
+            AtomicInteger skipped = new AtomicInteger();
+            // Caught inside the task, so a failure on the reading thread does not end the whole read
+            Executor decoding = task -> decoder.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    skipped.incrementAndGet();
+                    Fadah.getConsole().log(Level.SEVERE, "Failed to decode a %s, skipping it!".formatted(clazz.getSimpleName()), e);
+                }
+            });
+            try {
+                handler.streamAll(clazz, decoding, consumer);
+            } finally {
+                decoder.shutdown();
+                try {
+                    decoder.awaitTermination(5, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (skipped.get() > 0) {
+                    Fadah.getConsole().warning("Skipped %d %s that could not be decoded.".formatted(skipped.get(), clazz.getSimpleName()));
+                }
+            }
+            return null;
+        }, executor);
     }
 
     public <T> CompletableFuture<Optional<T>> get(Class<T> clazz, UUID id) {
@@ -46,7 +108,41 @@ public final class DatabaseManager {
             Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        return CompletableFuture.supplyAsync(() -> handler.get(clazz, id));
+        CompletableFuture<Void> barrier = isWriteBehind() ? writeQueue.barrier(clazz, id) : null;
+        if (barrier != null) {
+            // Read only once the queued writes are in, so the result is never older than what was written
+            return barrier.thenApplyAsync(ignored -> handler.get(clazz, id), executor);
+        }
+        return CompletableFuture.supplyAsync(() -> handler.get(clazz, id), executor);
+    }
+
+    /**
+     * Get a page of a collection, newest first, see {@link info.preva1l.fadah.data.dao.Dao#getPage(UUID, long, int)}.
+     *
+     * @param clazz  the type of the collection.
+     * @param id     the id of the collection.
+     * @param before only entries older than this, in epoch millis.
+     * @param limit  how many entries to read.
+     * @return the page.
+     */
+    public <T> CompletableFuture<Optional<T>> getPage(Class<T> clazz, UUID id, long before, int limit) {
+        if (!isConnected()) {
+            Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Void> barrier = isWriteBehind() ? writeQueue.barrier(clazz, id) : null;
+        if (barrier != null) {
+            return barrier.thenApplyAsync(ignored -> handler.getPage(clazz, id, before, limit), executor);
+        }
+        return CompletableFuture.supplyAsync(() -> handler.getPage(clazz, id, before, limit), executor);
+    }
+
+    public <T> CompletableFuture<Integer> archive(Class<T> clazz, long before) {
+        if (!isConnected()) {
+            Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> handler.archive(clazz, before), executor);
     }
 
     public <T> CompletableFuture<Void> save(Class<T> clazz, T t) {
@@ -54,10 +150,13 @@ public final class DatabaseManager {
             Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
             return CompletableFuture.completedFuture(null);
         }
+        if (isWriteBehind()) {
+            return writeQueue.save(clazz, t);
+        }
         return CompletableFuture.supplyAsync(() -> {
             handler.save(clazz, t);
             return null;
-        });
+        }, executor);
     }
 
     public <T> CompletableFuture<Void> delete(Class<T> clazz, T t) {
@@ -65,10 +164,13 @@ public final class DatabaseManager {
             Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
             return CompletableFuture.completedFuture(null);
         }
+        if (isWriteBehind()) {
+            return writeQueue.delete(clazz, t);
+        }
         return CompletableFuture.supplyAsync(() -> {
             handler.delete(clazz, t);
             return null;
-        });
+        }, executor);
     }
 
     public <T> CompletableFuture<Void> update(Class<T> clazz, T t, String[] params) {
@@ -79,7 +181,7 @@ public final class DatabaseManager {
         return CompletableFuture.supplyAsync(() -> {
             handler.update(clazz, t, params);
             return null;
-        });
+        }, executor);
     }
 
     public <T> CompletableFuture<Void> deleteSpecific(Class<T> clazz, T t, Object o) {
@@ -87,18 +189,42 @@ public final class DatabaseManager {
             Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
             return CompletableFuture.completedFuture(null);
         }
+        if (isWriteBehind()) {
+            return writeQueue.deleteSpecific(clazz, t, o);
+        }
         return CompletableFuture.supplyAsync(() -> {
             handler.deleteSpecific(clazz, t, o);
             return null;
-        });
+        }, executor);
     }
 
-    public CompletableFuture<Boolean> needsFixing(UUID player) {
+    public <T> CompletableFuture<Void> saveSpecific(Class<T> clazz, T t, Object o) {
         if (!isConnected()) {
             Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
             return CompletableFuture.completedFuture(null);
         }
-        return CompletableFuture.supplyAsync(() -> handler.needsFixing(player));
+        if (isWriteBehind()) {
+            return writeQueue.saveSpecific(clazz, t, o);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            handler.saveSpecific(clazz, t, o);
+            return null;
+        }, executor);
+    }
+
+    public CompletableFuture<Boolean> needsFixing(UUID player) {
+        if (!isConnected()) {
+            Fadah.getConsole().severe("Tried to perform database action when the database is not connected!");
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!legacyData || migrated.contains(player)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            boolean needsFixing = handler.needsFixing(player);
+            if (!needsFixing) migrated.add(player);
+            return needsFixing;
+        }, executor);
     }
 
     public CompletableFuture<Void> fixPlayerData(UUID player) {
@@ -108,18 +234,43 @@ public final class DatabaseManager {
         }
         return CompletableFuture.supplyAsync(() -> {
             handler.fixData(player);
+            migrated.add(player);
             return null;
-        });
+        }, executor);
     }
 
     public boolean isConnected() {
         return handler.isConnected();
     }
 
+    /**
+     * Get the executor database work runs on, used to expose its metrics.
+     *
+     * @return the executor.
+     */
+    public DatabaseExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Get the write behind queue, used to expose its metrics.
+     *
+     * @return the queue, or null if write behind is disabled.
+     */
+    public WriteBehindQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     public void shutdown() {
+        if (writeQueue != null) writeQueue.close();
+        executor.shutdown();
         handler.destroy();
     }
 
+    private boolean isWriteBehind() {
+        return writeQueue != null && writeQueue.isOpen();
+    }
+
     private DatabaseHandler initHandler() {
         DatabaseType type = Config.i().getDatabase().getType();
         Fadah.getConsole().info("DB Type: %s".formatted(type.getFriendlyName()));
@@ -138,6 +289,7 @@ public final class DatabaseManager {
         if (instance == null) {
             instance = new DatabaseManager();
             instance.handler.connect();
+            instance.legacyData = instance.handler.hasLegacyData();
             ListingCache.update();
         }
         return instance;
@@ -0,0 +1,417 @@
+package info.preva1l.fadah.data;
+
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.data.handler.DataHandler;
+import info.preva1l.fadah.records.CollectionBox;
+import info.preva1l.fadah.records.ExpiredItems;
+import info.preva1l.fadah.records.History;
+import info.preva1l.fadah.records.Listing;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+
+/**
+ * Buffers saves and deletes and writes them to the database in batches.
+ * <p>
+ * Saves and deletes of whole objects are keyed by the listing id or the owning player, only the latest write for a key is kept,
+ * so a burst of changes to one listing only ever costs a single write.
+ * Writes of single items into a players collection are never merged, as each one is a change of its own.
+ * Writes reach the database in the order they were queued, consecutive writes of the same kind are sent as one batch.
+ * The queue is flushed on its own thread every flush interval, or straight away once it reaches its maximum size,
+ * new writes then wait for room until the flush has taken the queue.
+ * The server thread never waits on the database, a new write it queues while the queue is full is refused instead.
+ * </p>
+ * <p>
+ * A write that fails is tried again, along with everything queued after it so the order is kept,
+ * waiting longer after each failure, and only given up on after {@value #MAX_ATTEMPTS} attempts.
+ * </p>
+ */
+public final class WriteBehindQueue {
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long MAX_RETRY_DELAY = 30000;
+
+    private final DataHandler handler;
+    private final long flushInterval;
+    private final int maxQueueSize;
+    private final BooleanSupplier canWait;
+    private final ScheduledExecutorService executor;
+    private volatile Thread flushThread;
+
+    private final Object lock = new Object();
+    private final Map<Key, Write<?>> pending = new LinkedHashMap<>();
+    // Writes that have been taken off the queue but are not in the database yet
+    private final Map<Key, Write<?>> inFlight = new HashMap<>();
+    private boolean closed = false;
+    // Flushes are held off until this time after a failed write
+    private long retryAt = 0;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    @Getter private volatile long lastFlushSize = 0;
+    @Getter private volatile long lastFlushTime = 0;
+
+    public WriteBehindQueue(@NotNull DataHandler handler, long flushInterval, int maxQueueSize) {
+        this(handler, flushInterval, maxQueueSize, () -> !Bukkit.isPrimaryThread());
+    }
+
+    /**
+     * @param canWait whether the calling thread may wait for room when the queue is full.
+     */
+    WriteBehindQueue(@NotNull DataHandler handler, long flushInterval, int maxQueueSize, @NotNull BooleanSupplier canWait) {
+        this.handler = handler;
+        this.flushInterval = flushInterval;
+        this.maxQueueSize = maxQueueSize;
+        this.canWait = canWait;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Fadah-WriteBehind");
+            thread.setDaemon(true);
+            flushThread = thread;
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public <T> CompletableFuture<Void> save(Class<T> clazz, T t) {
+        return enqueue(new Write<>(Operation.SAVE, clazz, t, null));
+    }
+
+    public <T> CompletableFuture<Void> delete(Class<T> clazz, T t) {
+        return enqueue(new Write<>(Operation.DELETE, clazz, t, null));
+    }
+
+    public <T> CompletableFuture<Void> saveSpecific(Class<T> clazz, T t, Object o) {
+        return enqueue(new Write<>(Operation.SAVE_SPECIFIC, clazz, t, o));
+    }
+
+    public <T> CompletableFuture<Void> deleteSpecific(Class<T> clazz, T t, Object o) {
+        return enqueue(new Write<>(Operation.DELETE_SPECIFIC, clazz, t, o));
+    }
+
+    /**
+     * Get a future that completes once every write queued so far for an object has reached the database,
+     * so reads never observe older data than was written.
+     *
+     * @param clazz the type of the object.
+     * @param id    the id of the object.
+     * @return the future, or null if nothing is waiting to be written for the object.
+     */
+    public @Nullable CompletableFuture<Void> barrier(Class<?> clazz, UUID id) {
+        List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        synchronized (lock) {
+            for (Write<?> write : pending.values()) {
+                if (write.type == clazz && write.id.equals(id)) waiting.add(write.waiters.get(0));
+            }
+            for (Write<?> write : inFlight.values()) {
+                if (write.type == clazz && write.id.equals(id)) waiting.add(write.waiters.get(0));
+            }
+        }
+        if (waiting.isEmpty()) return null;
+        // A failed write should not fail the read that follows it
+        return CompletableFuture.allOf(waiting.toArray(new CompletableFuture[0])).exceptionally(t -> null);
+    }
+
+    public boolean isOpen() {
+        synchronized (lock) {
+            return !closed;
+        }
+    }
+
+    public int getPending() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * @return the amount of writes that were replaced by a newer write before reaching the database.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the amount of writes that have reached the database.
+     */
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    /**
+     * @return the amount of times the queue filled up before its flush interval.
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * @return the amount of writes that failed and were queued again.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return the amount of writes that were given up on, or refused because the queue was full.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Stop accepting writes and write everything still queued before returning.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                Fadah.getConsole().warning("Timed out waiting for the database write queue to finish!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private <T> CompletableFuture<Void> enqueue(Write<T> write) {
+        write.key = write.operation.isSpecific()
+                ? new Key(write.type, write.id, sequence.incrementAndGet())
+                : new Key(write.type, write.id, 0);
+        boolean full;
+        boolean refused = false;
+        synchronized (lock) {
+            // Removing first moves the key to the end, so the write keeps its place after anything queued since
+            Write<?> previous = pending.remove(write.key);
+            if (previous != null) {
+                write.waiters.addAll(previous.waiters);
+                coalesced.incrementAndGet();
+            } else if (!awaitRoom()) {
+                refused = true;
+                failed.incrementAndGet();
+            }
+            if (!refused) pending.put(write.key, write);
+            full = pending.size() >= maxQueueSize;
+        }
+        if (full) requestFlush();
+        if (refused) {
+            Fadah.getConsole().severe("The database write queue is full, a %s write from the server thread was refused!"
+                    .formatted(write.type.getSimpleName()));
+            write.waiters.get(0).completeExceptionally(new RejectedExecutionException("The database write queue is full"));
+        }
+        return write.waiters.get(0);
+    }
+
+    /**
+     * Wait until the queue has room for another key, replacing a queued write never has to wait.
+     * Must be called while holding the lock.
+     *
+     * @return false if the queue is full and the calling thread may not wait.
+     */
+    private boolean awaitRoom() {
+        if (pending.size() < maxQueueSize) return true;
+        // The flush thread can queue writes of its own, it would be waiting on itself
+        if (Thread.currentThread() == flushThread) return true;
+        if (!canWait.getAsBoolean()) return false;
+        while (!closed && pending.size() >= maxQueueSize) {
+            requestFlush();
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private void requestFlush() {
+        if (executor.isShutdown()) return;
+        overflows.incrementAndGet();
+        try {
+            executor.execute(this::flush);
+        } catch (RejectedExecutionException ignored) {
+            // Closed in the meantime, the final flush picks everything up
+        }
+    }
+
+    private void flush() {
+        Map<Key, Write<?>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty() || (!closed && System.currentTimeMillis() < retryAt)) return;
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            inFlight.putAll(batch);
+            lock.notifyAll();
+        }
+
+        long start = System.currentTimeMillis();
+        List<Write<?>> writes = new ArrayList<>(batch.values());
+        List<Write<?>> unwritten = List.of();
+        int from = 0;
+        while (from < writes.size()) {
+            int to = from + 1;
+            while (to < writes.size() && writes.get(to).type == writes.get(from).type
+                    && writes.get(to).operation == writes.get(from).operation) {
+                to++;
+            }
+            unwritten = write(writes.subList(from, to));
+            if (!unwritten.isEmpty()) {
+                // Nothing after a failed write is written before it, or an older write could land last
+                unwritten = new ArrayList<>(unwritten);
+                unwritten.addAll(writes.subList(to, writes.size()));
+                break;
+            }
+            from = to;
+        }
+
+        synchronized (lock) {
+            batch.forEach(inFlight::remove);
+            if (!unwritten.isEmpty()) requeue(unwritten);
+        }
+        lastFlushSize = batch.size() - unwritten.size();
+        lastFlushTime = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Put writes that could not be written back at the front of the queue and hold off the next flush.
+     * Must be called while holding the lock.
+     */
+    private void requeue(List<Write<?>> writes) {
+        Map<Key, Write<?>> requeued = new LinkedHashMap<>();
+        int attempts = 0;
+        for (Write<?> write : writes) {
+            Write<?> newer = pending.get(write.key);
+            if (newer != null) {
+                // Queued since the flush started, it replaces the failed write like any other newer write would
+                newer.waiters.addAll(write.waiters);
+                coalesced.incrementAndGet();
+                continue;
+            }
+            requeued.put(write.key, write);
+            attempts = Math.max(attempts, write.attempts);
+        }
+        retries.addAndGet(requeued.size());
+        requeued.putAll(pending);
+        pending.clear();
+        pending.putAll(requeued);
+        retryAt = System.currentTimeMillis() + Math.min(flushInterval << Math.min(attempts, 20), MAX_RETRY_DELAY);
+    }
+
+    /**
+     * Write consecutive writes of the same kind, as one batch where the handler supports it.
+     *
+     * @return the writes left to retry, starting with the first one that failed, or an empty list.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Write<?>> write(List<Write<?>> writes) {
+        Class type = writes.get(0).type;
+        Operation operation = writes.get(0).operation;
+        if (writes.size() > 1 && !operation.isSpecific()) {
+            List values = new ArrayList<>(writes.size());
+            writes.forEach(write -> values.add(write.value));
+            try {
+                if (operation == Operation.SAVE) handler.saveAll(type, values);
+                else handler.deleteAll(type, values);
+                writes.forEach(this::succeed);
+                return List.of();
+            } catch (Throwable t) {
+                Fadah.getConsole().log(Level.WARNING, "Failed to write a batch of %s to the database, writing them one at a time."
+                        .formatted(type.getSimpleName()), t);
+            }
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            Write write = writes.get(i);
+            try {
+                switch (operation) {
+                    case SAVE -> handler.save(type, write.value);
+                    case DELETE -> handler.delete(type, write.value);
+                    case SAVE_SPECIFIC -> handler.saveSpecific(type, write.value, write.specific);
+                    case DELETE_SPECIFIC -> handler.deleteSpecific(type, write.value, write.specific);
+                }
+                succeed(write);
+            } catch (Throwable t) {
+                if (++write.attempts < MAX_ATTEMPTS && isOpen()) {
+                    Fadah.getConsole().log(Level.WARNING, "Failed to write %s to the database, it will be tried again! (attempt %d of %d)"
+                            .formatted(type.getSimpleName(), write.attempts, MAX_ATTEMPTS), t);
+                    return writes.subList(i, writes.size());
+                }
+                Fadah.getConsole().log(Level.SEVERE, "Failed to write %s to the database, giving up after %d attempts!"
+                        .formatted(type.getSimpleName(), write.attempts), t);
+                failed.incrementAndGet();
+                for (Object waiter : write.waiters) ((CompletableFuture<Void>) waiter).completeExceptionally(t);
+            }
+        }
+        return List.of();
+    }
+
+    private void succeed(Write<?> write) {
+        flushed.incrementAndGet();
+        for (CompletableFuture<Void> waiter : write.waiters) {
+            waiter.complete(null);
+        }
+    }
+
+    private static UUID idOf(Object value) {
+        return switch (value) {
+            case Listing listing -> listing.getId();
+            case CollectionBox box -> box.owner();
+            case ExpiredItems items -> items.owner();
+            case History history -> history.owner();
+            // Unknown types are never merged
+            default -> UUID.randomUUID();
+        };
+    }
+
+    private enum Operation {
+        SAVE,
+        DELETE,
+        SAVE_SPECIFIC,
+        DELETE_SPECIFIC;
+
+        boolean isSpecific() {
+            return this == SAVE_SPECIFIC || this == DELETE_SPECIFIC;
+        }
+    }
+
+    private record Key(Class<?> type, UUID id, long sequence) {
+    }
+
+    private static final class Write<T> {
+        private final Operation operation;
+        private final Class<T> type;
+        private final T value;
+        private final UUID id;
+        private final Object specific;
+        private final List<CompletableFuture<Void>> waiters = new ArrayList<>(1);
+        private Key key;
+        private int attempts = 0;
+
+        private Write(Operation operation, Class<T> type, T value, Object specific) {
+            this.operation = operation;
+            this.type = type;
+            this.value = value;
+            this.id = idOf(value);
+            this.specific = specific;
+            this.waiters.add(new CompletableFuture<>());
+        }
+    }
+}
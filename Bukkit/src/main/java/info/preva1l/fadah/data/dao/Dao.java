@@ -5,6 +5,8 @@ import org.apache.commons.lang.NotImplementedException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Interface representing a Data Access Object, a design pattern that provides an abstract interface to the database,
@@ -19,12 +21,44 @@ public interface Dao<T> {
      */
     Optional<T> get(UUID id);
 
+    /**
+     * Get a page of the entries in a collection from the database, newest first.
+     * A page never splits entries that share a date, so it may hold a few more than the limit.
+     * @param id the id of the collection.
+     * @param before only entries older than this, in epoch millis.
+     * @param limit how many entries to read.
+     * @return an optional containing the page if the collection exists, or an empty optional if it does not.
+     */
+    default Optional<T> getPage(UUID id, long before, int limit) {
+        throw new NotImplementedException();
+    }
+
+    /**
+     * Move every entry older than the cutoff out of the live data and into the archive.
+     * @param before the cutoff, in epoch millis.
+     * @return the amount of entries archived.
+     */
+    default int archive(long before) {
+        throw new NotImplementedException();
+    }
+
     /**
      * Get all objects of type T from the database.
      * @return a list of all objects of type T in the database.
      */
     List<T> getAll();
 
+    /**
+     * Pass every object of type T in the database to a consumer as it is read, without collecting them first.
+     * Expensive decoding should be handed to the decoder, the consumer may be called from any of its threads.
+     * A failed read must be thrown rather than logged, so a partial read is never taken for the whole table.
+     * @param decoder the executor to decode objects on.
+     * @param consumer the consumer to pass the objects to.
+     */
+    default void streamAll(Executor decoder, Consumer<T> consumer) {
+        getAll().forEach(consumer);
+    }
+
     /**
      * Save an object of type T to the database.
      * @param t the object to save.
@@ -44,6 +78,33 @@ public interface Dao<T> {
      */
     void delete(T t);
 
+    /**
+     * Save a batch of objects of type T to the database.
+     * Implementations should override this to write the batch in as few round trips as possible.
+     * @param ts the objects to save.
+     */
+    default void saveAll(List<T> ts) {
+        ts.forEach(this::save);
+    }
+
+    /**
+     * Delete a batch of objects of type T from the database.
+     * Implementations should override this to delete the batch in as few round trips as possible.
+     * @param ts the objects to delete.
+     */
+    default void deleteAll(List<T> ts) {
+        ts.forEach(this::delete);
+    }
+
+    /**
+     * Save o into t if t is a collection, without rewriting the rest of t
+     * @param t the collection to save into.
+     * @param o the object to save
+     */
+    default void saveSpecific(T t, Object o) {
+        throw new NotImplementedException();
+    }
+
     /**
      * Delete o from t if t is a collection
      * @param t the collection to delete from.
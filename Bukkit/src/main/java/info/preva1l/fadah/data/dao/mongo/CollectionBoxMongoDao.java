@@ -3,6 +3,8 @@ package info.preva1l.fadah.data.dao.mongo;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.dao.Dao;
 import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.CollectionBox;
@@ -33,11 +35,11 @@ public class CollectionBoxMongoDao implements Dao<CollectionBox> {
         try {
             List<CollectableItem> list = new ArrayList<>();
             MongoCollection<Document> collection = collectionHelper.getCollection("collection_box");
-            final FindIterable<Document> documents = collection.find().filter(Filters.eq("playerUUID", id));
+            final FindIterable<Document> documents = collection.find(Filters.eq("playerUUID", id)).sort(Sorts.ascending("dateAdded"));
             for (Document document : documents) {
                 long dateAdded = document.getLong("dateAdded");
-                ItemStack itemStack = ItemSerializer.deserialize(document.getString("itemStack"))[0];
-                list.add(new CollectableItem(itemStack, dateAdded));
+                ItemStack itemStack = CollectionHelper.readItems(document, "itemStack")[0];
+                list.add(new CollectableItem(idOf(document), itemStack, dateAdded));
             }
             return Optional.of(new CollectionBox(id, list));
         } catch (Exception e) {
@@ -57,23 +59,42 @@ public class CollectionBoxMongoDao implements Dao<CollectionBox> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Replace everything stored for the owner with the items in the object.
      *
      * @param collectionBox the object to save.
      */
     @Override
     public void save(CollectionBox collectionBox) {
-        for (CollectableItem item : collectionBox.collectableItems()) {
-            try {
-                Optional<CollectionBox> current = get(collectionBox.owner());
-                if (current.isPresent() && current.get().collectableItems().contains(item)) continue;
-                Document document = new Document("playerUUID", collectionBox.owner())
-                        .append("itemStack", ItemSerializer.serialize(item.itemStack()))
-                        .append("dateAdded", item.dateAdded());
-                collectionHelper.insertDocument("collection_box", document);
-            } catch (Exception e) {
-                e.printStackTrace();
+        try {
+            MongoCollection<Document> collection = collectionHelper.getCollection("collection_box");
+            collection.deleteMany(Filters.eq("playerUUID", collectionBox.owner()));
+            if (collectionBox.collectableItems().isEmpty()) return;
+            List<Document> documents = new ArrayList<>(collectionBox.collectableItems().size());
+            for (CollectableItem item : collectionBox.collectableItems()) {
+                documents.add(toDocument(collectionBox.owner(), item));
             }
+            collection.insertMany(documents);
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to collection box!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Add a single item for the owner, nothing else stored for them is touched.
+     *
+     * @param collectionBox the owner of the item.
+     * @param o              the {@link CollectableItem} to add.
+     */
+    @Override
+    public void saveSpecific(CollectionBox collectionBox, Object o) {
+        try {
+            if (!(o instanceof CollectableItem item))
+                throw new IllegalStateException("Specific object must be a collectable item");
+            collectionHelper.upsertDocument("collection_box", item.id().toString(), toDocument(collectionBox.owner(), item));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to collection box!");
+            throw new RuntimeException(e);
         }
     }
 
@@ -81,7 +102,7 @@ public class CollectionBoxMongoDao implements Dao<CollectionBox> {
      * Update an object of type T in the database.
      *
      * @param collectionBox the object to update.
-     * @param params        the parameters to update the object with.
+     * @param params              the parameters to update the object with.
      */
     @Override
     public void update(CollectionBox collectionBox, String[] params) {
@@ -89,13 +110,18 @@ public class CollectionBoxMongoDao implements Dao<CollectionBox> {
     }
 
     /**
-     * Delete an object of type T from the database.
+     * Delete everything stored for the owner.
      *
      * @param collectionBox the object to delete.
      */
     @Override
     public void delete(CollectionBox collectionBox) {
-        throw new NotImplementedException();
+        try {
+            collectionHelper.getCollection("collection_box").deleteMany(Filters.eq("playerUUID", collectionBox.owner()));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to remove items from collection box!");
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -104,12 +130,31 @@ public class CollectionBoxMongoDao implements Dao<CollectionBox> {
             if (!(o instanceof CollectableItem item))
                 throw new IllegalStateException("Specific object must be a collectable item");
             MongoCollection<Document> collection = collectionHelper.getCollection("collection_box");
-            final Document listingDocument = collection.find().filter(Filters.eq("playerUUID", collectionBox.owner()))
-                    .filter(Filters.eq("itemStack", ItemSerializer.serialize(item.itemStack()))).first();
-            if (listingDocument == null) return;
-            collectionHelper.deleteDocument("collection_box", listingDocument);
+            if (collection.deleteOne(Filters.eq("uuid", item.id().toString())).getDeletedCount() > 0) return;
+            // Documents written before items had ids are matched by the id they were read with
+            for (Document document : collection.find(Filters.and(
+                    Filters.eq("playerUUID", collectionBox.owner()),
+                    Filters.eq("dateAdded", item.dateAdded()),
+                    Filters.exists("uuid", false)))) {
+                if (!idOf(document).equals(item.id())) continue;
+                collection.deleteOne(Filters.eq("_id", document.get("_id")));
+                return;
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            Fadah.getConsole().severe("Failed to remove item from collection box!");
+            throw new RuntimeException(e);
         }
     }
+
+    private UUID idOf(Document document) {
+        String uuid = document.getString("uuid");
+        return uuid != null ? UUID.fromString(uuid) : UUID.nameUUIDFromBytes(document.getObjectId("_id").toByteArray());
+    }
+
+    private Document toDocument(UUID owner, CollectableItem item) {
+        return new Document("uuid", item.id().toString())
+                .append("playerUUID", owner)
+                .append("itemStack", ItemSerializer.serializeToBytes(item.itemStack()))
+                .append("dateAdded", item.dateAdded());
+    }
 }
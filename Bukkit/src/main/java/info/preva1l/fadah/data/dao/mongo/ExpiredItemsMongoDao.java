@@ -3,6 +3,8 @@ package info.preva1l.fadah.data.dao.mongo;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.dao.Dao;
 import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.ExpiredItems;
@@ -33,11 +35,11 @@ public class ExpiredItemsMongoDao implements Dao<ExpiredItems> {
         try {
             List<CollectableItem> list = new ArrayList<>();
             MongoCollection<Document> collection = collectionHelper.getCollection("expired_items");
-            final FindIterable<Document> documents = collection.find().filter(Filters.eq("playerUUID", id));
+            final FindIterable<Document> documents = collection.find(Filters.eq("playerUUID", id)).sort(Sorts.ascending("dateAdded"));
             for (Document document : documents) {
                 long dateAdded = document.getLong("dateAdded");
-                ItemStack itemStack = ItemSerializer.deserialize(document.getString("itemStack"))[0];
-                list.add(new CollectableItem(itemStack, dateAdded));
+                ItemStack itemStack = CollectionHelper.readItems(document, "itemStack")[0];
+                list.add(new CollectableItem(idOf(document), itemStack, dateAdded));
             }
             return Optional.of(new ExpiredItems(id, list));
         } catch (Exception e) {
@@ -57,23 +59,42 @@ public class ExpiredItemsMongoDao implements Dao<ExpiredItems> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Replace everything stored for the owner with the items in the object.
      *
      * @param expiredItems the object to save.
      */
     @Override
     public void save(ExpiredItems expiredItems) {
-        for (CollectableItem item : expiredItems.collectableItems()) {
-            try {
-                Optional<ExpiredItems> current = get(expiredItems.owner());
-                if (current.isPresent() && current.get().collectableItems().contains(item)) continue;
-                Document document = new Document("playerUUID", expiredItems.owner())
-                        .append("itemStack", ItemSerializer.serialize(item.itemStack()))
-                        .append("dateAdded", item.dateAdded());
-                collectionHelper.insertDocument("expired_items", document);
-            } catch (Exception e) {
-                e.printStackTrace();
+        try {
+            MongoCollection<Document> collection = collectionHelper.getCollection("expired_items");
+            collection.deleteMany(Filters.eq("playerUUID", expiredItems.owner()));
+            if (expiredItems.collectableItems().isEmpty()) return;
+            List<Document> documents = new ArrayList<>(expiredItems.collectableItems().size());
+            for (CollectableItem item : expiredItems.collectableItems()) {
+                documents.add(toDocument(expiredItems.owner(), item));
             }
+            collection.insertMany(documents);
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to expired items!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Add a single item for the owner, nothing else stored for them is touched.
+     *
+     * @param expiredItems the owner of the item.
+     * @param o             the {@link CollectableItem} to add.
+     */
+    @Override
+    public void saveSpecific(ExpiredItems expiredItems, Object o) {
+        try {
+            if (!(o instanceof CollectableItem item))
+                throw new IllegalStateException("Specific object must be a collectable item");
+            collectionHelper.upsertDocument("expired_items", item.id().toString(), toDocument(expiredItems.owner(), item));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to expired items!");
+            throw new RuntimeException(e);
         }
     }
 
@@ -81,7 +102,7 @@ public class ExpiredItemsMongoDao implements Dao<ExpiredItems> {
      * Update an object of type T in the database.
      *
      * @param expiredItems the object to update.
-     * @param params       the parameters to update the object with.
+     * @param params             the parameters to update the object with.
      */
     @Override
     public void update(ExpiredItems expiredItems, String[] params) {
@@ -89,13 +110,18 @@ public class ExpiredItemsMongoDao implements Dao<ExpiredItems> {
     }
 
     /**
-     * Delete an object of type T from the database.
+     * Delete everything stored for the owner.
      *
      * @param expiredItems the object to delete.
      */
     @Override
     public void delete(ExpiredItems expiredItems) {
-        throw new NotImplementedException();
+        try {
+            collectionHelper.getCollection("expired_items").deleteMany(Filters.eq("playerUUID", expiredItems.owner()));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to remove items from expired items!");
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -104,12 +130,31 @@ public class ExpiredItemsMongoDao implements Dao<ExpiredItems> {
             if (!(o instanceof CollectableItem item))
                 throw new IllegalStateException("Specific object must be a collectable item");
             MongoCollection<Document> collection = collectionHelper.getCollection("expired_items");
-            final Document listingDocument = collection.find().filter(Filters.eq("playerUUID", expiredItems.owner()))
-                    .filter(Filters.eq("itemStack", ItemSerializer.serialize(item.itemStack()))).first();
-            if (listingDocument == null) return;
-            collectionHelper.deleteDocument("expired_items", listingDocument);
+            if (collection.deleteOne(Filters.eq("uuid", item.id().toString())).getDeletedCount() > 0) return;
+            // Documents written before items had ids are matched by the id they were read with
+            for (Document document : collection.find(Filters.and(
+                    Filters.eq("playerUUID", expiredItems.owner()),
+                    Filters.eq("dateAdded", item.dateAdded()),
+                    Filters.exists("uuid", false)))) {
+                if (!idOf(document).equals(item.id())) continue;
+                collection.deleteOne(Filters.eq("_id", document.get("_id")));
+                return;
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            Fadah.getConsole().severe("Failed to remove item from expired items!");
+            throw new RuntimeException(e);
         }
     }
+
+    private UUID idOf(Document document) {
+        String uuid = document.getString("uuid");
+        return uuid != null ? UUID.fromString(uuid) : UUID.nameUUIDFromBytes(document.getObjectId("_id").toByteArray());
+    }
+
+    private Document toDocument(UUID owner, CollectableItem item) {
+        return new Document("uuid", item.id().toString())
+                .append("playerUUID", owner)
+                .append("itemStack", ItemSerializer.serializeToBytes(item.itemStack()))
+                .append("dateAdded", item.dateAdded());
+    }
 }
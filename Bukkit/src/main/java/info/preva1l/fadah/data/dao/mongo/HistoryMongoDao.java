@@ -3,6 +3,11 @@ package info.preva1l.fadah.data.dao.mongo;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import info.preva1l.fadah.config.Config;
+import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.dao.Dao;
 import info.preva1l.fadah.records.HistoricItem;
 import info.preva1l.fadah.records.History;
@@ -20,34 +25,71 @@ import java.util.UUID;
 
 @RequiredArgsConstructor
 public class HistoryMongoDao implements Dao<History> {
+    private static final int ARCHIVE_BATCH_SIZE = 500;
     private final CollectionHelper collectionHelper;
 
     /**
-     * Get an object from the database by its id.
+     * Get the most recent page of a players history, older entries are read with {@link #getPage(UUID, long, int)}.
      *
      * @param id the id of the object to get.
      * @return an optional containing the object if it exists, or an empty optional if it does not.
      */
     @Override
     public Optional<History> get(UUID id) {
+        return getPage(id, Long.MAX_VALUE, Config.i().getHistory().getCachedEntries());
+    }
+
+    /**
+     * Get a page of a players history, newest first, keyed on the logged date so deep pages cost the same as the first.
+     *
+     * @param id     the player.
+     * @param before only entries logged before this, in epoch millis.
+     * @param limit  how many entries to read.
+     * @return an optional containing the page if the player has any history before the cursor.
+     */
+    @Override
+    public Optional<History> getPage(UUID id, long before, int limit) {
         List<HistoricItem> list = new ArrayList<>();
         MongoCollection<Document> collection = collectionHelper.getCollection("history");
-        FindIterable<Document> documents = collection.find(Filters.eq("playerUUID", id));
-        for (Document document : documents) {
-            try {
-                final long loggedDate = document.getLong("loggedDate");
-                final Double price = document.getDouble("price");
-                final ItemStack itemStack = ItemSerializer.deserialize(document.getString("itemStack"))[0];
-                final HistoricItem.LoggedAction loggedAction = HistoricItem.LoggedAction.values()[document.getInteger("loggedAction")];
-                final UUID purchaserUUID = document.getString("purchaserUUID") == null ? null : UUID.fromString(document.getString("purchaserUUID"));
-                list.add(new HistoricItem(id, loggedDate, loggedAction, itemStack, price, purchaserUUID));
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        read(id, collection.find(Filters.and(Filters.eq("playerUUID", id), Filters.lt("loggedDate", before)))
+                .sort(Sorts.descending("loggedDate")).limit(limit), list);
+        if (list.isEmpty()) return Optional.empty();
+        if (list.size() == limit) {
+            // Read the whole of the last millisecond, so the next page can start strictly before it
+            final long last = list.get(list.size() - 1).getLoggedDate();
+            list.removeIf(item -> item.getLoggedDate() == last);
+            read(id, collection.find(Filters.and(Filters.eq("playerUUID", id), Filters.eq("loggedDate", last))), list);
         }
         return Optional.of(new History(id, list));
     }
 
+    /**
+     * Move history logged before the cutoff into the archive collection.
+     *
+     * @param before the cutoff, in epoch millis.
+     * @return the amount of entries archived.
+     */
+    @Override
+    public int archive(long before) {
+        int archived = 0;
+        try {
+            MongoCollection<Document> collection = collectionHelper.getCollection("history");
+            MongoCollection<Document> archive = collectionHelper.getCollection("history_archive");
+            List<Document> batch = new ArrayList<>(ARCHIVE_BATCH_SIZE);
+            for (Document document : collection.find(Filters.lt("loggedDate", before)).batchSize(ARCHIVE_BATCH_SIZE)) {
+                batch.add(document);
+                if (batch.size() == ARCHIVE_BATCH_SIZE) {
+                    archived += moveToArchive(collection, archive, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) archived += moveToArchive(collection, archive, batch);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return archived;
+    }
+
     /**
      * Get all objects of type T from the database.
      *
@@ -59,26 +101,43 @@ public class HistoryMongoDao implements Dao<History> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Replace the whole history of the owner with the items in the object.
+     * Only used when importing history, everything else appends with {@link #saveSpecific(History, Object)}.
      *
      * @param history the object to save.
      */
     @Override
     public void save(History history) {
-        for (HistoricItem item : history.collectableItems()) {
-            try {
-                Optional<History> current = get(item.getOwnerUUID());
-                if (current.isPresent() && current.get().collectableItems().contains(item)) continue;
-                Document document = new Document("playerUUID", history.owner())
-                        .append("itemStack", ItemSerializer.serialize(item.getItemStack()))
-                        .append("loggedDate", item.getLoggedDate())
-                        .append("loggedAction", item.getAction().ordinal())
-                        .append("price", item.getPrice())
-                        .append("purchaserUUID", item.getPurchaserUUID());
-                collectionHelper.insertDocument("history", document);
-            } catch (Exception e) {
-                e.printStackTrace();
+        try {
+            MongoCollection<Document> collection = collectionHelper.getCollection("history");
+            collection.deleteMany(Filters.eq("playerUUID", history.owner()));
+            if (history.collectableItems().isEmpty()) return;
+            List<Document> documents = new ArrayList<>(history.collectableItems().size());
+            for (HistoricItem item : history.collectableItems()) {
+                documents.add(toDocument(history.owner(), item));
             }
+            collection.insertMany(documents);
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to history!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Append a single entry to the history of the owner.
+     *
+     * @param history the owner of the entry.
+     * @param o       the {@link HistoricItem} to add.
+     */
+    @Override
+    public void saveSpecific(History history, Object o) {
+        try {
+            if (!(o instanceof HistoricItem item))
+                throw new IllegalStateException("Specific object must be a historic item");
+            collectionHelper.upsertDocument("history", item.getId().toString(), toDocument(history.owner(), item));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to history!");
+            throw new RuntimeException(e);
         }
     }
 
@@ -102,4 +161,48 @@ public class HistoryMongoDao implements Dao<History> {
     public void delete(History history) {
         throw new NotImplementedException();
     }
-}
+
+    private int moveToArchive(MongoCollection<Document> collection, MongoCollection<Document> archive, List<Document> batch) {
+        // Inserted with their original _id, so a batch that is retried after a failed delete is not archived twice
+        archive.bulkWrite(batch.stream()
+                .map(document -> new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document,
+                        new ReplaceOptions().upsert(true)))
+                .toList());
+        collection.deleteMany(Filters.in("_id", batch.stream().map(document -> document.get("_id")).toList()));
+        return batch.size();
+    }
+
+    private void read(UUID id, FindIterable<Document> documents, List<HistoricItem> list) {
+        for (Document document : documents) {
+            try {
+                final long loggedDate = document.getLong("loggedDate");
+                final Double price = document.getDouble("price");
+                final ItemStack itemStack = CollectionHelper.readItems(document, "itemStack")[0];
+                final HistoricItem.LoggedAction loggedAction = HistoricItem.LoggedAction.values()[document.getInteger("loggedAction")];
+                // Older documents stored the purchaser as a uuid rather than a string
+                final Object purchaser = document.get("purchaserUUID");
+                final UUID purchaserUUID = purchaser == null ? null
+                        : purchaser instanceof UUID uuid ? uuid : UUID.fromString(purchaser.toString());
+                list.add(new HistoricItem(idOf(document), id, loggedDate, loggedAction, itemStack, price, purchaserUUID));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private UUID idOf(Document document) {
+        // Documents written before entries had ids get one derived from their object id, so it is the same on every read
+        String uuid = document.getString("uuid");
+        return uuid != null ? UUID.fromString(uuid) : UUID.nameUUIDFromBytes(document.getObjectId("_id").toByteArray());
+    }
+
+    private Document toDocument(UUID owner, HistoricItem item) {
+        return new Document("uuid", item.getId().toString())
+                .append("playerUUID", owner)
+                .append("itemStack", ItemSerializer.serializeToBytes(item.getItemStack()))
+                .append("loggedDate", item.getLoggedDate())
+                .append("loggedAction", item.getAction().ordinal())
+                .append("price", item.getPrice())
+                .append("purchaserUUID", item.getPurchaserUUID() == null ? null : item.getPurchaserUUID().toString());
+    }
+}
\ No newline at end of file
@@ -1,7 +1,13 @@
 package info.preva1l.fadah.data.dao.mongo;
 
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.dao.Dao;
 import info.preva1l.fadah.records.Bid;
 import info.preva1l.fadah.records.CurrentListing;
@@ -17,9 +23,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 public class ListingMongoDao implements Dao<Listing> {
+    private static final int BATCH_SIZE = 500;
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
     private final CollectionHelper collectionHelper;
 
     /**
@@ -32,7 +43,7 @@ public class ListingMongoDao implements Dao<Listing> {
     public Optional<Listing> get(UUID id) {
         try {
             MongoCollection<Document> collection = collectionHelper.getCollection("listings");
-            final Document doc = collection.find().filter(Filters.eq("uuid", id)).first();
+            final Document doc = collection.find(Filters.eq("uuid", id)).first();
             if (doc == null) return Optional.empty();
             final UUID owner = doc.get("ownerUUID", UUID.class);
             final String ownerName = doc.getString("ownerName");
@@ -51,7 +62,7 @@ public class ListingMongoDao implements Dao<Listing> {
             final long deletionDate = doc.getLong("deletionDate");
             final double price = doc.getDouble("price");
             final double tax = doc.getDouble("tax");
-            final ItemStack itemStack = ItemSerializer.deserialize(doc.getString("itemStack"))[0];
+            final ItemStack itemStack = CollectionHelper.readItems(doc, "itemStack")[0];
             final boolean biddable = doc.getBoolean("biddable");
             final List<Bid> bids = List.of();
             return Optional.of(new CurrentListing(id, owner, ownerName, itemStack, category, currency, price, tax, creationDate, deletionDate, biddable, bids));
@@ -90,7 +101,7 @@ public class ListingMongoDao implements Dao<Listing> {
                 final long deletionDate = doc.getLong("deletionDate");
                 final double price = doc.getDouble("price");
                 final double tax = doc.getDouble("tax");
-                final ItemStack itemStack = ItemSerializer.deserialize(doc.getString("itemStack"))[0];
+                final ItemStack itemStack = CollectionHelper.readItems(doc, "itemStack")[0];
                 final boolean biddable = doc.getBoolean("biddable");
                 final List<Bid> bids = List.of();
                 list.add(new CurrentListing(id, owner, ownerName, itemStack, category, currency, price, tax, creationDate, deletionDate, biddable, bids));
@@ -103,27 +114,58 @@ public class ListingMongoDao implements Dao<Listing> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Stream all listings from the database, decoding their items on the decoder.
+     * Documents are fetched in batches so the whole collection is never held in memory at once.
+     *
+     * @param decoder  the executor to decode items on.
+     * @param consumer the consumer to pass the listings to.
+     */
+    @Override
+    public void streamAll(Executor decoder, Consumer<Listing> consumer) {
+        try {
+            MongoCollection<Document> collection = collectionHelper.getCollection("listings");
+            for (Document doc : collection.find().batchSize(BATCH_SIZE)) {
+                // Read by the decoder, so a bad document is skipped like one with a bad item
+                decoder.execute(() -> consumer.accept(fromDocument(doc)));
+            }
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to stream all listings!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Save a listing to the database, replacing it if it was already saved.
      *
      * @param listing the object to save.
      */
     @Override
     public void save(Listing listing) {
         try {
-            Document document = new Document("uuid", listing.getId())
-                    .append("ownerUUID", listing.getOwner())
-                    .append("ownerName", listing.getOwnerName())
-                    .append("category", listing.getCategoryID() + "~" + listing.getCurrencyId())
-                    .append("creationDate", listing.getCreationDate())
-                    .append("deletionDate", listing.getDeletionDate())
-                    .append("price", listing.getPrice())
-                    .append("tax", listing.getTax())
-                    .append("itemStack", ItemSerializer.serialize(listing.getItemStack()))
-                    .append("biddable", false)
-                    .append("bids", "");
-            collectionHelper.insertDocument("listings", document);
+            collectionHelper.upsertDocument("listings", listing.getId(), toDocument(listing));
         } catch (Exception e) {
-            e.printStackTrace();
+            Fadah.getConsole().severe("Failed to add item to listings!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Save a batch of listings to the database in a single bulk write.
+     * Listings are upserted on their uuid, so a batch that is written again does not duplicate them.
+     *
+     * @param listings the listings to save.
+     */
+    @Override
+    public void saveAll(List<Listing> listings) {
+        try {
+            List<WriteModel<Document>> writes = new ArrayList<>(listings.size());
+            for (Listing listing : listings) {
+                writes.add(new ReplaceOneModel<>(Filters.eq("uuid", listing.getId()), toDocument(listing), UPSERT));
+            }
+            collectionHelper.getCollection("listings").bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to add item to listings!");
+            throw new RuntimeException(e);
         }
     }
 
@@ -146,12 +188,68 @@ public class ListingMongoDao implements Dao<Listing> {
     @Override
     public void delete(Listing listing) {
         try {
-            MongoCollection<Document> collection = collectionHelper.getCollection("listings");
-            final Document listingDocument = collection.find().filter(Filters.eq("uuid", listing.getId())).first();
-            if (listingDocument == null) return;
-            collectionHelper.deleteDocument("listings", listingDocument);
+            collectionHelper.deleteDocument("listings", Filters.eq("uuid", listing.getId()));
         } catch (Exception e) {
-            e.printStackTrace();
+            Fadah.getConsole().severe("Failed to remove item from listings!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Delete a batch of listings from the database in a single bulk write.
+     *
+     * @param listings the listings to delete.
+     */
+    @Override
+    public void deleteAll(List<Listing> listings) {
+        try {
+            List<WriteModel<Document>> writes = new ArrayList<>(listings.size());
+            for (Listing listing : listings) {
+                writes.add(new DeleteOneModel<>(Filters.eq("uuid", listing.getId())));
+            }
+            collectionHelper.getCollection("listings").bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (Exception e) {
+            Fadah.getConsole().severe("Failed to remove item from listings!");
+            throw new RuntimeException(e);
         }
     }
+
+    private Listing fromDocument(Document doc) {
+        final UUID id = doc.get("uuid", UUID.class);
+        final UUID owner = doc.get("ownerUUID", UUID.class);
+        final String ownerName = doc.getString("ownerName");
+        String temp = doc.getString("category");
+        String currency;
+        String category;
+        if (temp.contains("~")) {
+            String[] t2 = temp.split("~");
+            currency = t2[1];
+            category = t2[0];
+        } else {
+            currency = "vault";
+            category = temp;
+        }
+        final long creationDate = doc.getLong("creationDate");
+        final long deletionDate = doc.getLong("deletionDate");
+        final double price = doc.getDouble("price");
+        final double tax = doc.getDouble("tax");
+        final ItemStack itemStack = CollectionHelper.readItems(doc, "itemStack")[0];
+        final boolean biddable = doc.getBoolean("biddable");
+        return new CurrentListing(id, owner, ownerName, itemStack, category, currency, price, tax,
+                creationDate, deletionDate, biddable, List.of());
+    }
+
+    private Document toDocument(Listing listing) {
+        return new Document("uuid", listing.getId())
+                .append("ownerUUID", listing.getOwner())
+                .append("ownerName", listing.getOwnerName())
+                .append("category", listing.getCategoryID() + "~" + listing.getCurrencyId())
+                .append("creationDate", listing.getCreationDate())
+                .append("deletionDate", listing.getDeletionDate())
+                .append("price", listing.getPrice())
+                .append("tax", listing.getTax())
+                .append("itemStack", ItemSerializer.serializeToBytes(listing.getItemStack()))
+                .append("biddable", false)
+                .append("bids", "");
+    }
 }
@@ -1,19 +1,15 @@
 package info.preva1l.fadah.data.dao.sqlite;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.zaxxer.hikari.HikariDataSource;
 import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.dao.Dao;
-import info.preva1l.fadah.data.gson.ConfigurationSerializableAdapter;
 import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.CollectionBox;
+import info.preva1l.fadah.utils.ItemSerializer;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang.NotImplementedException;
-import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.inventory.ItemStack;
 
-import java.lang.reflect.Type;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -25,11 +21,6 @@ import java.util.UUID;
 
 @RequiredArgsConstructor
 public class CollectionBoxSQLiteDao implements Dao<CollectionBox> {
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeHierarchyAdapter(ConfigurationSerializable.class, new ConfigurationSerializableAdapter())
-            .serializeNulls().disableHtmlEscaping().create();
-    private static final Type COLLECTION_LIST_TYPE = new TypeToken<ArrayList<CollectableItem>>() {
-    }.getType();
     private final HikariDataSource dataSource;
 
     /**
@@ -42,13 +33,18 @@ public class CollectionBoxSQLiteDao implements Dao<CollectionBox> {
     public Optional<CollectionBox> get(UUID id) {
         try (Connection connection = getConnection()) {
             try (PreparedStatement statement = connection.prepareStatement("""
-                    SELECT `items`
-                    FROM `collection_boxV2`
-                    WHERE `playerUUID`=?;""")) {
+                    SELECT `uuid`, `itemStack`, `dateAdded`
+                    FROM `collection_boxV3`
+                    WHERE `playerUUID`=?
+                    ORDER BY `dateAdded`;""")) {
                 statement.setString(1, id.toString());
                 final ResultSet resultSet = statement.executeQuery();
-                if (resultSet.next()) {
-                    List<CollectableItem> items = GSON.fromJson(resultSet.getString("items"), COLLECTION_LIST_TYPE);
+                final List<CollectableItem> items = new ArrayList<>();
+                while (resultSet.next()) {
+                    final ItemStack itemStack = ItemSerializer.deserializeFromBytes(resultSet.getBytes("itemStack"))[0];
+                    items.add(new CollectableItem(UUID.fromString(resultSet.getString("uuid")), itemStack, resultSet.getLong("dateAdded")));
+                }
+                if (!items.isEmpty()) {
                     return Optional.of(new CollectionBox(id, items));
                 }
             }
@@ -70,23 +66,71 @@ public class CollectionBoxSQLiteDao implements Dao<CollectionBox> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Replace everything stored for the owner with the items in the object.
      *
-     * @param collectableList the object to save.
+     * @param collectionBox the object to save.
      */
     @Override
-    public void save(CollectionBox collectableList) {
+    public void save(CollectionBox collectionBox) {
+        saveAll(List.of(collectionBox));
+    }
+
+    /**
+     * Replace everything stored for each owner, in one transaction.
+     *
+     * @param collectionBoxs the objects to save.
+     */
+    @Override
+    public void saveAll(List<CollectionBox> collectionBoxs) {
         try (Connection connection = getConnection()) {
-            for (CollectableItem item : collectableList.collectableItems()) {
-                try (PreparedStatement statement = connection.prepareStatement("""
-                         INSERT INTO collection_boxV2 (playerUUID, items)
-                         VALUES (?, ?)
-                         ON CONFLICT(playerUUID) DO UPDATE SET
-                             items = excluded.items;""")) {
-                    statement.setString(1, collectableList.owner().toString());
-                    statement.setString(2, GSON.toJson(collectableList.collectableItems(), COLLECTION_LIST_TYPE));
-                    statement.executeUpdate();
+            connection.setAutoCommit(false);
+            try (PreparedStatement deleteStatement = connection.prepareStatement("""
+                    DELETE FROM `collection_boxV3`
+                    WHERE `playerUUID`=?;""");
+                 PreparedStatement insertStatement = connection.prepareStatement("""
+                    INSERT INTO `collection_boxV3`
+                        (`uuid`, `playerUUID`, `dateAdded`, `itemStack`)
+                    VALUES (?, ?, ?, ?);""")) {
+                for (CollectionBox collectionBox : collectionBoxs) {
+                    deleteStatement.setString(1, collectionBox.owner().toString());
+                    deleteStatement.addBatch();
+                    for (CollectableItem item : collectionBox.collectableItems()) {
+                        bindItem(insertStatement, collectionBox.owner(), item);
+                        insertStatement.addBatch();
+                    }
                 }
+                deleteStatement.executeBatch();
+                insertStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to add item to collection box!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Add a single item for the owner, nothing else stored for them is touched.
+     *
+     * @param collectionBox the owner of the item.
+     * @param o              the {@link CollectableItem} to add.
+     */
+    @Override
+    public void saveSpecific(CollectionBox collectionBox, Object o) {
+        if (!(o instanceof CollectableItem item))
+            throw new IllegalStateException("Specific object must be a collectable item");
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    INSERT INTO `collection_boxV3`
+                        (`uuid`, `playerUUID`, `dateAdded`, `itemStack`)
+                    VALUES (?, ?, ?, ?);""")) {
+                bindItem(statement, collectionBox.owner(), item);
+                statement.executeUpdate();
             }
         } catch (SQLException e) {
             Fadah.getConsole().severe("Failed to add item to collection box!");
@@ -97,22 +141,62 @@ public class CollectionBoxSQLiteDao implements Dao<CollectionBox> {
     /**
      * Update an object of type T in the database.
      *
-     * @param collectableItem the object to update.
-     * @param params          the parameters to update the object with.
+     * @param collectionBox the object to update.
+     * @param params              the parameters to update the object with.
      */
     @Override
-    public void update(CollectionBox collectableItem, String[] params) {
+    public void update(CollectionBox collectionBox, String[] params) {
         throw new NotImplementedException();
     }
 
     /**
-     * Delete an object of type T from the database.
+     * Delete everything stored for the owner.
      *
-     * @param collectableItem the object to delete.
+     * @param collectionBox the object to delete.
      */
     @Override
-    public void delete(CollectionBox collectableItem) {
-        throw new NotImplementedException();
+    public void delete(CollectionBox collectionBox) {
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    DELETE FROM `collection_boxV3`
+                    WHERE `playerUUID`=?;""")) {
+                statement.setString(1, collectionBox.owner().toString());
+                statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to remove items from collection box!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Remove a single item from the owner, nothing else stored for them is touched.
+     *
+     * @param collectionBox the owner of the item.
+     * @param o              the {@link CollectableItem} to remove.
+     */
+    @Override
+    public void deleteSpecific(CollectionBox collectionBox, Object o) {
+        if (!(o instanceof CollectableItem item))
+            throw new IllegalStateException("Specific object must be a collectable item");
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    DELETE FROM `collection_boxV3`
+                    WHERE `uuid`=?;""")) {
+                statement.setString(1, item.id().toString());
+                statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to remove item from collection box!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void bindItem(PreparedStatement statement, UUID owner, CollectableItem item) throws SQLException {
+        statement.setString(1, item.id().toString());
+        statement.setString(2, owner.toString());
+        statement.setLong(3, item.dateAdded());
+        statement.setBytes(4, ItemSerializer.serializeToBytes(item.itemStack()));
     }
 
     private Connection getConnection() throws SQLException {
@@ -1,19 +1,15 @@
 package info.preva1l.fadah.data.dao.sqlite;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.zaxxer.hikari.HikariDataSource;
 import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.data.dao.Dao;
-import info.preva1l.fadah.data.gson.ConfigurationSerializableAdapter;
 import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.ExpiredItems;
+import info.preva1l.fadah.utils.ItemSerializer;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang.NotImplementedException;
-import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.inventory.ItemStack;
 
-import java.lang.reflect.Type;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -25,10 +21,6 @@ import java.util.UUID;
 
 @RequiredArgsConstructor
 public class ExpiredItemsSQLiteDao implements Dao<ExpiredItems> {
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeHierarchyAdapter(ConfigurationSerializable.class, new ConfigurationSerializableAdapter())
-            .serializeNulls().disableHtmlEscaping().create();
-    private static final Type EXPIRED_LIST_TYPE = new TypeToken<ArrayList<CollectableItem>>() {}.getType();
     private final HikariDataSource dataSource;
 
     /**
@@ -41,18 +33,23 @@ public class ExpiredItemsSQLiteDao implements Dao<ExpiredItems> {
     public Optional<ExpiredItems> get(UUID id) {
         try (Connection connection = getConnection()) {
             try (PreparedStatement statement = connection.prepareStatement("""
-                    SELECT `items`
-                    FROM `expired_itemsV2`
-                    WHERE `playerUUID`=?;""")) {
+                    SELECT `uuid`, `itemStack`, `dateAdded`
+                    FROM `expired_itemsV3`
+                    WHERE `playerUUID`=?
+                    ORDER BY `dateAdded`;""")) {
                 statement.setString(1, id.toString());
                 final ResultSet resultSet = statement.executeQuery();
-                if (resultSet.next()) {
-                    List<CollectableItem> items = GSON.fromJson(resultSet.getString("items"), EXPIRED_LIST_TYPE);
+                final List<CollectableItem> items = new ArrayList<>();
+                while (resultSet.next()) {
+                    final ItemStack itemStack = ItemSerializer.deserializeFromBytes(resultSet.getBytes("itemStack"))[0];
+                    items.add(new CollectableItem(UUID.fromString(resultSet.getString("uuid")), itemStack, resultSet.getLong("dateAdded")));
+                }
+                if (!items.isEmpty()) {
                     return Optional.of(new ExpiredItems(id, items));
                 }
             }
         } catch (SQLException e) {
-            Fadah.getConsole().severe("Failed to get items from collection box!");
+            Fadah.getConsole().severe("Failed to get items from expired items!");
             throw new RuntimeException(e);
         }
         return Optional.empty();
@@ -69,24 +66,71 @@ public class ExpiredItemsSQLiteDao implements Dao<ExpiredItems> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Replace everything stored for the owner with the items in the object.
+     *
+     * @param expiredItems the object to save.
+     */
+    @Override
+    public void save(ExpiredItems expiredItems) {
+        saveAll(List.of(expiredItems));
+    }
+
+    /**
+     * Replace everything stored for each owner, in one transaction.
      *
-     * @param collectableList the object to save.
+     * @param expiredItemss the objects to save.
      */
     @Override
-    public void save(ExpiredItems collectableList) {
+    public void saveAll(List<ExpiredItems> expiredItemss) {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement deleteStatement = connection.prepareStatement("""
+                    DELETE FROM `expired_itemsV3`
+                    WHERE `playerUUID`=?;""");
+                 PreparedStatement insertStatement = connection.prepareStatement("""
+                    INSERT INTO `expired_itemsV3`
+                        (`uuid`, `playerUUID`, `dateAdded`, `itemStack`)
+                    VALUES (?, ?, ?, ?);""")) {
+                for (ExpiredItems expiredItems : expiredItemss) {
+                    deleteStatement.setString(1, expiredItems.owner().toString());
+                    deleteStatement.addBatch();
+                    for (CollectableItem item : expiredItems.collectableItems()) {
+                        bindItem(insertStatement, expiredItems.owner(), item);
+                        insertStatement.addBatch();
+                    }
+                }
+                deleteStatement.executeBatch();
+                insertStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to add item to expired items!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Add a single item for the owner, nothing else stored for them is touched.
+     *
+     * @param expiredItems the owner of the item.
+     * @param o             the {@link CollectableItem} to add.
+     */
+    @Override
+    public void saveSpecific(ExpiredItems expiredItems, Object o) {
+        if (!(o instanceof CollectableItem item))
+            throw new IllegalStateException("Specific object must be a collectable item");
         try (Connection connection = getConnection()) {
             try (PreparedStatement statement = connection.prepareStatement("""
-                    INSERT INTO `expired_itemsV2`
-                    (`playerUUID`,`items`)
-                    VALUES (?,?)
-                    ON CONFLICT(`playerUUID`) DO UPDATE SET
-                        `items` = excluded.`items`;""")) {
-                statement.setString(1, collectableList.owner().toString());
-                statement.setString(2, GSON.toJson(collectableList.collectableItems(), EXPIRED_LIST_TYPE));
+                    INSERT INTO `expired_itemsV3`
+                        (`uuid`, `playerUUID`, `dateAdded`, `itemStack`)
+                    VALUES (?, ?, ?, ?);""")) {
+                bindItem(statement, expiredItems.owner(), item);
                 statement.executeUpdate();
-            } catch (Exception e) {
-                e.printStackTrace();
             }
         } catch (SQLException e) {
             Fadah.getConsole().severe("Failed to add item to expired items!");
@@ -97,22 +141,62 @@ public class ExpiredItemsSQLiteDao implements Dao<ExpiredItems> {
     /**
      * Update an object of type T in the database.
      *
-     * @param collectableItem the object to update.
-     * @param params          the parameters to update the object with.
+     * @param expiredItems the object to update.
+     * @param params             the parameters to update the object with.
      */
     @Override
-    public void update(ExpiredItems collectableItem, String[] params) {
+    public void update(ExpiredItems expiredItems, String[] params) {
         throw new NotImplementedException();
     }
 
     /**
-     * Delete an object of type T from the database.
+     * Delete everything stored for the owner.
      *
-     * @param collectableItem the object to delete.
+     * @param expiredItems the object to delete.
      */
     @Override
-    public void delete(ExpiredItems collectableItem) {
-        throw new NotImplementedException();
+    public void delete(ExpiredItems expiredItems) {
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    DELETE FROM `expired_itemsV3`
+                    WHERE `playerUUID`=?;""")) {
+                statement.setString(1, expiredItems.owner().toString());
+                statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to remove items from expired items!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Remove a single item from the owner, nothing else stored for them is touched.
+     *
+     * @param expiredItems the owner of the item.
+     * @param o             the {@link CollectableItem} to remove.
+     */
+    @Override
+    public void deleteSpecific(ExpiredItems expiredItems, Object o) {
+        if (!(o instanceof CollectableItem item))
+            throw new IllegalStateException("Specific object must be a collectable item");
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    DELETE FROM `expired_itemsV3`
+                    WHERE `uuid`=?;""")) {
+                statement.setString(1, item.id().toString());
+                statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to remove item from expired items!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void bindItem(PreparedStatement statement, UUID owner, CollectableItem item) throws SQLException {
+        statement.setString(1, item.id().toString());
+        statement.setString(2, owner.toString());
+        statement.setLong(3, item.dateAdded());
+        statement.setBytes(4, ItemSerializer.serializeToBytes(item.itemStack()));
     }
 
     private Connection getConnection() throws SQLException {
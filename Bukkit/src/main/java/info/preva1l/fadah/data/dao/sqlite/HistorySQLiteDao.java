@@ -1,23 +1,16 @@
 package info.preva1l.fadah.data.dao.sqlite;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.zaxxer.hikari.HikariDataSource;
 import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.data.dao.Dao;
-import info.preva1l.fadah.data.gson.ConfigurationSerializableAdapter;
 import info.preva1l.fadah.records.HistoricItem;
 import info.preva1l.fadah.records.History;
+import info.preva1l.fadah.utils.ItemSerializer;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang.NotImplementedException;
-import org.bukkit.configuration.serialization.ConfigurationSerializable;
 
-import java.lang.reflect.Type;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -26,38 +19,142 @@ import java.util.logging.Level;
 
 @RequiredArgsConstructor
 public class HistorySQLiteDao implements Dao<History> {
+    private static final HistoricItem.LoggedAction[] ACTIONS = HistoricItem.LoggedAction.values();
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+    private static final String INSERT = """
+            INSERT INTO `historyV3`
+                (`uuid`, `playerUUID`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`)
+            VALUES (?, ?, ?, ?, ?, ?, ?);""";
     private final HikariDataSource dataSource;
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeHierarchyAdapter(ConfigurationSerializable.class, new ConfigurationSerializableAdapter())
-            .serializeNulls().disableHtmlEscaping().create();
-    private static final Type HISTORY_LIST_TYPE = new TypeToken<ArrayList<HistoricItem>>(){}.getType();
 
     /**
-     * Get an object from the database by its id.
+     * Get the most recent page of a players history, older entries are read with {@link #getPage(UUID, long, int)}.
      *
      * @param id the id of the object to get.
      * @return an optional containing the object if it exists, or an empty optional if it does not.
      */
     @Override
     public Optional<History> get(UUID id) {
+        return getPage(id, Long.MAX_VALUE, Config.i().getHistory().getCachedEntries());
+    }
+
+    /**
+     * Get a page of a players history, newest first, keyed on the logged date so deep pages cost the same as the first.
+     *
+     * @param id     the player.
+     * @param before only entries logged before this, in epoch millis.
+     * @param limit  how many entries to read.
+     * @return an optional containing the page if the player has any history before the cursor.
+     */
+    @Override
+    public Optional<History> getPage(UUID id, long before, int limit) {
         try (Connection connection = getConnection()) {
+            final List<HistoricItem> items = new ArrayList<>();
             try (PreparedStatement statement = connection.prepareStatement("""
-                        SELECT `items`
-                        FROM `historyV2`
-                        WHERE `playerUUID`=?;""")) {
+                    SELECT `uuid`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`
+                    FROM `historyV3`
+                    WHERE `playerUUID`=? AND `loggedDate`<?
+                    ORDER BY `loggedDate` DESC
+                    LIMIT ?;""")) {
                 statement.setString(1, id.toString());
+                statement.setLong(2, before);
+                statement.setInt(3, limit);
                 final ResultSet resultSet = statement.executeQuery();
-                if (resultSet.next()) {
-                    List<HistoricItem> items = GSON.fromJson(resultSet.getString("items"), HISTORY_LIST_TYPE);
-                    return Optional.of(new History(id, items));
+                while (resultSet.next()) {
+                    items.add(read(id, resultSet));
                 }
             }
+            if (items.isEmpty()) {
+                return Optional.empty();
+            }
+            if (items.size() == limit) {
+                // Read the whole of the last millisecond, so the next page can start strictly before it
+                final long last = items.get(items.size() - 1).getLoggedDate();
+                items.removeIf(item -> item.getLoggedDate() == last);
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT `uuid`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`
+                        FROM `historyV3`
+                        WHERE `playerUUID`=? AND `loggedDate`=?;""")) {
+                    statement.setString(1, id.toString());
+                    statement.setLong(2, last);
+                    final ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        items.add(read(id, resultSet));
+                    }
+                }
+            }
+            return Optional.of(new History(id, items));
         } catch (SQLException e) {
             Fadah.getConsole().log(Level.SEVERE, "Failed to get item from history!", e);
         }
         return Optional.empty();
     }
 
+    /**
+     * Move history logged before the cutoff into the archive table.
+     * Entries are moved oldest first in batches, each in its own transaction.
+     *
+     * @param before the cutoff, in epoch millis.
+     * @return the amount of entries archived.
+     */
+    @Override
+    public int archive(long before) {
+        int archived = 0;
+        try (Connection connection = getConnection();
+             PreparedStatement boundStatement = connection.prepareStatement("""
+                    SELECT `loggedDate`
+                    FROM `historyV3`
+                    WHERE `loggedDate`<?
+                    ORDER BY `loggedDate`
+                    LIMIT 1 OFFSET ?;""");
+             PreparedStatement copyStatement = connection.prepareStatement("""
+                    INSERT INTO `history_archiveV3`
+                        (`uuid`, `playerUUID`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`)
+                    SELECT `uuid`, `playerUUID`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`
+                    FROM `historyV3`
+                    WHERE `loggedDate`<?;""");
+             PreparedStatement deleteStatement = connection.prepareStatement("""
+                    DELETE FROM `historyV3`
+                    WHERE `loggedDate`<?;""")) {
+            boolean last = false;
+            while (!last) {
+                // A batch always ends after a whole millisecond, so it can be bounded by the logged date alone
+                long bound = before;
+                boundStatement.setLong(1, before);
+                boundStatement.setInt(2, ARCHIVE_BATCH_SIZE - 1);
+                try (ResultSet resultSet = boundStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        bound = resultSet.getLong("loggedDate") + 1;
+                    } else {
+                        last = true;
+                    }
+                }
+                archived += moveToArchive(connection, copyStatement, deleteStatement, bound);
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().log(Level.SEVERE, "Failed to archive history!", e);
+        }
+        return archived;
+    }
+
+    private int moveToArchive(Connection connection, PreparedStatement copyStatement,
+                              PreparedStatement deleteStatement, long bound) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            copyStatement.setLong(1, bound);
+            copyStatement.executeUpdate();
+            deleteStatement.setLong(1, bound);
+            int moved = deleteStatement.executeUpdate();
+            connection.commit();
+            return moved;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
     /**
      * Get all objects of type T from the database.
      *
@@ -69,27 +166,70 @@ public class HistorySQLiteDao implements Dao<History> {
     }
 
     /**
-     * Save an object of type T to the database.
+     * Replace the whole history of the owner with the items in the object.
+     * Only used when importing history, everything else appends with {@link #saveSpecific(History, Object)}.
      *
      * @param history the object to save.
      */
     @Override
     public void save(History history) {
+        saveAll(List.of(history));
+    }
+
+    /**
+     * Replace the whole history of each owner, in one transaction.
+     *
+     * @param histories the objects to save.
+     */
+    @Override
+    public void saveAll(List<History> histories) {
         try (Connection connection = getConnection()) {
-            try (PreparedStatement statement = connection.prepareStatement("""
-                    INSERT INTO `historyV2`
-                    (`playerUUID`,`items`)
-                    VALUES (?,?)
-                    ON CONFLICT(`playerUUID`) DO UPDATE SET
-                        `items` = excluded.`items`;""")) {
-                statement.setString(1, history.owner().toString());
-                statement.setString(2, GSON.toJson(history.collectableItems(), HISTORY_LIST_TYPE));
+            connection.setAutoCommit(false);
+            try (PreparedStatement deleteStatement = connection.prepareStatement("""
+                    DELETE FROM `historyV3`
+                    WHERE `playerUUID`=?;""");
+                 PreparedStatement insertStatement = connection.prepareStatement(INSERT)) {
+                for (History history : histories) {
+                    deleteStatement.setString(1, history.owner().toString());
+                    deleteStatement.addBatch();
+                    for (HistoricItem item : history.collectableItems()) {
+                        bind(insertStatement, history.owner(), item);
+                        insertStatement.addBatch();
+                    }
+                }
+                deleteStatement.executeBatch();
+                insertStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to add item to history!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Append a single entry to the history of the owner.
+     *
+     * @param history the owner of the entry.
+     * @param o       the {@link HistoricItem} to add.
+     */
+    @Override
+    public void saveSpecific(History history, Object o) {
+        if (!(o instanceof HistoricItem item))
+            throw new IllegalStateException("Specific object must be a historic item");
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                bind(statement, history.owner(), item);
                 statement.executeUpdate();
-            } catch (Exception e) {
-                e.printStackTrace();
             }
         } catch (SQLException e) {
-            Fadah.getConsole().log(Level.SEVERE, "Failed to add item to history!", e);
+            Fadah.getConsole().severe("Failed to add item to history!");
+            throw new RuntimeException(e);
         }
     }
 
@@ -97,7 +237,7 @@ public class HistorySQLiteDao implements Dao<History> {
      * Update an object of type T in the database.
      *
      * @param history the object to update.
-     * @param params          the parameters to update the object with.
+     * @param params  the parameters to update the object with.
      */
     @Override
     public void update(History history, String[] params) {
@@ -114,6 +254,31 @@ public class HistorySQLiteDao implements Dao<History> {
         throw new NotImplementedException();
     }
 
+    private void bind(PreparedStatement statement, UUID owner, HistoricItem item) throws SQLException {
+        statement.setString(1, item.getId().toString());
+        statement.setString(2, owner.toString());
+        statement.setLong(3, item.getLoggedDate());
+        statement.setInt(4, item.getAction().ordinal());
+        statement.setBytes(5, ItemSerializer.serializeToBytes(item.getItemStack()));
+        if (item.getPrice() == null) statement.setNull(6, Types.DOUBLE);
+        else statement.setDouble(6, item.getPrice());
+        if (item.getPurchaserUUID() == null) statement.setNull(7, Types.VARCHAR);
+        else statement.setString(7, item.getPurchaserUUID().toString());
+    }
+
+    private HistoricItem read(UUID owner, ResultSet resultSet) throws SQLException {
+        double price = resultSet.getDouble("price");
+        Double nullablePrice = resultSet.wasNull() ? null : price;
+        String purchaser = resultSet.getString("purchaserUUID");
+        return new HistoricItem(UUID.fromString(resultSet.getString("uuid")),
+                owner,
+                resultSet.getLong("loggedDate"),
+                ACTIONS[resultSet.getInt("loggedAction")],
+                ItemSerializer.deserializeFromBytes(resultSet.getBytes("itemStack"))[0],
+                nullablePrice,
+                purchaser == null ? null : UUID.fromString(purchaser));
+    }
+
     private Connection getConnection() throws SQLException {
         return dataSource.getConnection();
     }
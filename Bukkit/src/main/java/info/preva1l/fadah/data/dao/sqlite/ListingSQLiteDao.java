@@ -18,10 +18,14 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 @RequiredArgsConstructor
 public class ListingSQLiteDao implements Dao<Listing> {
+    private static final int FETCH_SIZE = 500;
+
     private final HikariDataSource dataSource;
 
     /**
@@ -34,7 +38,7 @@ public class ListingSQLiteDao implements Dao<Listing> {
     public Optional<Listing> get(UUID id) {
         try (Connection connection = getConnection()) {
             try (PreparedStatement statement = connection.prepareStatement("""
-                        SELECT  `ownerUUID`, `ownerName`, `category`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`
+                        SELECT  `ownerUUID`, `ownerName`, `category`, `currency`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`
                         FROM `listings`
                         WHERE `uuid`=?;""")) {
                 statement.setString(1, id.toString());
@@ -42,22 +46,13 @@ public class ListingSQLiteDao implements Dao<Listing> {
                 if (resultSet.next()) {
                     final UUID ownerUUID = UUID.fromString(resultSet.getString("ownerUUID"));
                     final String ownerName = resultSet.getString("ownerName");
-                    String temp = resultSet.getString("category");
-                    String currency;
-                    String categoryID;
-                    if (temp.contains("~")) {
-                        String[] t2 = temp.split("~");
-                        currency = t2[1];
-                        categoryID = t2[0];
-                    } else {
-                        currency = "vault";
-                        categoryID = temp;
-                    }
+                    final String categoryID = resultSet.getString("category");
+                    final String currency = resultSet.getString("currency");
                     final long creationDate = resultSet.getLong("creationDate");
                     final long deletionDate = resultSet.getLong("deletionDate");
                     final double price = resultSet.getDouble("price");
                     final double tax = resultSet.getDouble("tax");
-                    final ItemStack itemStack = ItemSerializer.deserialize(resultSet.getString("itemStack"))[0];
+                    final ItemStack itemStack = ItemSerializer.deserializeFromBytes(resultSet.getBytes("itemStack"))[0];
                     final boolean biddable = resultSet.getBoolean("biddable");
                     return Optional.of(new CurrentListing(id, ownerUUID, ownerName, itemStack, categoryID, currency, price, tax, creationDate, deletionDate, biddable, List.of()));
                 }
@@ -78,29 +73,21 @@ public class ListingSQLiteDao implements Dao<Listing> {
         final List<Listing> retrievedData = Lists.newArrayList();
         try (Connection connection = getConnection()) {
             try (PreparedStatement statement = connection.prepareStatement("""
-                        SELECT  `uuid`, `ownerUUID`, `ownerName`, `category`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`
+                        SELECT  `uuid`, `ownerUUID`, `ownerName`, `category`, `currency`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`
                         FROM `listings`;""")) {
                 final ResultSet resultSet = statement.executeQuery();
                 while (resultSet.next()) {
-                    final UUID id = UUID.fromString(resultSet.getString("uuid"));
-                    final UUID ownerUUID = UUID.fromString(resultSet.getString("ownerUUID"));
+                    // Parsed by the decoder, so a bad row is skipped like one with a bad item
+                    final String id = resultSet.getString("uuid");
+                    final String ownerUUID = resultSet.getString("ownerUUID");
                     final String ownerName = resultSet.getString("ownerName");
-                    String temp = resultSet.getString("category");
-                    String currency;
-                    String categoryID;
-                    if (temp.contains("~")) {
-                        String[] t2 = temp.split("~");
-                        currency = t2[1];
-                        categoryID = t2[0];
-                    } else {
-                        currency = "vault";
-                        categoryID = temp;
-                    }
+                    final String categoryID = resultSet.getString("category");
+                    final String currency = resultSet.getString("currency");
                     final long creationDate = resultSet.getLong("creationDate");
                     final long deletionDate = resultSet.getLong("deletionDate");
                     final double price = resultSet.getDouble("price");
                     final double tax = resultSet.getDouble("tax");
-                    final ItemStack itemStack = ItemSerializer.deserialize(resultSet.getString("itemStack"))[0];
+                    final ItemStack itemStack = ItemSerializer.deserializeFromBytes(resultSet.getBytes("itemStack"))[0];
                     final boolean biddable = resultSet.getBoolean("biddable");
                     retrievedData.add(new CurrentListing(id, ownerUUID, ownerName, itemStack, categoryID, currency, price, tax, creationDate, deletionDate, biddable, List.of()));
                 }
@@ -112,6 +99,45 @@ public class ListingSQLiteDao implements Dao<Listing> {
         return List.of();
     }
 
+    /**
+     * Stream all listings from the database, decoding their items on the decoder.
+     * Rows are fetched in batches so the whole table is never held in memory at once.
+     *
+     * @param decoder  the executor to decode items on.
+     * @param consumer the consumer to pass the listings to.
+     */
+    @Override
+    public void streamAll(Executor decoder, Consumer<Listing> consumer) {
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT  `uuid`, `ownerUUID`, `ownerName`, `category`, `currency`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`
+                        FROM `listings`;""", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                final ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    // Parsed by the decoder, so a bad row is skipped like one with a bad item
+                    final String id = resultSet.getString("uuid");
+                    final String ownerUUID = resultSet.getString("ownerUUID");
+                    final String ownerName = resultSet.getString("ownerName");
+                    final String categoryID = resultSet.getString("category");
+                    final String currency = resultSet.getString("currency");
+                    final long creationDate = resultSet.getLong("creationDate");
+                    final long deletionDate = resultSet.getLong("deletionDate");
+                    final double price = resultSet.getDouble("price");
+                    final double tax = resultSet.getDouble("tax");
+                    final byte[] itemStack = resultSet.getBytes("itemStack");
+                    final boolean biddable = resultSet.getBoolean("biddable");
+                    decoder.execute(() -> consumer.accept(new CurrentListing(UUID.fromString(id), UUID.fromString(ownerUUID), ownerName,
+                            ItemSerializer.deserializeFromBytes(itemStack)[0], categoryID, currency, price, tax,
+                            creationDate, deletionDate, biddable, List.of())));
+                }
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to stream all listings!");
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Save a listing to the database.
      *
@@ -119,26 +145,60 @@ public class ListingSQLiteDao implements Dao<Listing> {
      */
     @Override
     public void save(Listing listing) {
+        saveAll(List.of(listing));
+    }
+
+    /**
+     * Save a batch of listings to the database in one transaction, listings that are already saved are updated.
+     *
+     * @param listings the listings to save.
+     */
+    @Override
+    public void saveAll(List<Listing> listings) {
         try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
             try (PreparedStatement statement = connection.prepareStatement("""
                         INSERT INTO `listings`
-                        (`uuid`,`ownerUUID`,`ownerName`, `category`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`)
-                        VALUES (?,?,?,?,?,?,?,?,?,?,?);""")) {
-                statement.setString(1, listing.getId().toString());
-                statement.setString(2, listing.getOwner().toString());
-                statement.setString(3, listing.getOwnerName());
-                statement.setString(4, listing.getCategoryID() + "~" + listing.getCurrencyId());
-                statement.setLong(5, listing.getCreationDate());
-                statement.setLong(6, listing.getDeletionDate());
-                statement.setDouble(7, listing.getPrice());
-                statement.setDouble(8, listing.getTax());
-                statement.setString(9, ItemSerializer.serialize(listing.getItemStack()));
-                statement.setBoolean(10, false);
-                statement.setString(11, "");
-                statement.execute();
+                        (`uuid`,`ownerUUID`,`ownerName`, `category`, `currency`, `creationDate`, `deletionDate`, `price`, `tax`, `itemStack`, `biddable`, `bids`)
+                        VALUES (?,?,?,?,?,?,?,?,?,?,?,?)
+                        ON CONFLICT (`uuid`) DO UPDATE SET
+                        `ownerUUID` = excluded.`ownerUUID`,
+                        `ownerName` = excluded.`ownerName`,
+                        `category` = excluded.`category`,
+                        `currency` = excluded.`currency`,
+                        `creationDate` = excluded.`creationDate`,
+                        `deletionDate` = excluded.`deletionDate`,
+                        `price` = excluded.`price`,
+                        `tax` = excluded.`tax`,
+                        `itemStack` = excluded.`itemStack`,
+                        `biddable` = excluded.`biddable`,
+                        `bids` = excluded.`bids`;""")) {
+                for (Listing listing : listings) {
+                    statement.setString(1, listing.getId().toString());
+                    statement.setString(2, listing.getOwner().toString());
+                    statement.setString(3, listing.getOwnerName());
+                    statement.setString(4, listing.getCategoryID());
+                    statement.setString(5, listing.getCurrencyId());
+                    statement.setLong(6, listing.getCreationDate());
+                    statement.setLong(7, listing.getDeletionDate());
+                    statement.setDouble(8, listing.getPrice());
+                    statement.setDouble(9, listing.getTax());
+                    statement.setBytes(10, ItemSerializer.serializeToBytes(listing.getItemStack()));
+                    statement.setBoolean(11, false);
+                    statement.setString(12, "");
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            Fadah.getConsole().log(Level.SEVERE, "Failed to add item to listings!", e);
+            Fadah.getConsole().severe("Failed to add item to listings!");
+            throw new RuntimeException(e);
         }
     }
 
@@ -160,15 +220,36 @@ public class ListingSQLiteDao implements Dao<Listing> {
      */
     @Override
     public void delete(Listing listing) {
+        deleteAll(List.of(listing));
+    }
+
+    /**
+     * Delete a batch of listings from the database in one transaction.
+     *
+     * @param listings the listings to delete.
+     */
+    @Override
+    public void deleteAll(List<Listing> listings) {
         try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
             try (PreparedStatement statement = connection.prepareStatement("""
                         DELETE FROM `listings`
                         WHERE uuid = ?;""")) {
-                statement.setString(1, listing.getId().toString());
-                statement.execute();
+                for (Listing listing : listings) {
+                    statement.setString(1, listing.getId().toString());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            Fadah.getConsole().log(Level.SEVERE, "Failed to remove item from listings!", e);
+            Fadah.getConsole().severe("Failed to remove item from listings!");
+            throw new RuntimeException(e);
         }
     }
 
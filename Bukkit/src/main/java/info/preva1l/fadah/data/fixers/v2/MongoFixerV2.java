@@ -18,4 +18,9 @@ public class MongoFixerV2 implements V2Fixer {
     public boolean needsFixing(UUID player) {
         return false;
     }
+
+    @Override
+    public boolean hasLegacyData() {
+        return false;
+    }
 }
@@ -41,7 +41,10 @@ public class MySQLFixerV2 implements V2Fixer {
                     retrievedData.add(collectableItem);
                     ExpiredListingsCache.addItem(player, collectableItem);
                 }
-                DatabaseManager.getInstance().save(ExpiredItems.class, ExpiredItems.of(player));
+                // Only the legacy items are written, the rest of the players items are already stored
+                for (CollectableItem collectableItem : retrievedData) {
+                    DatabaseManager.getInstance().saveSpecific(ExpiredItems.class, ExpiredItems.of(player), collectableItem);
+                }
             }
 
             try (PreparedStatement deleteStatement = connection.prepareStatement("""
@@ -73,7 +76,10 @@ public class MySQLFixerV2 implements V2Fixer {
                     CollectionBoxCache.addItem(player, collectableItem);
                     retrievedData.add(collectableItem);
                 }
-                DatabaseManager.getInstance().save(CollectionBox.class, CollectionBox.of(player));
+                // Only the legacy items are written, the rest of the players items are already stored
+                for (CollectableItem collectableItem : retrievedData) {
+                    DatabaseManager.getInstance().saveSpecific(CollectionBox.class, CollectionBox.of(player), collectableItem);
+                }
             }
             try (PreparedStatement deleteStatement = connection.prepareStatement("""
                 DELETE FROM `collection_box`
@@ -114,6 +120,31 @@ public class MySQLFixerV2 implements V2Fixer {
         return collection || expired;
     }
 
+    @Override
+    public boolean hasLegacyData() {
+        try (Connection connection = getConnection()) {
+            for (String table : new String[]{"collection_box", "expired_items"}) {
+                // The old tables only exist on databases created before V2
+                if (!tableExists(connection, table)) continue;
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT 1 FROM `%s` LIMIT 1;""".formatted(table));
+                     ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) return true;
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to check for data left to migrate!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
     private Connection getConnection() throws SQLException {
         return dataSource.getConnection();
     }
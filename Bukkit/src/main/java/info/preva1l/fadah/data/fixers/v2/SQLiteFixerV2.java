@@ -41,7 +41,10 @@ public class SQLiteFixerV2 implements V2Fixer {
                     retrievedData.add(collectableItem);
                     ExpiredListingsCache.addItem(player, collectableItem);
                 }
-                DatabaseManager.getInstance().save(ExpiredItems.class, ExpiredItems.of(player));
+                // Only the legacy items are written, the rest of the players items are already stored
+                for (CollectableItem collectableItem : retrievedData) {
+                    DatabaseManager.getInstance().saveSpecific(ExpiredItems.class, ExpiredItems.of(player), collectableItem);
+                }
             }
 
             try (PreparedStatement deleteStatement = connection.prepareStatement("""
@@ -73,7 +76,10 @@ public class SQLiteFixerV2 implements V2Fixer {
                     CollectionBoxCache.addItem(player, collectableItem);
                     retrievedData.add(collectableItem);
                 }
-                DatabaseManager.getInstance().save(CollectionBox.class, CollectionBox.of(player));
+                // Only the legacy items are written, the rest of the players items are already stored
+                for (CollectableItem collectableItem : retrievedData) {
+                    DatabaseManager.getInstance().saveSpecific(CollectionBox.class, CollectionBox.of(player), collectableItem);
+                }
             }
             try (PreparedStatement deleteStatement = connection.prepareStatement("""
                 DELETE FROM `collection_box`
@@ -123,6 +129,26 @@ public class SQLiteFixerV2 implements V2Fixer {
         return collection || expired;
     }
 
+    @Override
+    public boolean hasLegacyData() {
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement collectionStatement = connection.prepareStatement("""
+            SELECT 1 FROM `collection_box` LIMIT 1;""");
+                 PreparedStatement expiredStatement = connection.prepareStatement("""
+            SELECT 1 FROM `expired_items` LIMIT 1;""")) {
+                try (ResultSet collectionResult = collectionStatement.executeQuery()) {
+                    if (collectionResult.next()) return true;
+                }
+                try (ResultSet expiredResult = expiredStatement.executeQuery()) {
+                    return expiredResult.next();
+                }
+            }
+        } catch (SQLException e) {
+            // The old tables only exist on databases created before V2
+            return false;
+        }
+    }
+
     private Connection getConnection() throws SQLException {
         return dataSource.getConnection();
     }
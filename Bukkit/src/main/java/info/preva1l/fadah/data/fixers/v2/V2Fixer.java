@@ -6,4 +6,14 @@ public interface V2Fixer {
     void fixExpiredItems(UUID player);
     void fixCollectionBox(UUID player);
     boolean needsFixing(UUID player);
+
+    /**
+     * Check if any player still has data in the pre V2 tables.
+     * When this is false no player can need fixing, so the per player check can be skipped.
+     *
+     * @return true if there is anything left to migrate.
+     */
+    default boolean hasLegacyData() {
+        return true;
+    }
 }
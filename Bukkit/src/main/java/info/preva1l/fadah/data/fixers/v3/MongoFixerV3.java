@@ -0,0 +1,21 @@
+package info.preva1l.fadah.data.fixers.v3;
+
+import java.util.UUID;
+
+public class MongoFixerV3 implements V3Fixer {
+
+    @Override
+    public void fix(UUID player) {
+        // do nothing, mongo has always stored one document per item
+    }
+
+    @Override
+    public boolean needsFixing(UUID player) {
+        return false;
+    }
+
+    @Override
+    public boolean hasLegacyData() {
+        return false;
+    }
+}
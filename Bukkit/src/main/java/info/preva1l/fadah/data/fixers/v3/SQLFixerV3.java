@@ -0,0 +1,166 @@
+package info.preva1l.fadah.data.fixers.v3;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.zaxxer.hikari.HikariDataSource;
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.data.gson.ConfigurationSerializableAdapter;
+import info.preva1l.fadah.records.CollectableItem;
+import info.preva1l.fadah.records.HistoricItem;
+import info.preva1l.fadah.utils.ItemSerializer;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+
+import java.lang.reflect.Type;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Works for both MySQL and SQLite, the statements it runs are plain SQL both understand.
+ */
+@RequiredArgsConstructor
+public class SQLFixerV3 implements V3Fixer {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeHierarchyAdapter(ConfigurationSerializable.class, new ConfigurationSerializableAdapter())
+            .serializeNulls().disableHtmlEscaping().create();
+    private static final Type COLLECTION_LIST_TYPE = new TypeToken<ArrayList<CollectableItem>>() {}.getType();
+    private static final Type HISTORY_LIST_TYPE = new TypeToken<ArrayList<HistoricItem>>() {}.getType();
+    private static final String[] TABLES = {"collection_boxV2", "expired_itemsV2", "historyV2"};
+    private final HikariDataSource dataSource;
+
+    @Override
+    public void fix(UUID player) {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                fixCollectables(connection, player, "collection_boxV2", "collection_boxV3");
+                fixCollectables(connection, player, "expired_itemsV2", "expired_itemsV3");
+                fixHistory(connection, player);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to move items to the V3 tables!");
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean needsFixing(UUID player) {
+        try (Connection connection = getConnection()) {
+            for (String table : TABLES) {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT 1 FROM `%s` WHERE `playerUUID`=?;""".formatted(table))) {
+                    statement.setString(1, player.toString());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) return true;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to check if player needs fixing!");
+            throw new RuntimeException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasLegacyData() {
+        try (Connection connection = getConnection()) {
+            for (String table : TABLES) {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT 1 FROM `%s` LIMIT 1;""".formatted(table))) {
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) return true;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Fadah.getConsole().severe("Failed to check for data left to migrate!");
+            throw new RuntimeException(e);
+        }
+        return false;
+    }
+
+    private void fixCollectables(Connection connection, UUID player, String from, String to) throws SQLException {
+        String json = read(connection, player, from);
+        if (json == null) return;
+        List<CollectableItem> items = GSON.fromJson(json, COLLECTION_LIST_TYPE);
+        if (items == null) items = List.of();
+        // Appended rather than replaced, items may already have been written to the new table since the update
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT INTO `%s`
+                    (`uuid`, `playerUUID`, `dateAdded`, `itemStack`)
+                VALUES (?, ?, ?, ?);""".formatted(to))) {
+            for (CollectableItem item : items) {
+                statement.setString(1, idOf(item.id()).toString());
+                statement.setString(2, player.toString());
+                statement.setLong(3, item.dateAdded());
+                statement.setBytes(4, ItemSerializer.serializeToBytes(item.itemStack()));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        remove(connection, player, from);
+    }
+
+    private void fixHistory(Connection connection, UUID player) throws SQLException {
+        String json = read(connection, player, "historyV2");
+        if (json == null) return;
+        List<HistoricItem> items = GSON.fromJson(json, HISTORY_LIST_TYPE);
+        if (items == null) items = List.of();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT INTO `historyV3`
+                    (`uuid`, `playerUUID`, `loggedDate`, `loggedAction`, `itemStack`, `price`, `purchaserUUID`)
+                VALUES (?, ?, ?, ?, ?, ?, ?);""")) {
+            for (HistoricItem item : items) {
+                statement.setString(1, idOf(item.getId()).toString());
+                statement.setString(2, player.toString());
+                statement.setLong(3, item.getLoggedDate());
+                statement.setInt(4, item.getAction().ordinal());
+                statement.setBytes(5, ItemSerializer.serializeToBytes(item.getItemStack()));
+                if (item.getPrice() == null) statement.setNull(6, Types.DOUBLE);
+                else statement.setDouble(6, item.getPrice());
+                if (item.getPurchaserUUID() == null) statement.setNull(7, Types.VARCHAR);
+                else statement.setString(7, item.getPurchaserUUID().toString());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        remove(connection, player, "historyV2");
+    }
+
+    private UUID idOf(UUID id) {
+        // Items in the V2 json never had ids, gson leaves the field empty
+        return id == null ? UUID.randomUUID() : id;
+    }
+
+    private String read(Connection connection, UUID player, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT `items` FROM `%s` WHERE `playerUUID`=?;""".formatted(table))) {
+            statement.setString(1, player.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString("items") : null;
+            }
+        }
+    }
+
+    private void remove(Connection connection, UUID player, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                DELETE FROM `%s` WHERE `playerUUID`=?;""".formatted(table))) {
+            statement.setString(1, player.toString());
+            statement.executeUpdate();
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+}
@@ -0,0 +1,22 @@
+package info.preva1l.fadah.data.fixers.v3;
+
+import java.util.UUID;
+
+/**
+ * Moves a players collection box, expired items and history out of the V2 tables, which store every item
+ * as one json blob per player, into the V3 tables, which store one row per item.
+ */
+public interface V3Fixer {
+    void fix(UUID player);
+    boolean needsFixing(UUID player);
+
+    /**
+     * Check if any player still has data in the V2 tables.
+     * When this is false no player can need fixing, so the per player check can be skipped.
+     *
+     * @return true if there is anything left to migrate.
+     */
+    default boolean hasLegacyData() {
+        return true;
+    }
+}
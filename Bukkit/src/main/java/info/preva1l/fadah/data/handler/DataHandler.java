@@ -3,12 +3,20 @@ package info.preva1l.fadah.data.handler;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 public interface DataHandler {
     <T> List<T> getAll(Class<T> clazz);
+    <T> void streamAll(Class<T> clazz, Executor decoder, Consumer<T> consumer);
     <T> Optional<T> get(Class<T> clazz, UUID id);
+    <T> Optional<T> getPage(Class<T> clazz, UUID id, long before, int limit);
+    <T> int archive(Class<T> clazz, long before);
     <T> void save(Class<T> clazz, T t);
     <T> void update(Class<T> clazz, T t, String[] params);
     <T> void delete(Class<T> clazz, T t);
+    <T> void saveAll(Class<T> clazz, List<T> ts);
+    <T> void deleteAll(Class<T> clazz, List<T> ts);
+    <T> void saveSpecific(Class<T> clazz, T t, Object o);
     <T> void deleteSpecific(Class<T> clazz, T t, Object o);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package info.preva1l.fadah.data.handler;
 
 import info.preva1l.fadah.data.fixers.v2.V2Fixer;
+import info.preva1l.fadah.data.fixers.v3.V3Fixer;
 
 import java.util.UUID;
 
@@ -13,12 +14,22 @@ public interface DatabaseHandler extends DataHandler {
 
 
     V2Fixer getV2Fixer();
+    V3Fixer getV3Fixer();
+
     default void fixData(UUID player) {
-        getV2Fixer().fixCollectionBox(player);
-        getV2Fixer().fixExpiredItems(player);
+        // V3 first, the V2 fixer appends to the V3 tables, which must already hold everything from the V2 tables
+        if (getV3Fixer().needsFixing(player)) getV3Fixer().fix(player);
+        if (getV2Fixer().needsFixing(player)) {
+            getV2Fixer().fixCollectionBox(player);
+            getV2Fixer().fixExpiredItems(player);
+        }
     }
 
     default boolean needsFixing(UUID player) {
-        return getV2Fixer().needsFixing(player);
+        return getV3Fixer().needsFixing(player) || getV2Fixer().needsFixing(player);
+    }
+
+    default boolean hasLegacyData() {
+        return getV3Fixer().hasLegacyData() || getV2Fixer().hasLegacyData();
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package info.preva1l.fadah.data.handler;
 
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.data.dao.Dao;
@@ -9,6 +12,8 @@ import info.preva1l.fadah.data.dao.mongo.HistoryMongoDao;
 import info.preva1l.fadah.data.dao.mongo.ListingMongoDao;
 import info.preva1l.fadah.data.fixers.v2.MongoFixerV2;
 import info.preva1l.fadah.data.fixers.v2.V2Fixer;
+import info.preva1l.fadah.data.fixers.v3.MongoFixerV3;
+import info.preva1l.fadah.data.fixers.v3.V3Fixer;
 import info.preva1l.fadah.records.CollectionBox;
 import info.preva1l.fadah.records.ExpiredItems;
 import info.preva1l.fadah.records.History;
@@ -20,6 +25,8 @@ import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 public class MongoHandler implements DatabaseHandler {
     private final Map<Class<?>, Dao<?>> daos = new HashMap<>();
@@ -29,6 +36,7 @@ public class MongoHandler implements DatabaseHandler {
     private MongoConnectionHandler connectionHandler;
     private CollectionHelper collectionHelper;
     @Getter private V2Fixer v2Fixer;
+    @Getter private V3Fixer v3Fixer;
 
     @Override
     public void connect() {
@@ -47,8 +55,37 @@ public class MongoHandler implements DatabaseHandler {
                     "Please check the supplied database credentials in the config file", e);
         }
 
+        createIndexes();
         registerDaos();
         v2Fixer = new MongoFixerV2();
+        v3Fixer = new MongoFixerV3();
+    }
+
+    /**
+     * Index every field the daos look documents up by, creating an index that already exists does nothing.
+     */
+    private void createIndexes() {
+        collectionHelper.createIndex("listings", Indexes.ascending("uuid"),
+                new IndexOptions().name("listings_uuid").unique(true));
+        collectionHelper.createIndex("listings", Indexes.ascending("ownerUUID"),
+                new IndexOptions().name("listings_owner"));
+        collectionHelper.createIndex("listings", Indexes.ascending("deletionDate"),
+                new IndexOptions().name("listings_deletion"));
+
+        for (String collection : List.of("collection_box", "expired_items")) {
+            collectionHelper.createIndex(collection, Indexes.ascending("playerUUID", "dateAdded"),
+                    new IndexOptions().name(collection + "_player"));
+            // Documents written before items had ids have no uuid, they are left out of the index
+            collectionHelper.createIndex(collection, Indexes.ascending("uuid"),
+                    new IndexOptions().name(collection + "_uuid").unique(true).partialFilterExpression(Filters.exists("uuid")));
+        }
+
+        collectionHelper.createIndex("history", Indexes.compoundIndex(Indexes.ascending("playerUUID"), Indexes.descending("loggedDate")),
+                new IndexOptions().name("history_player"));
+        collectionHelper.createIndex("history", Indexes.ascending("loggedDate"),
+                new IndexOptions().name("history_date"));
+        collectionHelper.createIndex("history", Indexes.ascending("uuid"),
+                new IndexOptions().name("history_uuid").unique(true).partialFilterExpression(Filters.exists("uuid")));
     }
 
     @Override
@@ -75,11 +112,26 @@ public class MongoHandler implements DatabaseHandler {
         return (List<T>) getDao(clazz).getAll();
     }
 
+    @Override
+    public <T> void streamAll(Class<T> clazz, Executor decoder, Consumer<T> consumer) {
+        this.<T>getDao(clazz).streamAll(decoder, consumer);
+    }
+
     @Override
     public <T> Optional<T> get(Class<T> clazz, UUID id) {
         return (Optional<T>) getDao(clazz).get(id);
     }
 
+    @Override
+    public <T> Optional<T> getPage(Class<T> clazz, UUID id, long before, int limit) {
+        return this.<T>getDao(clazz).getPage(id, before, limit);
+    }
+
+    @Override
+    public <T> int archive(Class<T> clazz, long before) {
+        return getDao(clazz).archive(before);
+    }
+
     @Override
     public <T> void save(Class<T> clazz, T t) {
         getDao(clazz).save(t);
@@ -95,6 +147,21 @@ public class MongoHandler implements DatabaseHandler {
         getDao(clazz).delete(t);
     }
 
+    @Override
+    public <T> void saveAll(Class<T> clazz, List<T> ts) {
+        getDao(clazz).saveAll(ts);
+    }
+
+    @Override
+    public <T> void deleteAll(Class<T> clazz, List<T> ts) {
+        getDao(clazz).deleteAll(ts);
+    }
+
+    @Override
+    public <T> void saveSpecific(Class<T> clazz, T t, Object o) {
+        getDao(clazz).saveSpecific(t, o);
+    }
+
     @Override
     public <T> void deleteSpecific(Class<T> clazz, T t, Object o) {
         getDao(clazz).deleteSpecific(t, o);
@@ -11,6 +11,9 @@ import info.preva1l.fadah.data.dao.sql.HistorySQLDao;
 import info.preva1l.fadah.data.dao.sql.ListingSQLDao;
 import info.preva1l.fadah.data.fixers.v2.MySQLFixerV2;
 import info.preva1l.fadah.data.fixers.v2.V2Fixer;
+import info.preva1l.fadah.data.fixers.v3.SQLFixerV3;
+import info.preva1l.fadah.data.fixers.v3.V3Fixer;
+import info.preva1l.fadah.data.schema.SchemaMigrator;
 import info.preva1l.fadah.records.CollectionBox;
 import info.preva1l.fadah.records.ExpiredItems;
 import info.preva1l.fadah.records.History;
@@ -24,6 +27,8 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 public class MySQLHandler implements DatabaseHandler {
     private final Map<Class<?>, Dao<?>> daos = new HashMap<>();
@@ -33,6 +38,7 @@ public class MySQLHandler implements DatabaseHandler {
     private final String driverClass;
     private HikariDataSource dataSource;
     @Getter private V2Fixer v2Fixer;
+    @Getter private V3Fixer v3Fixer;
 
     private final Config.Database conf = Config.i().getDatabase();
 
@@ -83,6 +89,7 @@ public class MySQLHandler implements DatabaseHandler {
                         "cacheResultSetMetadata", "true",
                         "cacheServerConfiguration", "true",
                         "elideSetAutoCommits", "true",
+                        "useCursorFetch", "true",
                         "maintainTimeStats", "false")
         );
         dataSource.setDataSourceProperties(properties);
@@ -93,6 +100,7 @@ public class MySQLHandler implements DatabaseHandler {
                 for (String tableCreationStatement : databaseSchema) {
                     statement.execute(tableCreationStatement);
                 }
+                new SchemaMigrator(dataSource, false).migrate();
                 connected = true;
             } catch (SQLException e) {
                 destroy();
@@ -106,6 +114,7 @@ public class MySQLHandler implements DatabaseHandler {
         }
         registerDaos();
         v2Fixer = new MySQLFixerV2(dataSource);
+        v3Fixer = new SQLFixerV3(dataSource);
     }
 
     @Override
@@ -131,11 +140,26 @@ public class MySQLHandler implements DatabaseHandler {
         return (List<T>) getDao(clazz).getAll();
     }
 
+    @Override
+    public <T> void streamAll(Class<T> clazz, Executor decoder, Consumer<T> consumer) {
+        this.<T>getDao(clazz).streamAll(decoder, consumer);
+    }
+
     @Override
     public <T> Optional<T> get(Class<T> clazz, UUID id) {
         return (Optional<T>) getDao(clazz).get(id);
     }
 
+    @Override
+    public <T> Optional<T> getPage(Class<T> clazz, UUID id, long before, int limit) {
+        return this.<T>getDao(clazz).getPage(id, before, limit);
+    }
+
+    @Override
+    public <T> int archive(Class<T> clazz, long before) {
+        return getDao(clazz).archive(before);
+    }
+
     @Override
     public <T> void save(Class<T> clazz, T t) {
         getDao(clazz).save(t);
@@ -151,6 +175,21 @@ public class MySQLHandler implements DatabaseHandler {
         getDao(clazz).delete(t);
     }
 
+    @Override
+    public <T> void saveAll(Class<T> clazz, List<T> ts) {
+        getDao(clazz).saveAll(ts);
+    }
+
+    @Override
+    public <T> void deleteAll(Class<T> clazz, List<T> ts) {
+        getDao(clazz).deleteAll(ts);
+    }
+
+    @Override
+    public <T> void saveSpecific(Class<T> clazz, T t, Object o) {
+        getDao(clazz).saveSpecific(t, o);
+    }
+
     @Override
     public <T> void deleteSpecific(Class<T> clazz, T t, Object o) {
         getDao(clazz).deleteSpecific(t, o);
@@ -11,6 +11,9 @@ import info.preva1l.fadah.data.dao.sqlite.HistorySQLiteDao;
 import info.preva1l.fadah.data.dao.sqlite.ListingSQLiteDao;
 import info.preva1l.fadah.data.fixers.v2.SQLiteFixerV2;
 import info.preva1l.fadah.data.fixers.v2.V2Fixer;
+import info.preva1l.fadah.data.fixers.v3.SQLFixerV3;
+import info.preva1l.fadah.data.fixers.v3.V3Fixer;
+import info.preva1l.fadah.data.schema.SchemaMigrator;
 import info.preva1l.fadah.records.CollectionBox;
 import info.preva1l.fadah.records.ExpiredItems;
 import info.preva1l.fadah.records.History;
@@ -23,20 +26,35 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
+/**
+ * Stores everything in a single SQLite file.
+ * <p>
+ * SQLite only lets one connection write at a time, so in performance mode writes go through a pool of one connection
+ * and queue for it in the pool instead of failing with {@code SQLITE_BUSY}, while reads use their own small pool.
+ * The write-ahead log lets those reads carry on while a write is in progress.
+ * </p>
+ */
 public class SQLiteHandler implements DatabaseHandler {
     private final Map<Class<?>, Dao<?>> daos = new HashMap<>();
+    private final Map<Class<?>, Dao<?>> writeDaos = new HashMap<>();
 
     @Getter private boolean connected = false;
 
     private static final String DATABASE_FILE_NAME = "FadahData.db";
+    private static final int BUSY_TIMEOUT = 5000;
     private File databaseFile;
     private HikariDataSource dataSource;
+    private HikariDataSource writeDataSource;
     @Getter private V2Fixer v2Fixer;
+    @Getter private V3Fixer v3Fixer;
 
     @Override
     @Blocking
@@ -46,30 +64,31 @@ public class SQLiteHandler implements DatabaseHandler {
             if (databaseFile.createNewFile()) {
                 Fadah.getConsole().info("Created the SQLite database file");
             }
+            // Copied before anything opens it, once it is open recent writes may only be in the write-ahead log
+            this.backupFlatFile(databaseFile);
 
             Class.forName("org.sqlite.JDBC");
 
-            HikariConfig config = new HikariConfig();
-            config.setPoolName("FadahHikariPool");
-            config.setAutoCommit(true);
-            config.setDriverClassName("org.sqlite.JDBC");
-            config.setJdbcUrl("jdbc:sqlite:" + databaseFile.getAbsolutePath());
-            config.setConnectionTestQuery("SELECT 1");
-            config.setMaxLifetime(60000);
-            config.setIdleTimeout(45000);
-            config.setMaximumPoolSize(50);
-            dataSource = new HikariDataSource(config);
-            this.backupFlatFile(databaseFile);
+            final Config.Database.Sqlite conf = Config.i().getDatabase().getSqlite();
+            if (conf.isPerformanceMode()) {
+                writeDataSource = createDataSource("FadahSQLiteWriter", 1, conf);
+                dataSource = createDataSource("FadahSQLiteReader", Math.max(1, conf.getReadPoolSize()), conf);
+            } else {
+                dataSource = createDataSource("FadahHikariPool", 50, conf);
+                writeDataSource = dataSource;
+            }
 
             final String[] databaseSchema = getSchemaStatements(String.format("database/%s_schema.sql", Config.i().getDatabase().getType().getId()));
-            try (Statement statement = dataSource.getConnection().createStatement()) {
+            try (Connection connection = writeDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
                 for (String tableCreationStatement : databaseSchema) {
                     statement.execute(tableCreationStatement);
                 }
-            } catch (SQLException e) {
-                destroy();
-                throw new IllegalStateException("Failed to create database tables.", e);
             }
+            new SchemaMigrator(writeDataSource, true).migrate();
+        } catch (SQLException e) {
+            destroy();
+            throw new IllegalStateException("Failed to create database tables.", e);
         } catch (IOException e) {
             Fadah.getConsole().log(Level.SEVERE, "An exception occurred creating the database file", e);
             destroy();
@@ -78,10 +97,39 @@ public class SQLiteHandler implements DatabaseHandler {
             destroy();
         }
         registerDaos();
-        v2Fixer = new SQLiteFixerV2(dataSource);
+        v2Fixer = new SQLiteFixerV2(writeDataSource);
+        v3Fixer = new SQLFixerV3(writeDataSource);
         connected = true;
     }
 
+    @NotNull
+    private HikariDataSource createDataSource(@NotNull String name, int poolSize, @NotNull Config.Database.Sqlite conf) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setAutoCommit(true);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        config.setConnectionTestQuery("SELECT 1");
+        config.setMaxLifetime(60000);
+        config.setIdleTimeout(45000);
+        config.setMaximumPoolSize(poolSize);
+        // The driver applies these pragmas to every connection it opens
+        config.addDataSourceProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT));
+        if (conf.isPerformanceMode()) {
+            config.addDataSourceProperty("journal_mode", "WAL");
+            // Safe with a write-ahead log, a crash can lose the last commits but never corrupts the file
+            config.addDataSourceProperty("synchronous", "NORMAL");
+            config.addDataSourceProperty("temp_store", "MEMORY");
+            // Negative sizes are in KiB rather than pages
+            config.addDataSourceProperty("cache_size", String.valueOf(-conf.getCacheSize() * 1024));
+            config.addDataSourceProperty("mmap_size", String.valueOf(conf.getMmapSize() * 1024L * 1024L));
+        } else {
+            // The journal mode is stored in the file, so turning performance mode off has to switch it back
+            config.addDataSourceProperty("journal_mode", "DELETE");
+        }
+        return new HikariDataSource(config);
+    }
+
     @SuppressWarnings("SameParameterValue")
     @NotNull
     private String[] getSchemaStatements(@NotNull String schemaFileName) throws IOException {
@@ -107,6 +155,7 @@ public class SQLiteHandler implements DatabaseHandler {
     @Override
     public void destroy() {
         if (dataSource != null) dataSource.close();
+        if (writeDataSource != null) writeDataSource.close();
     }
 
     @Override
@@ -115,6 +164,11 @@ public class SQLiteHandler implements DatabaseHandler {
         daos.put(CollectionBox.class, new CollectionBoxSQLiteDao(dataSource));
         daos.put(ExpiredItems.class, new ExpiredItemsSQLiteDao(dataSource));
         daos.put(History.class, new HistorySQLiteDao(dataSource));
+
+        writeDaos.put(Listing.class, new ListingSQLiteDao(writeDataSource));
+        writeDaos.put(CollectionBox.class, new CollectionBoxSQLiteDao(writeDataSource));
+        writeDaos.put(ExpiredItems.class, new ExpiredItemsSQLiteDao(writeDataSource));
+        writeDaos.put(History.class, new HistorySQLiteDao(writeDataSource));
     }
 
     @Override
@@ -124,44 +178,75 @@ public class SQLiteHandler implements DatabaseHandler {
 
     @Override
     public <T> List<T> getAll(Class<T> clazz) {
-        return (List<T>) getDao(clazz).getAll();
+        return (List<T>) getDao(daos, clazz).getAll();
+    }
+
+    @Override
+    public <T> void streamAll(Class<T> clazz, Executor decoder, Consumer<T> consumer) {
+        this.<T>getDao(daos, clazz).streamAll(decoder, consumer);
     }
 
     @Override
     public <T> Optional<T> get(Class<T> clazz, UUID id) {
-        return (Optional<T>) getDao(clazz).get(id);
+        return (Optional<T>) getDao(daos, clazz).get(id);
+    }
+
+    @Override
+    public <T> Optional<T> getPage(Class<T> clazz, UUID id, long before, int limit) {
+        return this.<T>getDao(daos, clazz).getPage(id, before, limit);
+    }
+
+    @Override
+    public <T> int archive(Class<T> clazz, long before) {
+        return getDao(writeDaos, clazz).archive(before);
     }
 
     @Override
     public <T> void save(Class<T> clazz, T t) {
-        getDao(clazz).save(t);
+        getDao(writeDaos, clazz).save(t);
     }
 
     @Override
     public <T> void update(Class<T> clazz, T t, String[] params) {
-        getDao(clazz).update(t, params);
+        getDao(writeDaos, clazz).update(t, params);
     }
 
     @Override
     public <T> void delete(Class<T> clazz, T t) {
-        getDao(clazz).delete(t);
+        getDao(writeDaos, clazz).delete(t);
+    }
+
+    @Override
+    public <T> void saveAll(Class<T> clazz, List<T> ts) {
+        getDao(writeDaos, clazz).saveAll(ts);
+    }
+
+    @Override
+    public <T> void deleteAll(Class<T> clazz, List<T> ts) {
+        getDao(writeDaos, clazz).deleteAll(ts);
+    }
+
+    @Override
+    public <T> void saveSpecific(Class<T> clazz, T t, Object o) {
+        getDao(writeDaos, clazz).saveSpecific(t, o);
     }
 
     @Override
     public <T> void deleteSpecific(Class<T> clazz, T t, Object o) {
-        getDao(clazz).deleteSpecific(t, o);
+        getDao(writeDaos, clazz).deleteSpecific(t, o);
     }
 
     /**
      * Gets the DAO for a specific class.
      *
+     * @param from  The read or write DAOs.
      * @param clazz The class to get the DAO for.
      * @param <T>   The type of the class.
      * @return The DAO for the specified class.
      */
-    private <T> Dao<T> getDao(Class<?> clazz) {
-        if (!daos.containsKey(clazz))
+    private <T> Dao<T> getDao(Map<Class<?>, Dao<?>> from, Class<?> clazz) {
+        if (!from.containsKey(clazz))
             throw new IllegalArgumentException("No DAO registered for class " + clazz.getName());
-        return (Dao<T>) daos.get(clazz);
+        return (Dao<T>) from.get(clazz);
     }
 }
@@ -0,0 +1,24 @@
+package info.preva1l.fadah.data.schema;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * A single change to the database schema, applied once and recorded under its version.
+ *
+ * @param version     the version the schema is at once this has been applied, must be unique and increasing.
+ * @param description what the migration does, shown when it is applied.
+ * @param mysql       the statements to run on MySQL and MariaDB.
+ * @param sqlite      the statements to run on SQLite.
+ */
+public record Migration(
+        int version,
+        @NotNull String description,
+        @NotNull List<String> mysql,
+        @NotNull List<String> sqlite
+) {
+    public @NotNull List<String> statements(boolean sqlite) {
+        return sqlite ? this.sqlite : this.mysql;
+    }
+}
@@ -0,0 +1,127 @@
+package info.preva1l.fadah.data.schema;
+
+import com.zaxxer.hikari.HikariDataSource;
+import info.preva1l.fadah.Fadah;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Blocking;
+
+import java.sql.*;
+import java.util.List;
+
+/**
+ * Brings the SQL schema up to date.
+ * <p>
+ * The schema files only create the tables as they first were, every change since is a {@link Migration}.
+ * The version reached is kept in the {@code schema_version} table, so each migration is applied exactly once,
+ * in order, and one that fails stops the ones after it from running until it has been fixed.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class SchemaMigrator {
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Unique listing ids",
+                    List.of("""
+                            DELETE duplicate FROM `listings` duplicate
+                            JOIN `listings` original ON duplicate.`uuid` = original.`uuid` AND duplicate.`id` > original.`id`;""",
+                            "CREATE UNIQUE INDEX `listings_uuid` ON `listings` (`uuid`);"),
+                    List.of("""
+                            DELETE FROM `listings`
+                            WHERE `id` NOT IN (SELECT MIN(`id`) FROM `listings` GROUP BY `uuid`);""",
+                            "CREATE UNIQUE INDEX IF NOT EXISTS `listings_uuid` ON `listings` (`uuid`);")),
+            new Migration(2, "Index listings by owner and deletion date",
+                    List.of("CREATE INDEX `listings_owner` ON `listings` (`ownerUUID`);",
+                            "CREATE INDEX `listings_deletion` ON `listings` (`deletionDate`);"),
+                    List.of("CREATE INDEX IF NOT EXISTS `listings_owner` ON `listings` (`ownerUUID`);",
+                            "CREATE INDEX IF NOT EXISTS `listings_deletion` ON `listings` (`deletionDate`);")),
+            new Migration(3, "Store listing currencies apart from their categories",
+                    // The currency is set first, MySQL sees the new value of a column assigned earlier in the same statement
+                    List.of("ALTER TABLE `listings` ADD COLUMN `currency` VARCHAR(255) NOT NULL DEFAULT 'vault';",
+                            """
+                            UPDATE `listings`
+                            SET `currency` = SUBSTRING_INDEX(`category`, '~', -1),
+                                `category` = SUBSTRING_INDEX(`category`, '~', 1)
+                            WHERE `category` LIKE '%~%';""",
+                            "CREATE INDEX `listings_category` ON `listings` (`category`);",
+                            "CREATE INDEX `listings_currency` ON `listings` (`currency`);"),
+                    List.of("ALTER TABLE `listings` ADD COLUMN `currency` TEXT NOT NULL DEFAULT 'vault';",
+                            """
+                            UPDATE `listings`
+                            SET `currency` = SUBSTR(`category`, INSTR(`category`, '~') + 1),
+                                `category` = SUBSTR(`category`, 1, INSTR(`category`, '~') - 1)
+                            WHERE INSTR(`category`, '~') > 0;""",
+                            "CREATE INDEX IF NOT EXISTS `listings_category` ON `listings` (`category`);",
+                            "CREATE INDEX IF NOT EXISTS `listings_currency` ON `listings` (`currency`);")),
+            new Migration(4, "Store items as binary",
+                    // Text already stored keeps its bytes, it is still read and is rewritten as binary when next saved
+                    List.of("ALTER TABLE `listings` MODIFY `itemStack` MEDIUMBLOB NOT NULL;",
+                            "ALTER TABLE `collection_boxV3` MODIFY `itemStack` MEDIUMBLOB NOT NULL;",
+                            "ALTER TABLE `expired_itemsV3` MODIFY `itemStack` MEDIUMBLOB NOT NULL;",
+                            "ALTER TABLE `historyV3` MODIFY `itemStack` MEDIUMBLOB NOT NULL;",
+                            "ALTER TABLE `history_archiveV3` MODIFY `itemStack` MEDIUMBLOB NOT NULL;"),
+                    // SQLite keeps binary as it is whatever type the column was declared with
+                    List.of())
+    );
+
+    private final HikariDataSource dataSource;
+    private final boolean sqlite;
+
+    /**
+     * Apply every migration newer than the current schema version.
+     *
+     * @throws SQLException if a migration failed, the schema is left at the last version that succeeded.
+     */
+    @Blocking
+    public void migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("""
+                        CREATE TABLE IF NOT EXISTS `schema_version`
+                        (
+                            `version`     INT          NOT NULL PRIMARY KEY,
+                            `description` VARCHAR(255) NOT NULL,
+                            `appliedAt`   BIGINT       NOT NULL
+                        );""");
+            }
+
+            int current = getVersion(connection);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= current) continue;
+                Fadah.getConsole().info("Migrating the database to version %d: %s"
+                        .formatted(migration.version(), migration.description()));
+                apply(connection, migration);
+            }
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        // SQLite undoes a failed migration as a whole, MySQL commits schema changes as they run,
+        // so there a migration that fails part way through is left as far as it got
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements(sqlite)) {
+                statement.execute(sql);
+            }
+            try (PreparedStatement record = connection.prepareStatement("""
+                    INSERT INTO `schema_version` (`version`, `description`, `appliedAt`)
+                    VALUES (?, ?, ?);""")) {
+                record.setInt(1, migration.version());
+                record.setString(2, migration.description());
+                record.setLong(3, System.currentTimeMillis());
+                record.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Failed to migrate the database to version %d".formatted(migration.version()), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private int getVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(`version`) FROM `schema_version`;")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package info.preva1l.fadah.filters;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Everything a blacklist rule can look at, read from the item once.
+ * <p>
+ * Two items with the same facts always get the same result, so these are also what results are remembered by.
+ * </p>
+ *
+ * @param material the material of the item, {@code %material%}.
+ * @param name     the display name of the item, {@code %name%}.
+ * @param amount   the amount in the stack, {@code %amount%}.
+ * @param lore     the lines of the lore joined by new lines, {@code %lore%}.
+ */
+record ItemFacts(@NotNull String material, @NotNull String name, double amount, @NotNull String lore) {
+    static @NotNull ItemFacts of(@NotNull ItemStack item) {
+        ItemMeta meta = item.getItemMeta();
+        String name = meta == null ? "" : meta.getDisplayName();
+        List<String> lore = meta == null ? null : meta.getLore();
+        return new ItemFacts(item.getType().toString(), name == null ? "" : name, item.getAmount(),
+                lore == null ? "" : String.join("\n", lore));
+    }
+}
@@ -1,47 +1,61 @@
 package info.preva1l.fadah.filters;
 
 import info.preva1l.fadah.config.Config;
+import lombok.experimental.UtilityClass;
 import org.bukkit.inventory.ItemStack;
-import org.mozilla.javascript.Context;
-import org.mozilla.javascript.Scriptable;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Checks items against the blacklist rules from the config.
+ * <p>
+ * The rules are compiled once, and again on reload. Most are simple comparisons that the {@link RuleParser}
+ * turns into plain checks, the rest are compiled as scripts.
+ * The result for each distinct item is remembered until the rules are compiled again.
+ * </p>
+ */
+@UtilityClass
 public class Restrictions {
-    public static boolean isRestrictedItem(ItemStack item) {
-        for (String blacklist : Config.i().getBlacklists()) {
-            List<String> lore = item.getItemMeta().getLore();
-            if (lore == null) lore = new ArrayList<>();
-            blacklist = blacklist
-                    .replace("%material%", "\"" + item.getType() + "\"")
-                    .replace("%name%", "\"" + escape(item.getItemMeta().getDisplayName()) + "\"")
-                    .replace("%amount%", String.valueOf(item.getAmount()))
-                    .replace("%lore%", "\"" + escape(String.join("\n", lore)) + "\"");
-
-            boolean result;
-            try (Context cx = Context.enter()) {
-                Scriptable scope = cx.initStandardObjects();
-                result = (Boolean) cx.evaluateString(scope, blacklist, "Fadah", 1, null);
-            } catch (Exception e) {
-                e.printStackTrace();
-                return true;
-            }
+    private final int MAX_REMEMBERED = 1024;
 
-            if (result) {
-                return true;
-            }
+    private volatile Blacklist blacklist;
+
+    public boolean isRestrictedItem(@NotNull ItemStack item) {
+        if (blacklist == null) compile();
+        Blacklist current = blacklist;
+
+        ItemFacts facts = ItemFacts.of(item);
+        Boolean remembered = current.results().get(facts);
+        if (remembered != null) return remembered;
+
+        boolean restricted = current.test(facts);
+        if (current.results().size() >= MAX_REMEMBERED) current.results().clear();
+        current.results().put(facts, restricted);
+        return restricted;
+    }
+
+    /**
+     * Compile the blacklist rules from the config, replacing the current ones and everything remembered about them.
+     */
+    public synchronized void compile() {
+        List<Rule> rules = new ArrayList<>();
+        for (String source : Config.i().getBlacklists()) {
+            Rule rule = RuleParser.parse(source);
+            rules.add(rule != null ? rule : ScriptRule.compile(source));
         }
-        return false;
+        blacklist = new Blacklist(List.copyOf(rules), new ConcurrentHashMap<>());
     }
 
-    public static String escape(String input) {
-        input = input.replace("\\", "\\\\")
-                     .replace("\"", "\\\"")
-                     .replace("\'", "\\\'")
-                     .replace("\n", "\\n")
-                     .replace("\r", "\\r")
-                     .replace("`", "\\`");
-        return input;
+    private record Blacklist(List<Rule> rules, Map<ItemFacts, Boolean> results) {
+        boolean test(ItemFacts facts) {
+            for (Rule rule : rules) {
+                if (rule.test(facts)) return true;
+            }
+            return false;
+        }
     }
-}
\ No newline at end of file
+}
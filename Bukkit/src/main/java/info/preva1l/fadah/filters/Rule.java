@@ -0,0 +1,15 @@
+package info.preva1l.fadah.filters;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A compiled blacklist rule.
+ */
+@FunctionalInterface
+interface Rule {
+    /**
+     * @param facts the item being checked.
+     * @return true if the item matches the rule and may not be listed.
+     */
+    boolean test(@NotNull ItemFacts facts);
+}
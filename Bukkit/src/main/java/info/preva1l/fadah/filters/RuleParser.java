@@ -0,0 +1,238 @@
+package info.preva1l.fadah.filters;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Parses the common forms of blacklist rules into rules that are checked without a script engine.
+ * <p>
+ * Understands placeholders, string and number literals, {@code true} and {@code false},
+ * comparisons of two strings or two numbers, {@code includes}, {@code startsWith} and {@code endsWith} on strings,
+ * and {@code !}, {@code &&}, {@code ||} and brackets to combine them.
+ * Anything else, including comparisons of a string with a number, is left to a {@link ScriptRule}
+ * so it keeps behaving exactly as it always has.
+ * </p>
+ */
+final class RuleParser {
+    private final String source;
+    private int pos;
+
+    private RuleParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * @param source the rule as written in the config.
+     * @return the parsed rule, or null if the rule has to be run as a script.
+     */
+    static @Nullable Rule parse(@NotNull String source) {
+        RuleParser parser = new RuleParser(source);
+        try {
+            Rule rule = parser.or();
+            parser.skipWhitespace();
+            return parser.pos == source.length() ? rule : null;
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    private Rule or() {
+        Rule rule = and();
+        while (accept("||")) {
+            Rule left = rule, right = and();
+            rule = facts -> left.test(facts) || right.test(facts);
+        }
+        return rule;
+    }
+
+    private Rule and() {
+        Rule rule = unary(false);
+        while (accept("&&")) {
+            Rule left = rule, right = unary(false);
+            rule = facts -> left.test(facts) && right.test(facts);
+        }
+        return rule;
+    }
+
+    /**
+     * @param negated whether this follows a {@code !}, which binds tighter than a comparison.
+     */
+    private Rule unary(boolean negated) {
+        if (accept("!")) {
+            Rule rule = unary(true);
+            return facts -> !rule.test(facts);
+        }
+
+        Rule rule;
+        if (accept("(")) {
+            rule = or();
+            expect(")");
+        } else if (acceptWord("true")) {
+            rule = facts -> true;
+        } else if (acceptWord("false")) {
+            rule = facts -> false;
+        } else {
+            Operand operand = operand();
+            if (!operand.numeric() && accept(".")) {
+                rule = stringTest(operand);
+            } else if (negated) {
+                // Negates the value rather than the comparison, left to the script
+                throw Unsupported.INSTANCE;
+            } else {
+                return comparison(operand);
+            }
+        }
+
+        // Comparing the result of a test with something else, left to the script
+        skipWhitespace();
+        if (pos < source.length() && "=!<>".indexOf(source.charAt(pos)) >= 0) throw Unsupported.INSTANCE;
+        return rule;
+    }
+
+    private Rule comparison(Operand left) {
+        String operator = operator();
+        Operand right = operand();
+        if (left.numeric() != right.numeric()) throw Unsupported.INSTANCE;
+
+        if (left.numeric()) {
+            BiPredicate<Double, Double> test = switch (operator) {
+                case "==", "===" -> (a, b) -> a.doubleValue() == b.doubleValue();
+                case "!=", "!==" -> (a, b) -> a.doubleValue() != b.doubleValue();
+                case "<" -> (a, b) -> a < b;
+                case "<=" -> (a, b) -> a <= b;
+                case ">" -> (a, b) -> a > b;
+                case ">=" -> (a, b) -> a >= b;
+                default -> throw Unsupported.INSTANCE;
+            };
+            return facts -> test.test((Double) left.value().apply(facts), (Double) right.value().apply(facts));
+        }
+
+        boolean equal = switch (operator) {
+            case "==", "===" -> true;
+            case "!=", "!==" -> false;
+            default -> throw Unsupported.INSTANCE;
+        };
+        return facts -> left.value().apply(facts).equals(right.value().apply(facts)) == equal;
+    }
+
+    private Rule stringTest(Operand string) {
+        BiPredicate<String, String> test;
+        if (acceptWord("includes")) test = String::contains;
+        else if (acceptWord("startsWith")) test = String::startsWith;
+        else if (acceptWord("endsWith")) test = String::endsWith;
+        else throw Unsupported.INSTANCE;
+
+        expect("(");
+        Operand argument = operand();
+        if (argument.numeric()) throw Unsupported.INSTANCE;
+        expect(")");
+        return facts -> test.test((String) string.value().apply(facts), (String) argument.value().apply(facts));
+    }
+
+    private String operator() {
+        for (String operator : new String[]{"===", "!==", "==", "!=", "<=", ">=", "<", ">"}) {
+            if (accept(operator)) return operator;
+        }
+        throw Unsupported.INSTANCE;
+    }
+
+    private Operand operand() {
+        if (accept("%material%")) return new Operand(false, ItemFacts::material);
+        if (accept("%name%")) return new Operand(false, ItemFacts::name);
+        if (accept("%lore%")) return new Operand(false, ItemFacts::lore);
+        if (accept("%amount%")) return new Operand(true, ItemFacts::amount);
+
+        skipWhitespace();
+        if (pos >= source.length()) throw Unsupported.INSTANCE;
+        char c = source.charAt(pos);
+        if (c == '"' || c == '\'') {
+            String string = string();
+            return new Operand(false, facts -> string);
+        }
+        if (c == '-' || Character.isDigit(c)) {
+            Double number = number();
+            return new Operand(true, facts -> number);
+        }
+        throw Unsupported.INSTANCE;
+    }
+
+    private String string() {
+        char quote = source.charAt(pos++);
+        StringBuilder string = new StringBuilder();
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c == quote) return string.toString();
+            if (c != '\\') {
+                string.append(c);
+                continue;
+            }
+            if (pos >= source.length()) break;
+            char escaped = source.charAt(pos++);
+            switch (escaped) {
+                case 'n' -> string.append('\n');
+                case 'r' -> string.append('\r');
+                case 't' -> string.append('\t');
+                case '\\', '"', '\'', '`' -> string.append(escaped);
+                default -> throw Unsupported.INSTANCE;
+            }
+        }
+        throw Unsupported.INSTANCE;
+    }
+
+    private Double number() {
+        int start = pos;
+        if (source.charAt(pos) == '-') pos++;
+        int digits = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) pos++;
+        if (pos == digits || (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos)))) {
+            throw Unsupported.INSTANCE;
+        }
+        try {
+            return Double.parseDouble(source.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw Unsupported.INSTANCE;
+        }
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (!source.startsWith(token, pos)) return false;
+        pos += token.length();
+        return true;
+    }
+
+    /**
+     * Like {@link #accept(String)}, but only when the word is not the start of a longer name.
+     */
+    private boolean acceptWord(String word) {
+        skipWhitespace();
+        int end = pos + word.length();
+        if (!source.startsWith(word, pos)
+                || (end < source.length() && Character.isJavaIdentifierPart(source.charAt(end)))) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) throw Unsupported.INSTANCE;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) pos++;
+    }
+
+    private record Operand(boolean numeric, Function<ItemFacts, Object> value) {}
+
+    private static final class Unsupported extends RuntimeException {
+        private static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
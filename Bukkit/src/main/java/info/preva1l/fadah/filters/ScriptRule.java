@@ -0,0 +1,71 @@
+package info.preva1l.fadah.filters;
+
+import info.preva1l.fadah.Fadah;
+import org.jetbrains.annotations.NotNull;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.util.logging.Level;
+
+/**
+ * A blacklist rule the {@link RuleParser} does not understand, compiled once as a script.
+ * <p>
+ * The placeholders are turned into variables set on a fresh scope for every item, rather than pasted into the source,
+ * so the script never has to be compiled again and names or lore cannot break out of their quotes.
+ * </p>
+ */
+final class ScriptRule implements Rule {
+    private static final ScriptableObject STANDARD_OBJECTS;
+
+    static {
+        try (Context cx = Context.enter()) {
+            // Sealed, so the one set of standard objects can be shared by every evaluation
+            STANDARD_OBJECTS = cx.initStandardObjects(null, true);
+        }
+    }
+
+    private final String source;
+    private final Script script;
+
+    private ScriptRule(String source, Script script) {
+        this.source = source;
+        this.script = script;
+    }
+
+    /**
+     * @param source the rule as written in the config.
+     * @return the compiled rule, or one that matches every item if it does not compile.
+     */
+    static @NotNull Rule compile(@NotNull String source) {
+        String script = source
+                .replace("%material%", "$material")
+                .replace("%name%", "$name")
+                .replace("%amount%", "$amount")
+                .replace("%lore%", "$lore");
+        try (Context cx = Context.enter()) {
+            return new ScriptRule(source, cx.compileString(script, "Fadah", 1, null));
+        } catch (Exception e) {
+            Fadah.getConsole().log(Level.SEVERE, "Failed to compile the blacklist rule: " + source, e);
+            return facts -> true;
+        }
+    }
+
+    @Override
+    public boolean test(@NotNull ItemFacts facts) {
+        try (Context cx = Context.enter()) {
+            Scriptable scope = cx.newObject(STANDARD_OBJECTS);
+            scope.setPrototype(STANDARD_OBJECTS);
+            scope.setParentScope(null);
+            ScriptableObject.putProperty(scope, "$material", facts.material());
+            ScriptableObject.putProperty(scope, "$name", facts.name());
+            ScriptableObject.putProperty(scope, "$amount", facts.amount());
+            ScriptableObject.putProperty(scope, "$lore", facts.lore());
+            return Context.toBoolean(script.exec(cx, scope));
+        } catch (Exception e) {
+            Fadah.getConsole().log(Level.SEVERE, "Failed to check the blacklist rule: " + source, e);
+            return true;
+        }
+    }
+}
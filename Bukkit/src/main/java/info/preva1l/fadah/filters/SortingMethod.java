@@ -1,6 +1,7 @@
 package info.preva1l.fadah.filters;
 
 import info.preva1l.fadah.config.Lang;
+import info.preva1l.fadah.records.CurrentListing;
 import info.preva1l.fadah.records.Listing;
 import info.preva1l.fadah.utils.StringUtils;
 import lombok.AllArgsConstructor;
@@ -66,11 +67,14 @@ public enum SortingMethod {
     private static class AlphabeticalComparator implements Comparator<Listing> {
         @Override
         public int compare(Listing o1, Listing o2) {
-            String check1 = o1.getItemStack().hasItemMeta() ? (o1.getItemStack().getItemMeta().hasDisplayName() ?
-                    StringUtils.removeColorCodes(o1.getItemStack().getItemMeta().getDisplayName()) : o1.getItemStack().getType().name()) : o1.getItemStack().getType().name();
-            String check2 = o2.getItemStack().hasItemMeta() ? (o2.getItemStack().getItemMeta().hasDisplayName() ?
-                    StringUtils.removeColorCodes(o2.getItemStack().getItemMeta().getDisplayName()) : o2.getItemStack().getType().name()) : o2.getItemStack().getType().name();
-            return check1.compareToIgnoreCase(check2);
+            return sortKey(o1).compareTo(sortKey(o2));
+        }
+
+        private String sortKey(Listing listing) {
+            if (listing instanceof CurrentListing current) {
+                return current.getSortKey();
+            }
+            return StringUtils.extractSortKey(listing.getItemStack());
         }
     }
 }
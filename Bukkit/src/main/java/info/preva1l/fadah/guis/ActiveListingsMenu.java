@@ -1,19 +1,21 @@
 package info.preva1l.fadah.guis;
 
+import info.preva1l.fadah.cache.CacheBus;
 import info.preva1l.fadah.cache.CategoryCache;
 import info.preva1l.fadah.cache.ListingCache;
+import info.preva1l.fadah.cache.ListingDisplayCache;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.records.Listing;
 import info.preva1l.fadah.utils.StringUtils;
-import info.preva1l.fadah.utils.TimeUtil;
 import info.preva1l.fadah.utils.guis.*;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ActiveListingsMenu extends PaginatedFastInv {
     private final Player viewer;
@@ -28,8 +30,7 @@ public class ActiveListingsMenu extends PaginatedFastInv {
                 List.of(10, 11, 12, 13, 14, 15, 16, 19, 20, 21, 22, 23, 24, 25, 28, 29, 30, 31, 32, 33, 34));
         this.viewer = viewer;
         this.owner = owner;
-        this.listings = new ArrayList<>(ListingCache.getListings().values());
-        listings.removeIf(listing -> !listing.isOwner(owner.getUniqueId()));
+        this.listings = ListingCache.getListingsByOwner(owner.getUniqueId());
 
         List<Integer> fillerSlots = getLayout().fillerSlots();
         if (!fillerSlots.isEmpty()) {
@@ -37,25 +38,32 @@ public class ActiveListingsMenu extends PaginatedFastInv {
                     GuiHelper.constructButton(GuiButtonType.BORDER));
         }
         addNavigationButtons();
-        fillPaginationItems();
         populatePage();
         addPaginationControls();
     }
 
     @Override
-    protected synchronized void fillPaginationItems() {
-        for (Listing listing : listings) {
-            ItemBuilder itemStack = new ItemBuilder(listing.getItemStack().clone())
-                    .addLore(getLang().getLore("lore", StringUtils.removeColorCodes(CategoryCache.getCatName(listing.getCategoryID())),
-                            new DecimalFormat(Config.i().getDecimalFormat()).format(listing.getPrice()),
-                            TimeUtil.formatTimeUntil(listing.getDeletionDate())));
+    protected int getPaginationSize() {
+        return listings.size();
+    }
 
-            addPaginationItem(new PaginatedItem(itemStack.build(), e -> {
-                if (listing.cancel(viewer)) {
-                    updatePagination();
-                }
-            }));
-        }
+    @Override
+    protected @NotNull Supplier<PaginatedItem> itemRenderer(int index) {
+        Listing listing = listings.get(index);
+        return () -> renderItem(listing);
+    }
+
+    private @NotNull PaginatedItem renderItem(Listing listing) {
+        ItemBuilder itemStack = new ItemBuilder(ListingDisplayCache.getDisplayItem(getMenuType(), listing, () ->
+                getLang().getLore("lore", StringUtils.removeColorCodes(CategoryCache.getCatName(listing.getCategoryID())),
+                        new DecimalFormat(Config.i().getDecimalFormat()).format(listing.getPrice()),
+                        ListingDisplayCache.TIME_PLACEHOLDER)));
+
+        return new PaginatedItem(itemStack.build(), e -> {
+            if (listing.cancel(viewer)) {
+                updatePagination();
+            }
+        }, shown -> ListingDisplayCache.updateTime(getMenuType(), listing, shown));
     }
 
     @Override
@@ -76,11 +84,14 @@ public class ActiveListingsMenu extends PaginatedFastInv {
     }
 
     @Override
-    protected void updatePagination() {
+    protected long getSourceVersion() {
+        return CacheBus.version(CacheBus.Topic.LISTINGS, owner.getUniqueId());
+    }
+
+    @Override
+    protected void loadSource() {
         this.listings.clear();
-        this.listings.addAll(ListingCache.getListings().values());
-        listings.removeIf(listing -> !listing.isOwner(owner.getUniqueId()));
-        super.updatePagination();
+        this.listings.addAll(ListingCache.getListingsByOwner(owner.getUniqueId()));
     }
 
     private void addNavigationButtons() {
@@ -2,10 +2,15 @@ package info.preva1l.fadah.guis;
 
 import com.github.puregero.multilib.MultiLib;
 import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.cache.CacheBus;
 import info.preva1l.fadah.cache.CollectionBoxCache;
 import info.preva1l.fadah.cache.HistoricItemsCache;
+import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.data.DatabaseManager;
+import info.preva1l.fadah.multiserver.Delta;
+import info.preva1l.fadah.multiserver.Message;
+import info.preva1l.fadah.multiserver.Payload;
 import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.CollectionBox;
 import info.preva1l.fadah.records.HistoricItem;
@@ -15,9 +20,12 @@ import info.preva1l.fadah.utils.TimeUtil;
 import info.preva1l.fadah.utils.guis.*;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class CollectionBoxMenu extends PaginatedFastInv {
     private final Player viewer;
@@ -42,45 +50,60 @@ public class CollectionBoxMenu extends PaginatedFastInv {
         setPaginationMappings(getLayout().paginationSlots());
 
         addNavigationButtons();
-        fillPaginationItems();
         populatePage();
         addPaginationControls();
     }
 
     @Override
-    protected synchronized void fillPaginationItems() {
-        for (CollectableItem collectableItem : collectionBox) {
-            ItemBuilder itemBuilder = new ItemBuilder(collectableItem.itemStack().clone())
-                    .lore(getLang().getLore("lore", TimeUtil.formatTimeSince(collectableItem.dateAdded())));
-
-            addPaginationItem(new PaginatedItem(itemBuilder.build(), e -> {
-                MultiLib.getEntityScheduler(viewer).execute(Fadah.getINSTANCE(), () -> {
-                    int slot = viewer.getInventory().firstEmpty();
-                    if (slot == -1) {
-                        Lang.sendMessage(viewer, Lang.i().getPrefix() + Lang.i().getErrors().getInventoryFull());
-                        return;
-                    }
-                    if (!CollectionBoxCache.doesItemExist(player.getUniqueId(), collectableItem)) {
-                        Lang.sendMessage(viewer, Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist());
-                        return;
-                    }
-                    CollectionBoxCache.removeItem(owner.getUniqueId(), collectableItem);
-                    DatabaseManager.getInstance().save(CollectionBox.class, new CollectionBox(owner.getUniqueId(), collectionBox));
-                    viewer.getInventory().setItem(slot, collectableItem.itemStack());
-
-                    updatePagination();
-
-                    // In game logs
-                    boolean isAdmin = viewer.getUniqueId() != owner.getUniqueId();
-                    HistoricItem historicItem = new HistoricItem(owner.getUniqueId(), Instant.now().toEpochMilli(),
-                            isAdmin ? HistoricItem.LoggedAction.COLLECTION_BOX_ADMIN_CLAIM
-                                    : HistoricItem.LoggedAction.COLLECTION_BOX_CLAIM,
-                            collectableItem.itemStack(), null, null);
-                    HistoricItemsCache.addLog(owner.getUniqueId(), historicItem);
-                    DatabaseManager.getInstance().save(History.class, History.of(owner.getUniqueId()));
-                }, null, 0L);
-            }));
-        }
+    protected int getPaginationSize() {
+        return collectionBox.size();
+    }
+
+    @Override
+    protected @NotNull Supplier<PaginatedItem> itemRenderer(int index) {
+        CollectableItem collectableItem = collectionBox.get(index);
+        return () -> renderItem(collectableItem);
+    }
+
+    private @NotNull PaginatedItem renderItem(CollectableItem collectableItem) {
+        ItemBuilder itemBuilder = new ItemBuilder(collectableItem.itemStack().clone())
+                .lore(getLang().getLore("lore", TimeUtil.formatTimeSince(collectableItem.dateAdded())));
+
+        return new PaginatedItem(itemBuilder.build(), e -> {
+            MultiLib.getEntityScheduler(viewer).execute(Fadah.getINSTANCE(), () -> {
+                int slot = viewer.getInventory().firstEmpty();
+                if (slot == -1) {
+                    Lang.sendMessage(viewer, Lang.i().getPrefix() + Lang.i().getErrors().getInventoryFull());
+                    return;
+                }
+                if (!CollectionBoxCache.doesItemExist(owner.getUniqueId(), collectableItem)) {
+                    Lang.sendMessage(viewer, Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist());
+                    return;
+                }
+                CollectionBoxCache.removeItem(owner.getUniqueId(), collectableItem);
+                CompletableFuture<Void> deleted = DatabaseManager.getInstance()
+                        .deleteSpecific(CollectionBox.class, CollectionBox.of(owner.getUniqueId()), collectableItem);
+                if (Config.i().getBroker().isEnabled()) {
+                    deleted.thenRun(() -> Message.builder()
+                            .type(Message.Type.COLLECTION_BOX_UPDATE)
+                            .payload(Payload.withDelta(owner.getUniqueId(), Delta.removed(collectableItem)))
+                            .build().send(Fadah.getINSTANCE().getBroker()));
+                }
+                viewer.getInventory().setItem(slot, collectableItem.itemStack());
+
+                updatePagination();
+
+                // In game logs
+                boolean isAdmin = viewer.getUniqueId() != owner.getUniqueId();
+                HistoricItem historicItem = new HistoricItem(owner.getUniqueId(), Instant.now().toEpochMilli(),
+                        isAdmin ? HistoricItem.LoggedAction.COLLECTION_BOX_ADMIN_CLAIM
+                                : HistoricItem.LoggedAction.COLLECTION_BOX_CLAIM,
+                        collectableItem.itemStack(), null, null);
+                HistoricItemsCache.addLog(owner.getUniqueId(), historicItem);
+                DatabaseManager.getInstance().saveSpecific(History.class, History.of(owner.getUniqueId()), historicItem);
+            }, null, 0L);
+        }, shown ->
+                replaceLore(shown, 0, getLang().getLore("lore", TimeUtil.formatTimeSince(collectableItem.dateAdded()))));
     }
 
     @Override
@@ -101,10 +124,14 @@ public class CollectionBoxMenu extends PaginatedFastInv {
     }
 
     @Override
-    protected void updatePagination() {
+    protected long getSourceVersion() {
+        return CacheBus.version(CacheBus.Topic.COLLECTION_BOX, owner.getUniqueId());
+    }
+
+    @Override
+    protected void loadSource() {
         this.collectionBox.clear();
-        this.collectionBox.addAll(CollectionBoxCache.getCollectionBox(player.getUniqueId()));
-        super.updatePagination();
+        this.collectionBox.addAll(CollectionBoxCache.getCollectionBox(owner.getUniqueId()));
     }
 
     private void addNavigationButtons() {
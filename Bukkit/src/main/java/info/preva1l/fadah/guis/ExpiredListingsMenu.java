@@ -2,10 +2,15 @@ package info.preva1l.fadah.guis;
 
 import com.github.puregero.multilib.MultiLib;
 import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.cache.CacheBus;
 import info.preva1l.fadah.cache.ExpiredListingsCache;
 import info.preva1l.fadah.cache.HistoricItemsCache;
+import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.data.DatabaseManager;
+import info.preva1l.fadah.multiserver.Delta;
+import info.preva1l.fadah.multiserver.Message;
+import info.preva1l.fadah.multiserver.Payload;
 import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.ExpiredItems;
 import info.preva1l.fadah.records.HistoricItem;
@@ -15,9 +20,13 @@ import info.preva1l.fadah.utils.TimeUtil;
 import info.preva1l.fadah.utils.guis.*;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class ExpiredListingsMenu extends PaginatedFastInv {
     private final Player viewer;
@@ -43,45 +52,62 @@ public class ExpiredListingsMenu extends PaginatedFastInv {
         setPaginationMappings(getLayout().paginationSlots());
 
         addNavigationButtons();
-        fillPaginationItems();
         populatePage();
         addPaginationControls();
     }
 
     @Override
-    protected synchronized void fillPaginationItems() {
-        for (CollectableItem collectableItem : expiredItems) {
-            ItemBuilder itemStack = new ItemBuilder(collectableItem.itemStack().clone())
-                    .addLore(getLang().getLore("lore", TimeUtil.formatTimeSince(collectableItem.dateAdded())));
-
-            addPaginationItem(new PaginatedItem(itemStack.build(), e -> {
-                MultiLib.getEntityScheduler(viewer).execute(Fadah.getINSTANCE(), () -> {
-                    int slot = viewer.getInventory().firstEmpty();
-                    if (slot == -1) {
-
-                        Lang.sendMessage(viewer, Lang.i().getPrefix() + Lang.i().getErrors().getInventoryFull());
-                        return;
-                    }
-                    if (!ExpiredListingsCache.doesItemExist(player.getUniqueId(), collectableItem)) {
-                        Lang.sendMessage(viewer, StringUtils.colorize(Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist()));
-                        return;
-                    }
-                    ExpiredListingsCache.removeItem(owner.getUniqueId(), collectableItem);
-                    DatabaseManager.getInstance().save(ExpiredItems.class, ExpiredItems.of(owner.getUniqueId()));
-                    viewer.getInventory().setItem(slot, collectableItem.itemStack());
-
-                    updatePagination();
-
-                    // In game logs
-                    boolean isAdmin = viewer.getUniqueId() != owner.getUniqueId();
-                    HistoricItem historicItem = new HistoricItem(owner.getUniqueId(), Instant.now().toEpochMilli(),
-                            isAdmin ? HistoricItem.LoggedAction.EXPIRED_ITEM_ADMIN_CLAIM : HistoricItem.LoggedAction.EXPIRED_ITEM_CLAIM,
-                            collectableItem.itemStack(), null, null);
-                    HistoricItemsCache.addLog(owner.getUniqueId(), historicItem);
-                    DatabaseManager.getInstance().save(History.class, History.of(owner.getUniqueId()));
-                },null, 0L);
-            }));
-        }
+    protected int getPaginationSize() {
+        return expiredItems.size();
+    }
+
+    @Override
+    protected @NotNull Supplier<PaginatedItem> itemRenderer(int index) {
+        CollectableItem collectableItem = expiredItems.get(index);
+        return () -> renderItem(collectableItem);
+    }
+
+    private @NotNull PaginatedItem renderItem(CollectableItem collectableItem) {
+        ItemBuilder itemStack = new ItemBuilder(collectableItem.itemStack().clone())
+                .addLore(getLang().getLore("lore", TimeUtil.formatTimeSince(collectableItem.dateAdded())));
+        ItemMeta meta = collectableItem.itemStack().getItemMeta();
+        int ownLore = meta == null || meta.getLore() == null ? 0 : meta.getLore().size();
+
+        return new PaginatedItem(itemStack.build(), e -> {
+            MultiLib.getEntityScheduler(viewer).execute(Fadah.getINSTANCE(), () -> {
+                int slot = viewer.getInventory().firstEmpty();
+                if (slot == -1) {
+
+                    Lang.sendMessage(viewer, Lang.i().getPrefix() + Lang.i().getErrors().getInventoryFull());
+                    return;
+                }
+                if (!ExpiredListingsCache.doesItemExist(owner.getUniqueId(), collectableItem)) {
+                    Lang.sendMessage(viewer, StringUtils.colorize(Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist()));
+                    return;
+                }
+                ExpiredListingsCache.removeItem(owner.getUniqueId(), collectableItem);
+                CompletableFuture<Void> deleted = DatabaseManager.getInstance()
+                        .deleteSpecific(ExpiredItems.class, ExpiredItems.of(owner.getUniqueId()), collectableItem);
+                if (Config.i().getBroker().isEnabled()) {
+                    deleted.thenRun(() -> Message.builder()
+                            .type(Message.Type.EXPIRED_LISTINGS_UPDATE)
+                            .payload(Payload.withDelta(owner.getUniqueId(), Delta.removed(collectableItem)))
+                            .build().send(Fadah.getINSTANCE().getBroker()));
+                }
+                viewer.getInventory().setItem(slot, collectableItem.itemStack());
+
+                updatePagination();
+
+                // In game logs
+                boolean isAdmin = viewer.getUniqueId() != owner.getUniqueId();
+                HistoricItem historicItem = new HistoricItem(owner.getUniqueId(), Instant.now().toEpochMilli(),
+                        isAdmin ? HistoricItem.LoggedAction.EXPIRED_ITEM_ADMIN_CLAIM : HistoricItem.LoggedAction.EXPIRED_ITEM_CLAIM,
+                        collectableItem.itemStack(), null, null);
+                HistoricItemsCache.addLog(owner.getUniqueId(), historicItem);
+                DatabaseManager.getInstance().saveSpecific(History.class, History.of(owner.getUniqueId()), historicItem);
+            },null, 0L);
+        }, shown ->
+                replaceLore(shown, ownLore, getLang().getLore("lore", TimeUtil.formatTimeSince(collectableItem.dateAdded()))));
     }
 
     @Override
@@ -102,10 +128,14 @@ public class ExpiredListingsMenu extends PaginatedFastInv {
     }
 
     @Override
-    protected void updatePagination() {
+    protected long getSourceVersion() {
+        return CacheBus.version(CacheBus.Topic.EXPIRED_LISTINGS, owner.getUniqueId());
+    }
+
+    @Override
+    protected void loadSource() {
         this.expiredItems.clear();
-        this.expiredItems.addAll(ExpiredListingsCache.getExpiredListings(player.getUniqueId()));
-        super.updatePagination();
+        this.expiredItems.addAll(ExpiredListingsCache.getExpiredListings(owner.getUniqueId()));
     }
 
     private void addNavigationButtons() {
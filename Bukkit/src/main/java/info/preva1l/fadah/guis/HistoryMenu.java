@@ -1,9 +1,14 @@
 package info.preva1l.fadah.guis;
 
+import com.github.puregero.multilib.MultiLib;
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.cache.CacheBus;
 import info.preva1l.fadah.cache.HistoricItemsCache;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
+import info.preva1l.fadah.data.DatabaseManager;
 import info.preva1l.fadah.records.HistoricItem;
+import info.preva1l.fadah.records.History;
 import info.preva1l.fadah.utils.StringUtils;
 import info.preva1l.fadah.utils.TimeUtil;
 import info.preva1l.fadah.utils.guis.*;
@@ -11,15 +16,27 @@ import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.DecimalFormat;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class HistoryMenu extends PaginatedFastInv {
     private final Player viewer;
     private final OfflinePlayer owner;
+    private final @Nullable String dateSearch;
+    // Every entry read so far, newest first, older pages are read from the database as the viewer reaches them
+    private final List<HistoricItem> loaded;
     private final List<HistoricItem> historicItems;
+    // Only entries logged before this are left to read
+    private volatile long cursor = Long.MAX_VALUE;
+    private volatile boolean exhausted;
+    private volatile boolean loading = false;
 
     public HistoryMenu(Player viewer, OfflinePlayer owner, @Nullable String dateSearch) {
         super(LayoutManager.MenuType.HISTORY.getLayout().guiSize(), LayoutManager.MenuType.HISTORY.getLayout().formattedTitle(
@@ -30,11 +47,19 @@ public class HistoryMenu extends PaginatedFastInv {
                 List.of(10, 11, 12, 13, 14, 15, 16, 19, 20, 21, 22, 23, 24, 25, 28, 29, 30, 31, 32, 33, 34));
         this.viewer = viewer;
         this.owner = owner;
-        this.historicItems = HistoricItemsCache.getHistory(owner.getUniqueId());
-
-        if (dateSearch != null) {
-            this.historicItems.removeIf(historicItem -> !TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate()).contains(dateSearch));
+        this.dateSearch = dateSearch;
+        this.loaded = new CopyOnWriteArrayList<>(HistoricItemsCache.getHistory(owner.getUniqueId()));
+        // Only loaded players are cached, anyone else has to be read from the database from the first page on
+        boolean cached = !loaded.isEmpty();
+        // The cache holds a full page when there may be more in the database
+        this.exhausted = cached && loaded.size() < Config.i().getHistory().getCachedEntries();
+        if (cached && !exhausted) {
+            // The cache may have cut the oldest millisecond short, so it is read again in full with the next page
+            long oldest = loaded.get(loaded.size() - 1).getLoggedDate();
+            loaded.removeIf(historicItem -> historicItem.getLoggedDate() == oldest);
+            cursor = oldest + 1;
         }
+        this.historicItems = new CopyOnWriteArrayList<>(loaded.stream().filter(this::matchesSearch).toList());
 
         List<Integer> fillerSlots = getLayout().fillerSlots();
         if (!fillerSlots.isEmpty()) {
@@ -44,42 +69,129 @@ public class HistoryMenu extends PaginatedFastInv {
         setPaginationMappings(getLayout().paginationSlots());
 
         addNavigationButtons();
-        fillPaginationItems();
         populatePage();
         addPaginationControls();
+
+        if (!cached) {
+            loading = true;
+            loadUntil(getLayout().paginationSlots().size()).whenComplete((ignored, throwable) -> {
+                loading = false;
+                MultiLib.getEntityScheduler(viewer).execute(Fadah.getINSTANCE(), () -> {
+                    populatePage();
+                    addPaginationControls();
+                }, null, 0L);
+            });
+        }
+    }
+
+    @Override
+    protected void nextPage() {
+        int needed = (page + 2) * getLayout().paginationSlots().size();
+        if (exhausted || historicItems.size() >= needed) {
+            super.nextPage();
+            return;
+        }
+        if (loading) return;
+        loading = true;
+        loadUntil(needed).whenComplete((ignored, throwable) -> {
+            loading = false;
+            MultiLib.getEntityScheduler(viewer).execute(Fadah.getINSTANCE(), super::nextPage, null, 0L);
+        });
+    }
+
+    /**
+     * Read older pages until enough entries match the search, or there is nothing older left.
+     */
+    private CompletableFuture<Void> loadUntil(int needed) {
+        if (exhausted || historicItems.size() >= needed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int limit = Config.i().getHistory().getCachedEntries();
+        return DatabaseManager.getInstance().getPage(History.class, owner.getUniqueId(), cursor, limit)
+                .thenCompose(page -> {
+                    List<HistoricItem> older = page.map(History::collectableItems).orElse(List.of());
+                    if (older.isEmpty()) {
+                        exhausted = true;
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    synchronized (this) {
+                        // Pages never split a millisecond, so the next one starts strictly before this one ends
+                        cursor = older.get(older.size() - 1).getLoggedDate();
+                        exhausted = older.size() < limit;
+                        loaded.addAll(older);
+                        historicItems.addAll(older.stream().filter(this::matchesSearch).toList());
+                    }
+                    return loadUntil(needed);
+                });
+    }
+
+    private boolean matchesSearch(HistoricItem historicItem) {
+        return dateSearch == null || TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate()).contains(dateSearch);
+    }
+
+    @Override
+    protected int getPaginationSize() {
+        return historicItems.size();
+    }
+
+    @Override
+    protected @NotNull Supplier<PaginatedItem> itemRenderer(int index) {
+        HistoricItem historicItem = historicItems.get(index);
+        return () -> renderItem(historicItem);
+    }
+
+    private @NotNull PaginatedItem renderItem(HistoricItem historicItem) {
+        ItemBuilder itemStack = new ItemBuilder(historicItem.getItemStack().clone());
+        if (historicItem.getPurchaserUUID() != null) {
+            itemStack.addLore(historicItem.getAction() == HistoricItem.LoggedAction.LISTING_SOLD
+                    ? getLang().getLore("lore-with-buyer",
+                    historicItem.getAction().getLocaleActionName(),
+                    Bukkit.getOfflinePlayer(historicItem.getPurchaserUUID()).getName(),
+                    new DecimalFormat(Config.i().getDecimalFormat()).format(historicItem.getPrice()),
+                    TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate()))
+
+                    : getLang().getLore("lore-with-seller",
+                    historicItem.getAction().getLocaleActionName(),
+                    Bukkit.getOfflinePlayer(historicItem.getPurchaserUUID()).getName(),
+                    new DecimalFormat(Config.i().getDecimalFormat()).format(historicItem.getPrice()),
+                    TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate()))
+            );
+        } else if (historicItem.getPrice() != null && historicItem.getPrice() != 0d) {
+            itemStack.addLore(getLang().getLore("lore-with-price",
+                    historicItem.getAction().getLocaleActionName(),
+                    new DecimalFormat(Config.i().getDecimalFormat()).format(historicItem.getPrice()),
+                    TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate())
+            ));
+        } else {
+            itemStack.addLore(getLang().getLore("lore",
+                    historicItem.getAction().getLocaleActionName(),
+                    TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate())
+            ));
+        }
+        return new PaginatedItem(itemStack.build(), (e) -> {});
+    }
+
+    @Override
+    protected long getSourceVersion() {
+        return CacheBus.version(CacheBus.Topic.HISTORY, owner.getUniqueId());
     }
 
+    /**
+     * Adds entries logged since the menu was opened, the pages already read from the database are kept.
+     */
     @Override
-    protected synchronized void fillPaginationItems() {
-        for (HistoricItem historicItem : historicItems) {
-            ItemBuilder itemStack = new ItemBuilder(historicItem.getItemStack().clone());
-            if (historicItem.getPurchaserUUID() != null) {
-                itemStack.addLore(historicItem.getAction() == HistoricItem.LoggedAction.LISTING_SOLD
-                        ? getLang().getLore("lore-with-buyer",
-                        historicItem.getAction().getLocaleActionName(),
-                        Bukkit.getOfflinePlayer(historicItem.getPurchaserUUID()).getName(),
-                        new DecimalFormat(Config.i().getDecimalFormat()).format(historicItem.getPrice()),
-                        TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate()))
-
-                        : getLang().getLore("lore-with-seller",
-                        historicItem.getAction().getLocaleActionName(),
-                        Bukkit.getOfflinePlayer(historicItem.getPurchaserUUID()).getName(),
-                        new DecimalFormat(Config.i().getDecimalFormat()).format(historicItem.getPrice()),
-                        TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate()))
-                );
-            } else if (historicItem.getPrice() != null && historicItem.getPrice() != 0d) {
-                itemStack.addLore(getLang().getLore("lore-with-price",
-                        historicItem.getAction().getLocaleActionName(),
-                        new DecimalFormat(Config.i().getDecimalFormat()).format(historicItem.getPrice()),
-                        TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate())
-                ));
-            } else {
-                itemStack.addLore(getLang().getLore("lore",
-                        historicItem.getAction().getLocaleActionName(),
-                        TimeUtil.formatTimeToVisualDate(historicItem.getLoggedDate())
-                ));
-            }
-            addPaginationItem(new PaginatedItem(itemStack.build(), (e) -> {}));
+    protected void loadSource() {
+        Set<UUID> known = loaded.stream().map(HistoricItem::getId).collect(Collectors.toSet());
+        // Entries before the cursor are still to be read from the database with the older pages
+        List<HistoricItem> logged = HistoricItemsCache.getHistory(owner.getUniqueId()).stream()
+                .filter(historicItem -> !known.contains(historicItem.getId()))
+                .filter(historicItem -> exhausted || historicItem.getLoggedDate() >= cursor)
+                .toList();
+        if (!logged.isEmpty()) {
+            loaded.addAll(0, logged);
+            loaded.sort(Comparator.comparingLong(HistoricItem::getLoggedDate).reversed());
+            historicItems.clear();
+            historicItems.addAll(loaded.stream().filter(this::matchesSearch).toList());
         }
     }
 
@@ -94,7 +206,7 @@ public class HistoryMenu extends PaginatedFastInv {
                     GuiHelper.constructButton(GuiButtonType.PREVIOUS_PAGE), e -> previousPage());
         }
 
-        if (historicItems != null && historicItems.size() >= index + 1) {
+        if (historicItems != null && (historicItems.size() >= index + 1 || !exhausted)) {
             setItem(getLayout().buttonSlots().getOrDefault(LayoutManager.ButtonType.PAGINATION_CONTROL_TWO,-1),
                     GuiHelper.constructButton(GuiButtonType.NEXT_PAGE), e -> nextPage());
         }
@@ -1,7 +1,10 @@
 package info.preva1l.fadah.guis;
 
+import info.preva1l.fadah.cache.CacheBus;
 import info.preva1l.fadah.cache.CategoryCache;
 import info.preva1l.fadah.cache.ListingCache;
+import info.preva1l.fadah.cache.ListingDisplayCache;
+import info.preva1l.fadah.cache.SearchIndex;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.filters.SortingDirection;
@@ -10,19 +13,19 @@ import info.preva1l.fadah.records.Category;
 import info.preva1l.fadah.records.Listing;
 import info.preva1l.fadah.utils.CooldownManager;
 import info.preva1l.fadah.utils.StringUtils;
-import info.preva1l.fadah.utils.TimeUtil;
 import info.preva1l.fadah.utils.guis.*;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemFlag;
-import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 public class MainMenu extends ScrollBarFastInv {
     private Category category;
@@ -37,23 +40,13 @@ public class MainMenu extends ScrollBarFastInv {
                     @Nullable SortingMethod sortingMethod, @Nullable SortingDirection sortingDirection) {
         super(LayoutManager.MenuType.MAIN.getLayout().guiSize(), LayoutManager.MenuType.MAIN.getLayout().guiTitle(), player, LayoutManager.MenuType.MAIN);
         this.category = category;
-        this.listings = new ArrayList<>(ListingCache.getListings().values());
+        this.listings = new ArrayList<>();
 
         this.search = search;
         this.sortingMethod = (sortingMethod == null ? SortingMethod.AGE : sortingMethod);
         this.sortingDirection = (sortingDirection == null ? SortingDirection.ASCENDING : sortingDirection);
 
-        listings.sort(this.sortingMethod.getSorter(this.sortingDirection));
-
-        if (category != null) {
-            listings.removeIf(listing -> !listing.getCategoryID().equals(category.id()));
-        }
-        if (search != null) {
-            listings.removeIf(listing -> !(listing.getItemStack().getType().name().toUpperCase().contains(search.toUpperCase())
-                    || listing.getItemStack().getType().name().toUpperCase().contains(search.replace(" ", "_").toUpperCase()))
-                    && !checkForStringInItem(search.toUpperCase(), listing.getItemStack())
-                    && !checkForEnchantmentOnBook(search.toUpperCase(), listing.getItemStack()));
-        }
+        loadListings();
 
         List<Integer> fillerSlots = getLayout().fillerSlots();
         if (!fillerSlots.isEmpty()) {
@@ -68,7 +61,6 @@ public class MainMenu extends ScrollBarFastInv {
         addFilterButtons();
 
         fillScrollbarItems();
-        fillPaginationItems();
 
         populateScrollbar();
 
@@ -77,24 +69,6 @@ public class MainMenu extends ScrollBarFastInv {
         addPaginationControls();
     }
 
-    private boolean checkForEnchantmentOnBook(String enchant, ItemStack enchantedBook) {
-        if (enchantedBook.getType() == Material.ENCHANTED_BOOK) {
-            for (Enchantment enchantment : enchantedBook.getEnchantments().keySet()) {
-                if (enchantment.getKey().getKey().toUpperCase().contains(enchant)) return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean checkForStringInItem(String toCheck, ItemStack item) {
-        if (item.hasItemMeta()) {
-            return item.getItemMeta().getDisplayName().toUpperCase().contains(toCheck.toUpperCase())
-                    || (item.getItemMeta().getLore() != null
-                    && item.getItemMeta().getLore().contains(toCheck.toUpperCase()));
-        }
-        return false;
-    }
-
     @Override
     public void fillScrollbarItems() {
         for (Category cat : CategoryCache.getCategories()) {
@@ -130,64 +104,73 @@ public class MainMenu extends ScrollBarFastInv {
     }
 
     @Override
-    protected synchronized void fillPaginationItems() {
-        for (Listing listing : listings) {
+    protected int getPaginationSize() {
+        return listings.size();
+    }
+
+    @Override
+    protected @NotNull Supplier<PaginatedItem> itemRenderer(int index) {
+        Listing listing = listings.get(index);
+        return () -> renderItem(listing);
+    }
+
+    private @NotNull PaginatedItem renderItem(Listing listing) {
+        ItemBuilder itemStack = new ItemBuilder(ListingDisplayCache.getDisplayItem(getMenuType(), listing, () -> {
             String buyMode = listing.isBiddable()
                     ? getLang().getStringFormatted("listing.lore-buy.bidding")
                     : getLang().getStringFormatted("listing.lore-buy.buy-it-now");
 
-            ItemBuilder itemStack = new ItemBuilder(listing.getItemStack().clone())
-                    .addLore(getLang().getLore("listing.lore-body",
-                            listing.getOwnerName(),
-                            StringUtils.removeColorCodes(CategoryCache.getCatName(listing.getCategoryID())), buyMode,
-                            new DecimalFormat(Config.i().getDecimalFormat())
-                                    .format(listing.getPrice()), TimeUtil.formatTimeUntil(listing.getDeletionDate()),
-                            listing.getCurrency().getName()));
-
-            if (player.getUniqueId().equals(listing.getOwner())) {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.own-listing"));
-            } else if (listing.getCurrency().canAfford(player, listing.getPrice())) {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.buy"));
-            } else {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.too-expensive"));
-            }
-            if (listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.is-shulker"));
-            }
+            return getLang().getLore("listing.lore-body",
+                    listing.getOwnerName(),
+                    StringUtils.removeColorCodes(CategoryCache.getCatName(listing.getCategoryID())), buyMode,
+                    new DecimalFormat(Config.i().getDecimalFormat())
+                            .format(listing.getPrice()), ListingDisplayCache.TIME_PLACEHOLDER,
+                    listing.getCurrency().getName());
+        }));
+
+        if (player.getUniqueId().equals(listing.getOwner())) {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.own-listing"));
+        } else if (listing.getCurrency().canAfford(player, listing.getPrice())) {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.buy"));
+        } else {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.too-expensive"));
+        }
+        if (listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.is-shulker"));
+        }
 
-            addPaginationItem(new PaginatedItem(itemStack.build(), e -> {
-                if (e.isShiftClick() && (e.getWhoClicked().hasPermission("fadah.manage.active-listings") || listing.isOwner(((Player) e.getWhoClicked())))) {
-                    if (listing.cancel(((Player) e.getWhoClicked()))) {
-                        updatePagination();
-                    }
-                    return;
+        return new PaginatedItem(itemStack.build(), e -> {
+            if (e.isShiftClick() && (e.getWhoClicked().hasPermission("fadah.manage.active-listings") || listing.isOwner(((Player) e.getWhoClicked())))) {
+                if (listing.cancel(((Player) e.getWhoClicked()))) {
+                    updatePagination();
                 }
+                return;
+            }
 
-                if (e.isRightClick() && listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
-                    new ShulkerBoxPreviewMenu(listing, player, category, search,
-                            sortingMethod, sortingDirection, false, null).open(player);
-                    return;
-                }
+            if (e.isRightClick() && listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
+                new ShulkerBoxPreviewMenu(listing, player, category, search,
+                        sortingMethod, sortingDirection, false, null).open(player);
+                return;
+            }
 
-                if (listing.isOwner(player)) {
-                    Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getOwnListings());
-                    return;
-                }
+            if (listing.isOwner(player)) {
+                Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getOwnListings());
+                return;
+            }
 
-                if (!listing.getCurrency().canAfford(player, listing.getPrice())) {
-                    Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getTooExpensive());
-                    return;
-                }
+            if (!listing.getCurrency().canAfford(player, listing.getPrice())) {
+                Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getTooExpensive());
+                return;
+            }
 
-                if (ListingCache.getListing(listing.getId()) == null) { // todo: re-add strict checks
-                    Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist());
-                    return;
-                }
+            if (ListingCache.getListing(listing.getId()) == null) { // todo: re-add strict checks
+                Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist());
+                return;
+            }
 
-                new ConfirmPurchaseMenu(listing, player, category, search,
-                        sortingMethod, sortingDirection, false, null).open(player);
-            }));
-        }
+            new ConfirmPurchaseMenu(listing, player, category, search,
+                    sortingMethod, sortingDirection, false, null).open(player);
+        }, shown -> ListingDisplayCache.updateTime(getMenuType(), listing, shown));
     }
 
     @Override
@@ -295,23 +278,30 @@ public class MainMenu extends ScrollBarFastInv {
     }
 
     @Override
-    protected void updatePagination() {
-        this.listings.clear();
-        this.listings.addAll(ListingCache.getListings().values());
-
-        listings.sort(this.sortingMethod.getSorter(this.sortingDirection));
+    protected long getSourceVersion() {
+        return CacheBus.version(CacheBus.Topic.LISTINGS);
+    }
 
-        if (category != null) {
-            listings.removeIf(listing -> !listing.getCategoryID().equals(category.id()));
-        }
+    @Override
+    protected void loadSource() {
+        loadListings();
+    }
 
+    private void loadListings() {
+        this.listings.clear();
         if (search != null) {
-            listings.removeIf(listing -> !(listing.getItemStack().getType().name().toUpperCase().contains(search.toUpperCase())
-                    || listing.getItemStack().getType().name().toUpperCase().contains(search.replace(" ", "_").toUpperCase()))
-                    && !checkForStringInItem(search.toUpperCase(), listing.getItemStack())
-                    && !checkForEnchantmentOnBook(search.toUpperCase(), listing.getItemStack()));
+            for (UUID id : SearchIndex.search(search)) {
+                Listing listing = ListingCache.getListing(id);
+                if (listing == null) continue;
+                if (category != null && !listing.getCategoryID().equals(category.id())) continue;
+                listings.add(listing);
+            }
+            listings.sort(this.sortingMethod.getSorter(this.sortingDirection));
+        } else if (category != null) {
+            this.listings.addAll(ListingCache.getListingsByCategory(category.id()));
+            listings.sort(this.sortingMethod.getSorter(this.sortingDirection));
+        } else {
+            this.listings.addAll(ListingCache.getSortedListings(this.sortingMethod, this.sortingDirection));
         }
-
-        super.updatePagination();
     }
 }
@@ -15,6 +15,7 @@ import info.preva1l.fadah.data.DatabaseManager;
 import info.preva1l.fadah.data.PermissionsData;
 import info.preva1l.fadah.filters.Restrictions;
 import info.preva1l.fadah.hooks.impl.DiscordHook;
+import info.preva1l.fadah.multiserver.Delta;
 import info.preva1l.fadah.multiserver.Message;
 import info.preva1l.fadah.multiserver.Payload;
 import info.preva1l.fadah.records.CurrentListing;
@@ -41,6 +42,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class NewListingMenu extends FastInv {
     private final Fadah plugin = Fadah.getINSTANCE();
@@ -237,15 +239,16 @@ public class NewListingMenu extends FastInv {
             return;
         }
 
-        DatabaseManager.getInstance().save(Listing.class, listing);
+        CompletableFuture<Void> saved = DatabaseManager.getInstance().save(Listing.class, listing);
 
         if (!Config.i().getBroker().isEnabled()) {
             ListingCache.addListing(listing);
         } else {
-            Message.builder()
+            // Servers that cannot apply the change load the listing from the database, so only announce it once it is written
+            saved.thenRun(() -> Message.builder()
                     .type(Message.Type.LISTING_ADD)
-                    .payload(Payload.withUUID(listing.getId()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(listing.getId(), Delta.added(listing)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         listingStarted = true;
@@ -1,19 +1,21 @@
 package info.preva1l.fadah.guis;
 
+import info.preva1l.fadah.cache.CacheBus;
 import info.preva1l.fadah.cache.CategoryCache;
 import info.preva1l.fadah.cache.ListingCache;
+import info.preva1l.fadah.cache.ListingDisplayCache;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.records.Listing;
 import info.preva1l.fadah.utils.StringUtils;
-import info.preva1l.fadah.utils.TimeUtil;
 import info.preva1l.fadah.utils.guis.*;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ViewListingsMenu extends PaginatedFastInv {
     private final OfflinePlayer owner;
@@ -26,8 +28,7 @@ public class ViewListingsMenu extends PaginatedFastInv {
                         : owner.getName()+"'s", owner.getName()+"'s"), viewer, LayoutManager.MenuType.VIEW_LISTINGS,
                 List.of(10, 11, 12, 13, 14, 15, 16, 19, 20, 21, 22, 23, 24, 25, 28, 29, 30, 31, 32, 33, 34));
         this.owner = owner;
-        this.listings = new ArrayList<>(ListingCache.getListings().values());
-        listings.removeIf(listing -> !listing.isOwner(owner.getUniqueId()));
+        this.listings = ListingCache.getListingsByOwner(owner.getUniqueId());
 
         List<Integer> fillerSlots = getLayout().fillerSlots();
         if (!fillerSlots.isEmpty()) {
@@ -35,70 +36,78 @@ public class ViewListingsMenu extends PaginatedFastInv {
                     GuiHelper.constructButton(GuiButtonType.BORDER));
         }
         addNavigationButtons();
-        fillPaginationItems();
         populatePage();
         addPaginationControls();
     }
 
 
     @Override
-    protected synchronized void fillPaginationItems() {
-        for (Listing listing : listings) {
+    protected int getPaginationSize() {
+        return listings.size();
+    }
+
+    @Override
+    protected @NotNull Supplier<PaginatedItem> itemRenderer(int index) {
+        Listing listing = listings.get(index);
+        return () -> renderItem(listing);
+    }
+
+    private @NotNull PaginatedItem renderItem(Listing listing) {
+        ItemBuilder itemStack = new ItemBuilder(ListingDisplayCache.getDisplayItem(getMenuType(), listing, () -> {
             String buyMode = listing.isBiddable()
                     ? getLang().getStringFormatted("listing.lore-buy.bidding")
                     : getLang().getStringFormatted("listing.lore-buy.buy-it-now");
 
-            ItemBuilder itemStack = new ItemBuilder(listing.getItemStack().clone())
-                    .addLore(getLang().getLore("listing.lore-body",
-                            listing.getOwnerName(),
-                            StringUtils.removeColorCodes(CategoryCache.getCatName(listing.getCategoryID())), buyMode,
-                            new DecimalFormat(Config.i().getDecimalFormat())
-                                    .format(listing.getPrice()), TimeUtil.formatTimeUntil(listing.getDeletionDate())));
-
-            if (player.getUniqueId().equals(listing.getOwner())) {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.own-listing"));
-            } else if (listing.getCurrency().canAfford(player, listing.getPrice())) {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.buy"));
-            } else {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.too-expensive"));
-            }
-            if (listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
-                itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.is-shulker"));
-            }
+            return getLang().getLore("listing.lore-body",
+                    listing.getOwnerName(),
+                    StringUtils.removeColorCodes(CategoryCache.getCatName(listing.getCategoryID())), buyMode,
+                    new DecimalFormat(Config.i().getDecimalFormat())
+                            .format(listing.getPrice()), ListingDisplayCache.TIME_PLACEHOLDER);
+        }));
+
+        if (player.getUniqueId().equals(listing.getOwner())) {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.own-listing"));
+        } else if (listing.getCurrency().canAfford(player, listing.getPrice())) {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.buy"));
+        } else {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.too-expensive"));
+        }
+        if (listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
+            itemStack.addLore(getLang().getStringFormatted("listing.lore-footer.is-shulker"));
+        }
 
-            addPaginationItem(new PaginatedItem(itemStack.build(), e -> {
-                if (e.isShiftClick() && e.getWhoClicked().hasPermission("fadah.manage.active-listings")) {
-                    if (listing.cancel(((Player) e.getWhoClicked()))) {
-                        updatePagination();
-                    }
-                    return;
+        return new PaginatedItem(itemStack.build(), e -> {
+            if (e.isShiftClick() && e.getWhoClicked().hasPermission("fadah.manage.active-listings")) {
+                if (listing.cancel(((Player) e.getWhoClicked()))) {
+                    updatePagination();
                 }
+                return;
+            }
 
-                if (e.isRightClick() && listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
-                    new ShulkerBoxPreviewMenu(listing, player, null, null,
-                            null, null, true, owner).open(player);
-                    return;
-                }
+            if (e.isRightClick() && listing.getItemStack().getType().name().toUpperCase().endsWith("SHULKER_BOX")) {
+                new ShulkerBoxPreviewMenu(listing, player, null, null,
+                        null, null, true, owner).open(player);
+                return;
+            }
 
-                if (listing.isOwner(player)) {
-                    Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getOwnListings());
-                    return;
-                }
+            if (listing.isOwner(player)) {
+                Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getOwnListings());
+                return;
+            }
 
-                if (!listing.getCurrency().canAfford(player, listing.getPrice())) {
-                    Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getTooExpensive());
-                    return;
-                }
+            if (!listing.getCurrency().canAfford(player, listing.getPrice())) {
+                Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getTooExpensive());
+                return;
+            }
 
-                if (ListingCache.getListing(listing.getId()) == null) { // todo: re-add strict checks
-                    Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist());
-                    return;
-                }
+            if (ListingCache.getListing(listing.getId()) == null) { // todo: re-add strict checks
+                Lang.sendMessage(player, Lang.i().getPrefix() + Lang.i().getErrors().getDoesNotExist());
+                return;
+            }
 
-                new ConfirmPurchaseMenu(listing, player, null, null,
-                        null, null, true, owner).open(player);
-            }));
-        }
+            new ConfirmPurchaseMenu(listing, player, null, null,
+                    null, null, true, owner).open(player);
+        }, shown -> ListingDisplayCache.updateTime(getMenuType(), listing, shown));
     }
 
     @Override
@@ -119,11 +128,14 @@ public class ViewListingsMenu extends PaginatedFastInv {
     }
 
     @Override
-    protected void updatePagination() {
+    protected long getSourceVersion() {
+        return CacheBus.version(CacheBus.Topic.LISTINGS, owner.getUniqueId());
+    }
+
+    @Override
+    protected void loadSource() {
         this.listings.clear();
-        this.listings.addAll(ListingCache.getListings().values());
-        listings.removeIf(listing -> !listing.isOwner(owner.getUniqueId()));
-        super.updatePagination();
+        this.listings.addAll(ListingCache.getListingsByOwner(owner.getUniqueId()));
     }
 
     private void addNavigationButtons() {
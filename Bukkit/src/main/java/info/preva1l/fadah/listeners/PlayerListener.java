@@ -4,6 +4,7 @@ import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.cache.CollectionBoxCache;
 import info.preva1l.fadah.cache.ExpiredListingsCache;
 import info.preva1l.fadah.cache.HistoricItemsCache;
+import info.preva1l.fadah.cache.ListingCache;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.data.DatabaseManager;
 import info.preva1l.fadah.utils.StringUtils;
@@ -19,8 +20,13 @@ import org.bukkit.scheduler.BukkitTask;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class PlayerListener implements Listener {
+    private static final long LISTING_LOAD_TIMEOUT = 10;
+
     private final List<UUID> loading = new CopyOnWriteArrayList<>();
 
     @EventHandler
@@ -31,9 +37,21 @@ public class PlayerListener implements Listener {
             return;
         }
 
+        try {
+            // Nothing can be bought or listed correctly until every listing is known
+            ListingCache.whenReady().get(LISTING_LOAD_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            e.setLoginResult(AsyncPlayerPreLoginEvent.Result.KICK_OTHER);
+            e.setKickMessage(StringUtils.colorize(Lang.i().getPrefix() + Lang.i().getErrors().getDatabaseLoading()));
+            return;
+        }
+
         loading.add(e.getUniqueId());
-        Fadah.getINSTANCE().loadPlayerData(e.getUniqueId()).join();
-        loading.remove(e.getUniqueId());
+        try {
+            Fadah.getINSTANCE().loadPlayerData(e.getUniqueId()).join();
+        } finally {
+            loading.remove(e.getUniqueId());
+        }
     }
 
     @EventHandler
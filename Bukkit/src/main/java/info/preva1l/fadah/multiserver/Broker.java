@@ -9,6 +9,7 @@ import info.preva1l.fadah.cache.ListingCache;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.data.DatabaseManager;
+import info.preva1l.fadah.records.CollectableItem;
 import info.preva1l.fadah.records.CollectionBox;
 import info.preva1l.fadah.records.ExpiredItems;
 import info.preva1l.fadah.records.History;
@@ -23,21 +24,47 @@ import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Blocking;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 public abstract class Broker {
     protected final Fadah plugin;
     protected final Gson gson;
+    // Identifies this server in the messages it sends, new every time the broker is created
+    private final UUID id = UUID.randomUUID();
+    private long sequence = 0;
+    private final Map<UUID, Long> received = new ConcurrentHashMap<>();
 
     protected Broker(@NotNull Fadah plugin) {
         this.plugin = plugin;
         this.gson = new Gson();
     }
 
+    /**
+     * Number a message before it is sent, messages must be sent in the order they are numbered.
+     *
+     * @param message the message.
+     */
+    protected synchronized void stamp(@NotNull Message message) {
+        message.stamp(id, ++sequence);
+    }
+
     protected void handle(@NotNull Message message) {
+        if (!checkSequence(message)) return;
+
         switch (message.getType()) {
             case LISTING_ADD -> message.getPayload()
                     .getUUID().ifPresentOrElse(uuid -> {
+                        Optional<Delta> delta = message.getPayload().getDelta();
+                        if (delta.isPresent()) {
+                            ListingCache.addListing(delta.get().toListing());
+                            return;
+                        }
                         DatabaseManager.getInstance().get(Listing.class, uuid)
                                 .thenAccept(listing -> listing.ifPresent(ListingCache::addListing));
                         }, () -> {
@@ -45,18 +72,23 @@ public abstract class Broker {
                     });
 
             case LISTING_REMOVE -> message.getPayload()
-                    .getUUID().ifPresentOrElse(uuid -> {
-                        Listing listing = ListingCache.getListing(uuid);
-                        if (listing == null) {
-                            throw new IllegalStateException("Listing remove message received, but we do not have the same listing?");
-                        }
-                        ListingCache.removeListing(listing);
-                        }, () -> {
+                    // Already gone if this server removed it itself, or has not loaded it yet while resyncing
+                    .getUUID().ifPresentOrElse(ListingCache::removeListing, () -> {
                         throw new IllegalStateException("Listing remove message received with no listing UUID!");
                     });
 
             case COLLECTION_BOX_UPDATE -> message.getPayload()
                     .getUUID().ifPresentOrElse(uuid -> {
+                        Optional<Delta> delta = message.getPayload().getDelta();
+                        if (delta.isPresent()) {
+                            // Only online players are cached, anyone else is read from the database when they join
+                            if (Bukkit.getPlayer(uuid) == null) return;
+                            switch (delta.get().getAction()) {
+                                case ADD -> CollectionBoxCache.addItem(uuid, delta.get().toCollectableItem());
+                                case REMOVE -> CollectionBoxCache.removeItem(uuid, new CollectableItem(delta.get().getId(), null, 0));
+                            }
+                            return;
+                        }
                         DatabaseManager.getInstance().get(CollectionBox.class, uuid)
                                 .thenAccept(var1 -> var1.ifPresent(list -> CollectionBoxCache.update(uuid, list.collectableItems())));
                         }, () -> {
@@ -65,6 +97,15 @@ public abstract class Broker {
 
             case EXPIRED_LISTINGS_UPDATE -> message.getPayload()
                     .getUUID().ifPresentOrElse(uuid -> {
+                        Optional<Delta> delta = message.getPayload().getDelta();
+                        if (delta.isPresent()) {
+                            if (Bukkit.getPlayer(uuid) == null) return;
+                            switch (delta.get().getAction()) {
+                                case ADD -> ExpiredListingsCache.addItem(uuid, delta.get().toCollectableItem());
+                                case REMOVE -> ExpiredListingsCache.removeItem(uuid, new CollectableItem(delta.get().getId(), null, 0));
+                            }
+                            return;
+                        }
                         DatabaseManager.getInstance().get(ExpiredItems.class, uuid)
                                 .thenAccept(var1 -> var1.ifPresent(list -> ExpiredListingsCache.update(uuid, list.collectableItems())));
                         }, () -> {
@@ -73,6 +114,12 @@ public abstract class Broker {
 
             case HISTORY_UPDATE -> message.getPayload()
                     .getUUID().ifPresentOrElse(uuid -> {
+                        Optional<Delta> delta = message.getPayload().getDelta();
+                        if (delta.isPresent()) {
+                            if (Bukkit.getPlayer(uuid) == null) return;
+                            HistoricItemsCache.addLog(uuid, delta.get().toHistoricItem(uuid));
+                            return;
+                        }
                         DatabaseManager.getInstance().get(History.class, uuid)
                                 .thenAccept(history -> history.ifPresent(items -> HistoricItemsCache.update(uuid, items.collectableItems())));
                         }, () -> {
@@ -123,12 +170,67 @@ public abstract class Broker {
         }
     }
 
+    /**
+     * Check a message is the next one from the server that sent it.
+     * <p>
+     * Duplicates are dropped. If messages were missed the changes they carried are unknown,
+     * so every cache is read back from the database, the message itself is still applied.
+     * The listings stay up while they are read back, and changes that arrive meanwhile are kept.
+     * </p>
+     *
+     * @param message the message.
+     * @return false if the message has already been handled.
+     */
+    private boolean checkSequence(@NotNull Message message) {
+        // Messages from servers that do not number them are always handled
+        if (message.getSource() == null) return true;
+        Long last = received.put(message.getSource(), message.getSequence());
+        if (last == null) return true;
+        if (message.getSequence() <= last) {
+            received.put(message.getSource(), last);
+            return false;
+        }
+        if (message.getSequence() > last + 1) {
+            Fadah.getConsole().warning("Missed %d messages from another server, reloading caches from the database."
+                    .formatted(message.getSequence() - last - 1));
+            resync();
+        }
+        return true;
+    }
+
+    private void resync() {
+        ListingCache.update();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            plugin.loadPlayerData(player.getUniqueId());
+        }
+    }
+
     public abstract void connect();
 
     protected abstract void send(@NotNull Message message);
 
     public abstract void destroy();
 
+    /**
+     * Take a lease shared by every server, or extend it if the holder already has it.
+     *
+     * @param name     the name of the lease.
+     * @param holder   the id of the server taking the lease.
+     * @param duration how long the lease lasts without being renewed, in millis.
+     * @return true if the holder has the lease.
+     */
+    @Blocking
+    public abstract boolean acquireLease(@NotNull String name, @NotNull String holder, long duration);
+
+    /**
+     * Give up a lease, nothing happens if it is held by someone else.
+     *
+     * @param name   the name of the lease.
+     * @param holder the id of the server giving up the lease.
+     */
+    @Blocking
+    public abstract void releaseLease(@NotNull String name, @NotNull String holder);
+
     @Getter
     @AllArgsConstructor
     public enum Type {
@@ -0,0 +1,138 @@
+package info.preva1l.fadah.multiserver;
+
+import com.google.gson.annotations.Expose;
+import info.preva1l.fadah.records.Bid;
+import info.preva1l.fadah.records.CollectableItem;
+import info.preva1l.fadah.records.CurrentListing;
+import info.preva1l.fadah.records.HistoricItem;
+import info.preva1l.fadah.records.Listing;
+import info.preva1l.fadah.utils.ItemSerializer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A single change to a cache, carried by a message so other servers can apply it without reading it back from the database.
+ * <p>
+ * Only the fields for the kind of change are set, an added listing, collectable item or history entry, or the id of a removed item.
+ * </p>
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Delta {
+    @Expose private Action action;
+    @Expose private UUID id;
+    @Expose @Nullable private String itemStack;
+    @Expose private long date;
+
+    // History entries
+    @Expose @Nullable private Integer loggedAction;
+    @Expose @Nullable private Double price;
+    @Expose @Nullable private UUID purchaser;
+
+    // Listings
+    @Expose @Nullable private UUID owner;
+    @Expose @Nullable private String ownerName;
+    @Expose @Nullable private String category;
+    @Expose @Nullable private String currency;
+    @Expose private double tax;
+    @Expose private long deletionDate;
+    @Expose private boolean biddable;
+    @Getter(AccessLevel.NONE)
+    @Expose @Nullable private List<SentBid> bids;
+
+    @NotNull
+    public static Delta added(@NotNull CollectableItem item) {
+        final Delta delta = new Delta();
+        delta.action = Action.ADD;
+        delta.id = item.id();
+        delta.itemStack = ItemSerializer.serialize(item.itemStack());
+        delta.date = item.dateAdded();
+        return delta;
+    }
+
+    @NotNull
+    public static Delta removed(@NotNull CollectableItem item) {
+        final Delta delta = new Delta();
+        delta.action = Action.REMOVE;
+        delta.id = item.id();
+        return delta;
+    }
+
+    @NotNull
+    public static Delta added(@NotNull HistoricItem item) {
+        final Delta delta = new Delta();
+        delta.action = Action.ADD;
+        delta.id = item.getId();
+        delta.itemStack = ItemSerializer.serialize(item.getItemStack());
+        delta.date = item.getLoggedDate();
+        delta.loggedAction = item.getAction().ordinal();
+        delta.price = item.getPrice();
+        delta.purchaser = item.getPurchaserUUID();
+        return delta;
+    }
+
+    @NotNull
+    public static Delta added(@NotNull Listing listing) {
+        final Delta delta = new Delta();
+        delta.action = Action.ADD;
+        delta.id = listing.getId();
+        delta.itemStack = ItemSerializer.serialize(listing.getItemStack());
+        delta.date = listing.getCreationDate();
+        delta.price = listing.getPrice();
+        delta.owner = listing.getOwner();
+        delta.ownerName = listing.getOwnerName();
+        delta.category = listing.getCategoryID();
+        delta.currency = listing.getCurrencyId();
+        delta.tax = listing.getTax();
+        delta.deletionDate = listing.getDeletionDate();
+        delta.biddable = listing.isBiddable();
+        delta.bids = listing.getBids() == null ? null : listing.getBids().stream().map(SentBid::new).toList();
+        return delta;
+    }
+
+    @NotNull
+    public CollectableItem toCollectableItem() {
+        return new CollectableItem(id, ItemSerializer.deserialize(itemStack)[0], date);
+    }
+
+    @NotNull
+    public HistoricItem toHistoricItem(@NotNull UUID owner) {
+        return new HistoricItem(id, owner, date, HistoricItem.LoggedAction.values()[loggedAction],
+                ItemSerializer.deserialize(itemStack)[0], price, purchaser);
+    }
+
+    @NotNull
+    public Listing toListing() {
+        return new CurrentListing(id, owner, ownerName, ItemSerializer.deserialize(itemStack)[0], category, currency,
+                price, tax, date, deletionDate, biddable, bids == null ? List.of() : bids.stream().map(SentBid::toBid).toList());
+    }
+
+    // Sent as a plain class rather than the record, older gson versions can not create records
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class SentBid {
+        @Expose private UUID bidder;
+        @Expose private double amount;
+        @Expose private long timestamp;
+
+        private SentBid(@NotNull Bid bid) {
+            this.bidder = bid.bidder();
+            this.amount = bid.bidAmount();
+            this.timestamp = bid.timestamp();
+        }
+
+        private Bid toBid() {
+            return new Bid(bidder, amount, timestamp);
+        }
+    }
+
+    public enum Action {
+        ADD,
+        REMOVE,
+    }
+}
@@ -0,0 +1,115 @@
+package info.preva1l.fadah.multiserver;
+
+import info.preva1l.fadah.Fadah;
+import lombok.Getter;
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * A lease shared by every server on the network, held by at most one of them at a time.
+ * <p>
+ * The holder has to {@link #renew()} it well within its duration, usually by {@link #start(long) starting} its renewal, if it stops doing so,
+ * because it crashed or lost its connection, another server takes it over once the duration has passed.
+ * A server that cannot reach the broker stops treating the lease as held when its last renewal runs out,
+ * so two servers never both think they hold it.
+ * Once {@link #release() released} a lease is never renewed again, a new one has to be made.
+ * </p>
+ */
+public final class Lease {
+    private final Broker broker;
+    @Getter private final String name;
+    @Getter private final long duration;
+    private final String holder = UUID.randomUUID().toString();
+
+    private volatile long heldUntil = 0;
+    private volatile boolean released = false;
+    private ScheduledExecutorService renewal;
+
+    /**
+     * @param broker   the broker the lease is kept in.
+     * @param name     the name of the lease, the same on every server.
+     * @param duration how long the lease lasts without being renewed, in millis.
+     */
+    public Lease(@NotNull Broker broker, @NotNull String name, long duration) {
+        this.broker = broker;
+        this.name = name;
+        this.duration = duration;
+    }
+
+    public boolean isHeld() {
+        return System.currentTimeMillis() < heldUntil;
+    }
+
+    /**
+     * Renew the lease on its own thread until it is released.
+     *
+     * @param interval the time between renewals, in millis.
+     */
+    public synchronized void start(long interval) {
+        if (released || renewal != null) return;
+        renewal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Fadah-Lease-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewal.scheduleWithFixedDelay(this::renew, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Take the lease if nobody holds it, or extend it if this server already does.
+     */
+    @Blocking
+    public void renew() {
+        if (released) return;
+        // Timed from before the request, so this server never believes it holds the lease for longer than the broker does
+        long start = System.currentTimeMillis();
+        boolean wasHeld = isHeld();
+        boolean acquired;
+        try {
+            acquired = broker.acquireLease(name, holder, duration);
+        } catch (Exception e) {
+            Fadah.getConsole().log(Level.WARNING, "Failed to renew the %s lease!".formatted(name), e);
+            return;
+        }
+        heldUntil = acquired ? start + duration : 0;
+
+        if (acquired && !wasHeld) {
+            Fadah.getConsole().info("This server now holds the %s lease.".formatted(name));
+        } else if (!acquired && wasHeld) {
+            Fadah.getConsole().warning("This server has lost the %s lease.".formatted(name));
+        }
+    }
+
+    /**
+     * Stop renewing the lease and give it up, so another server can take it over straight away.
+     */
+    @Blocking
+    public void release() {
+        released = true;
+        synchronized (this) {
+            if (renewal != null) {
+                renewal.shutdownNow();
+                try {
+                    // A renewal still talking to the broker could take the lease back after it is given up
+                    renewal.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                renewal = null;
+            }
+        }
+        if (!isHeld()) return;
+        heldUntil = 0;
+        try {
+            broker.releaseLease(name, holder);
+        } catch (Exception e) {
+            Fadah.getConsole().log(Level.WARNING, "Failed to release the %s lease!".formatted(name), e);
+        }
+    }
+}
@@ -4,6 +4,10 @@ import com.google.gson.annotations.Expose;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
 
 @Getter
 @AllArgsConstructor
@@ -11,12 +15,20 @@ import lombok.Getter;
 public class Message {
     @Expose private Type type;
     @Expose private Payload payload;
+    // Numbered per sending server, so receivers can tell when they have missed a message
+    @Expose @Nullable private UUID source;
+    @Expose private long sequence;
 
     public void send(Broker broker) {
         if (broker == null) return;
         broker.send(this);
     }
 
+    void stamp(@NotNull UUID source, long sequence) {
+        this.source = source;
+        this.sequence = sequence;
+    }
+
     public enum Type {
         LISTING_ADD,
         LISTING_REMOVE,
@@ -20,6 +20,10 @@ public class Payload {
     @Expose
     private Broadcast broadcast;
 
+    @Nullable
+    @Expose
+    private Delta delta;
+
     /**
      * Returns an empty cross-server message payload.
      *
@@ -43,6 +47,21 @@ public class Payload {
         return payload;
     }
 
+    /**
+     * Returns a payload containing a {@link UUID} and the change made to it.
+     * Servers apply the change directly, the uuid is kept so it can be re-read from the database instead.
+     *
+     * @param uuid  the listing or player that changed
+     * @param delta the change
+     * @return a payload containing the uuid and change
+     */
+    @NotNull
+    public static Payload withDelta(@NotNull UUID uuid, @NotNull Delta delta) {
+        final Payload payload = withUUID(uuid);
+        payload.delta = delta;
+        return payload;
+    }
+
     /**
      * Returns a payload containing a message and a recipient.
      *
@@ -79,4 +98,8 @@ public class Payload {
     }
 
     public Optional<Broadcast> getBroadcast() { return Optional.ofNullable(broadcast); }
+
+    public Optional<Delta> getDelta() {
+        return Optional.ofNullable(delta);
+    }
 }
@@ -2,30 +2,65 @@ package info.preva1l.fadah.multiserver;
 
 import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.config.Config;
-import info.preva1l.fadah.utils.TaskManager;
 import lombok.AllArgsConstructor;
 import org.jetbrains.annotations.Blocking;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.util.Pool;
 
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 /**
  * Redis Broker
  * Most of this code is from Williams <a href="https://github.com/WiIIiam278/HuskHomes/">HuskHomes</a>
+ * <p>
+ * Messages are not published as they are sent, a single sender thread collects everything sent within the batch window,
+ * drops repeated requests to re-read the same player, and publishes the rest as batches over one pipelined connection.
+ * A publish that fails is retried ahead of anything sent since, with the same sequence numbers.
+ * </p>
  */
 public final class RedisBroker extends Broker {
+    // Takes the lease if it is free, or extends it if the caller already holds it
+    private static final String ACQUIRE_LEASE = """
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                return 1
+            end
+            return 0""";
+    // Only deletes the lease if the caller still holds it
+    private static final String RELEASE_LEASE = """
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('del', KEYS[1])
+            end
+            return 0""";
+
+    // Messages per published batch, keeps a burst from becoming one huge payload
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_DRAIN = 1000;
+    // How long to wait before publishing again after a failure, and how much may pile up before it is dropped
+    private static final long RETRY_DELAY = 1000L;
+    private static final int MAX_UNPUBLISHED = 10_000;
+
     private final Subscriber subscriber;
+    private final Sender sender;
     private static String CHANNEL = "NONE";
 
     public RedisBroker(@NotNull Fadah plugin) {
         super(plugin);
         this.subscriber = new Subscriber(this);
+        this.sender = new Sender(this);
     }
 
     @Blocking
@@ -43,20 +78,71 @@ public final class RedisBroker extends Broker {
         Thread thread = new Thread(subscriber::subscribe, "fadah:redis_subscriber");
         thread.setDaemon(true);
         thread.start();
+        sender.start();
     }
 
 
     @Override
     protected void send(@NotNull Message message) {
-        TaskManager.Async.run(plugin, () -> subscriber.send(message));
+        sender.queue.offer(message);
     }
 
     @Override
     @Blocking
     public void destroy() {
+        sender.stop();
         subscriber.disable();
     }
 
+    /**
+     * @return the amount of messages waiting to be published.
+     */
+    public int getQueued() {
+        return sender.queue.size();
+    }
+
+    /**
+     * @return the amount of messages published.
+     */
+    public long getSent() {
+        return sender.sent.get();
+    }
+
+    /**
+     * @return the amount of batches the messages were published in.
+     */
+    public long getBatches() {
+        return sender.batches.get();
+    }
+
+    /**
+     * @return the amount of messages dropped because the same update was already waiting to be published.
+     */
+    public long getDeduplicated() {
+        return sender.deduplicated.get();
+    }
+
+    @Override
+    @Blocking
+    public boolean acquireLease(@NotNull String name, @NotNull String holder, long duration) {
+        try (Jedis jedis = subscriber.jedisPool.getResource()) {
+            Object result = jedis.eval(ACQUIRE_LEASE, List.of(leaseKey(name)), List.of(holder, String.valueOf(duration)));
+            return result instanceof Long acquired && acquired == 1L;
+        }
+    }
+
+    @Override
+    @Blocking
+    public void releaseLease(@NotNull String name, @NotNull String holder) {
+        try (Jedis jedis = subscriber.jedisPool.getResource()) {
+            jedis.eval(RELEASE_LEASE, List.of(leaseKey(name)), List.of(holder));
+        }
+    }
+
+    private static String leaseKey(String name) {
+        return CHANNEL + ":lease:" + name;
+    }
+
     @NotNull
     private static Pool<Jedis> getJedisPool() {
         Config.Broker conf = Config.i().getBroker();
@@ -104,15 +190,6 @@ public final class RedisBroker extends Broker {
             this.unsubscribe();
         }
 
-        @Blocking
-        public void send(@NotNull Message message) {
-            try (Jedis jedis = jedisPool.getResource()) {
-                jedis.publish(CHANNEL, broker.gson.toJson(message));
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-
         @Blocking
         private void subscribe() {
             while (enabled && !Thread.interrupted() && jedisPool != null && !jedisPool.isClosed()) {
@@ -158,19 +235,149 @@ public final class RedisBroker extends Broker {
             if (!channel.equals(CHANNEL)) {
                 return;
             }
-            final Message message;
+            final Message[] messages;
             try {
-                message = broker.gson.fromJson(encoded, Message.class);
+                // Batches are published as an array, a lone message as itself
+                messages = encoded.startsWith("[")
+                        ? broker.gson.fromJson(encoded, Message[].class)
+                        : new Message[]{broker.gson.fromJson(encoded, Message.class)};
             } catch (Exception e) {
                 Fadah.getConsole().warning("Failed to decode message from Redis: " + e.getMessage());
                 return;
             }
 
+            for (Message message : messages) {
+                try {
+                    broker.handle(message);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static class Sender {
+        private final RedisBroker broker;
+        private final BlockingQueue<Message> queue = new LinkedBlockingQueue<>();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong deduplicated = new AtomicLong();
+        // Numbered messages whose publish failed, only touched by the sender thread
+        private final List<Message> unpublished = new ArrayList<>();
+        private Thread thread;
+
+        private Sender(@NotNull RedisBroker broker) {
+            this.broker = broker;
+        }
+
+        private void start() {
+            thread = new Thread(this::run, "fadah:redis_sender");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Blocking
+        private void stop() {
+            if (thread == null) return;
+            thread.interrupt();
             try {
-                broker.handle(message);
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Anything sent while shutting down, or still waiting to be retried, still goes out
+            List<Message> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            publish(remaining);
+        }
+
+        private void run() {
+            List<Message> pending = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    if (unpublished.isEmpty()) {
+                        pending.add(queue.take());
+                    } else {
+                        // The last publish failed, anything sent in the meantime goes out behind it
+                        Thread.sleep(RETRY_DELAY);
+                    }
+                    long window = Config.i().getBroker().getBatchWindow();
+                    if (window > 0) Thread.sleep(window);
+                } catch (InterruptedException e) {
+                    queue.addAll(pending);
+                    return;
+                }
+                queue.drainTo(pending, MAX_DRAIN - pending.size());
+                publish(pending);
+                pending.clear();
+            }
+        }
+
+        /**
+         * Number the messages and publish them behind any that failed to publish before.
+         * Messages keep their number until they are published, so receivers never see a gap for a failed publish,
+         * and drop anything from a failed attempt that did get through as already handled.
+         */
+        @Blocking
+        private void publish(List<Message> messages) {
+            List<Message> unique = deduplicate(messages);
+            // Only this thread publishes, so messages reach Redis in the order they are numbered
+            unique.forEach(broker::stamp);
+            unpublished.addAll(unique);
+            if (unpublished.isEmpty()) return;
+            try (Jedis jedis = broker.subscriber.jedisPool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                int published = 0;
+                for (int from = 0; from < unpublished.size(); from += BATCH_SIZE) {
+                    List<Message> batch = unpublished.subList(from, Math.min(from + BATCH_SIZE, unpublished.size()));
+                    pipeline.publish(CHANNEL, batch.size() == 1
+                            ? broker.gson.toJson(batch.get(0))
+                            : broker.gson.toJson(batch));
+                    published++;
+                }
+                pipeline.sync();
+                batches.addAndGet(published);
+                sent.addAndGet(unpublished.size());
+                unpublished.clear();
             } catch (Exception e) {
-                e.printStackTrace();
+                if (unpublished.size() > MAX_UNPUBLISHED) {
+                    // Receivers see the gap in the numbering and read their caches back from the database
+                    Fadah.getConsole().log(Level.SEVERE, "Failed to publish %d messages to Redis, giving up on them!"
+                            .formatted(unpublished.size()), e);
+                    unpublished.clear();
+                    return;
+                }
+                Fadah.getConsole().log(Level.WARNING, "Failed to publish %d messages to Redis, retrying!"
+                        .formatted(unpublished.size()), e);
             }
         }
+
+        /**
+         * Requests to re-read the same player are only kept the first time they appear,
+         * the re-read sees everything written before it anyway. Messages carrying a change are never dropped.
+         */
+        private List<Message> deduplicate(List<Message> messages) {
+            Set<Object> seen = new HashSet<>();
+            List<Message> unique = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                Object key = rereadKey(message);
+                if (key != null && !seen.add(key)) {
+                    deduplicated.incrementAndGet();
+                    continue;
+                }
+                unique.add(message);
+            }
+            return unique;
+        }
+
+        private @Nullable Object rereadKey(Message message) {
+            Payload payload = message.getPayload();
+            if (payload == null || payload.getDelta().isPresent()) return null;
+            return switch (message.getType()) {
+                case COLLECTION_BOX_UPDATE, EXPIRED_LISTINGS_UPDATE, HISTORY_UPDATE ->
+                        payload.getUUID().map(uuid -> Map.entry(message.getType(), uuid)).orElse(null);
+                default -> null;
+            };
+        }
     }
 }
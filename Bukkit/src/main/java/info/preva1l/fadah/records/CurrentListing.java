@@ -12,8 +12,10 @@ import info.preva1l.fadah.config.Lang;
 import info.preva1l.fadah.config.ListHelper;
 import info.preva1l.fadah.config.Tuple;
 import info.preva1l.fadah.data.DatabaseManager;
+import info.preva1l.fadah.multiserver.Delta;
 import info.preva1l.fadah.multiserver.Message;
 import info.preva1l.fadah.multiserver.Payload;
+import info.preva1l.fadah.utils.StringUtils;
 import info.preva1l.fadah.utils.TaskManager;
 import info.preva1l.fadah.utils.logging.TransactionLogger;
 import org.bukkit.Bukkit;
@@ -25,8 +27,10 @@ import java.text.DecimalFormat;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public final class CurrentListing extends Listing {
+    private volatile String sortKey;
 
     public CurrentListing(@NotNull UUID id, @NotNull UUID owner, @NotNull String ownerName,
                           @NotNull ItemStack itemStack, @NotNull String categoryID, @NotNull String currency, double price,
@@ -63,18 +67,18 @@ public final class CurrentListing extends Listing {
         // Add to collection box
         ItemStack itemStack = this.getItemStack().clone();
         CollectableItem collectableItem = new CollectableItem(itemStack, Instant.now().toEpochMilli());
-        CollectionBox box = CollectionBox.of(buyer.getUniqueId());
-        box.collectableItems().add(collectableItem);
-        DatabaseManager.getInstance().save(CollectionBox.class, box);
+        CompletableFuture<Void> saved = DatabaseManager.getInstance()
+                .saveSpecific(CollectionBox.class, CollectionBox.of(buyer.getUniqueId()), collectableItem);
 
         // Send Cache Updates
         if (!Config.i().getBroker().isEnabled()) {
             CollectionBoxCache.addItem(buyer.getUniqueId(), collectableItem);
         } else {
-            Message.builder()
+            // Servers that cannot apply the change read the collection box back from the database, so only tell them once it is written
+            saved.thenRun(() -> Message.builder()
                     .type(Message.Type.COLLECTION_BOX_UPDATE)
-                    .payload(Payload.withUUID(buyer.getUniqueId()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(buyer.getUniqueId(), Delta.added(collectableItem)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         // Notify Both Players
@@ -120,16 +124,15 @@ public final class CurrentListing extends Listing {
 
 
         CollectableItem collectableItem = new CollectableItem(this.getItemStack(), Instant.now().toEpochMilli());
-        ExpiredItems items = ExpiredItems.of(getOwner());
-        items.collectableItems().add(collectableItem);
-        DatabaseManager.getInstance().save(ExpiredItems.class, items);
+        CompletableFuture<Void> saved = DatabaseManager.getInstance()
+                .saveSpecific(ExpiredItems.class, ExpiredItems.of(getOwner()), collectableItem);
         if (!Config.i().getBroker().isEnabled()) {
             ExpiredListingsCache.addItem(getOwner(), collectableItem);
         } else {
-            Message.builder()
+            saved.thenRun(() -> Message.builder()
                     .type(Message.Type.EXPIRED_LISTINGS_UPDATE)
-                    .payload(Payload.withUUID(this.getOwner()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(this.getOwner(), Delta.added(collectableItem)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         boolean isAdmin = !this.isOwner(canceller);
@@ -144,6 +147,18 @@ public final class CurrentListing extends Listing {
         return true;
     }
 
+    /**
+     * Get the normalized name this listing is ordered by, computed once on first use.
+     *
+     * @return the sort key of the listed item.
+     */
+    public @NotNull String getSortKey() {
+        if (sortKey == null) {
+            sortKey = StringUtils.extractSortKey(getItemStack());
+        }
+        return sortKey;
+    }
+
     public StaleListing getAsStale() {
         return new StaleListing(id, owner, ownerName, itemStack, categoryID, currencyId, price, tax, creationDate, deletionDate, biddable, bids);
     }
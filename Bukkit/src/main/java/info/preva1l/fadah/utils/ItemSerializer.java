@@ -1,34 +1,223 @@
 package info.preva1l.fadah.utils;
 
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.config.Config;
+import info.preva1l.fadah.utils.serialization.BukkitItemCodec;
+import info.preva1l.fadah.utils.serialization.ItemCodec;
+import info.preva1l.fadah.utils.serialization.ItemFormat;
+import info.preva1l.fadah.utils.serialization.NativeItemCodec;
 import lombok.experimental.UtilityClass;
+import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.jetbrains.annotations.NotNull;
 import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
+/**
+ * Serializes items for storage.
+ * <p>
+ * Items are written with the {@link ItemCodec} chosen in the config, deflated when that makes them smaller,
+ * behind a small header naming the codec. The database stores these bytes as they are, the text form is only
+ * used where items have to travel as text. Data written before the header existed is still read.
+ * Items the active codec cannot encode are written with the Bukkit codec instead, which handles anything the server can.
+ * </p>
+ * <p>
+ * Every server reading the same database has to understand the codec the others write with,
+ * items written with the native codec cannot be read by a server that is not running Paper.
+ * </p>
+ */
 @UtilityClass
 public class ItemSerializer {
-    public static String serialize(ItemStack... items) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
+    // Prefixes the text form, ':' never appears in the Base64 the legacy format was stored as
+    private final String TEXT_PREFIX = "F2:";
+    private final byte MAGIC = (byte) 0xFA;
+    // Java serialization, which the legacy format is written with, always starts with this
+    private final byte LEGACY_MAGIC = (byte) 0xAC;
+    private final byte FLAG_DEFLATED = 1;
+    private final int COMPRESSION_THRESHOLD = 128;
+
+    private final Map<Byte, ItemCodec> codecs = new HashMap<>();
+    private final ItemCodec fallbackCodec = new BukkitItemCodec();
+    private final ItemCodec nativeCodec = new NativeItemCodec();
+    private volatile ItemCodec codec;
 
-            dataOutput.writeInt(items.length);
+    static {
+        register(fallbackCodec);
+        register(nativeCodec);
+        codec = nativeCodec.isAvailable() ? nativeCodec : fallbackCodec;
+    }
 
-            for (ItemStack item : items)
-                dataOutput.writeObject(item);
+    /**
+     * Pick the codec new items are written with from the config.
+     */
+    public void configure() {
+        ItemFormat format = Config.i().getDatabase().getItemFormat();
+        if (format == ItemFormat.NATIVE && !nativeCodec.isAvailable()) {
+            Fadah.getConsole().warning("The native item format is only available on Paper, using the Bukkit format instead.");
+        }
+        codec = format != ItemFormat.BUKKIT && nativeCodec.isAvailable() ? nativeCodec : fallbackCodec;
+    }
 
-            return Base64Coder.encodeLines(outputStream.toByteArray());
+    /**
+     * Register a codec so data written with it can be read.
+     *
+     * @param itemCodec the codec.
+     */
+    public void register(@NotNull ItemCodec itemCodec) {
+        codecs.put(itemCodec.getId(), itemCodec);
+    }
 
-        } catch (Exception ignored) {
-            return "";
+    /**
+     * Change the codec new data is written with, it is registered if it was not already.
+     *
+     * @param itemCodec the codec.
+     */
+    public void setCodec(@NotNull ItemCodec itemCodec) {
+        if (!itemCodec.isAvailable()) {
+            throw new IllegalArgumentException("Item codec %d is not available on this server".formatted(itemCodec.getId()));
         }
+        register(itemCodec);
+        codec = itemCodec;
+    }
+
+    public @NotNull ItemCodec getCodec() {
+        return codec;
+    }
+
+    public static String serialize(ItemStack... items) {
+        return TEXT_PREFIX + Base64.getEncoder().encodeToString(serializeToBytes(items));
     }
 
     public static ItemStack[] deserialize(String source) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64Coder.decodeLines(source));
+        if (source == null || source.isEmpty()) {
+            return new ItemStack[0];
+        }
+        if (source.startsWith(TEXT_PREFIX)) {
+            return decode(Base64.getDecoder().decode(source.substring(TEXT_PREFIX.length())));
+        }
+        return decode(Base64Coder.decodeLines(source));
+    }
+
+    /**
+     * Serialize items into the compact binary format.
+     *
+     * @param items the items.
+     * @return the encoded items.
+     * @throws IllegalStateException if the items could not be encoded by any codec.
+     */
+    public byte[] serializeToBytes(ItemStack... items) {
+        ItemCodec itemCodec = codec;
+        try {
+            return encode(itemCodec, items);
+        } catch (Exception e) {
+            if (itemCodec == fallbackCodec) {
+                throw new IllegalStateException("Failed to serialize items", e);
+            }
+            Fadah.getConsole().log(Level.WARNING, "Item codec %d could not encode an item, using the Bukkit codec instead."
+                    .formatted(itemCodec.getId()), e);
+        }
+        try {
+            return encode(fallbackCodec, items);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize items", e);
+        }
+    }
+
+    private byte[] encode(ItemCodec itemCodec, ItemStack[] items) throws IOException {
+        try (ByteArrayOutputStream body = new ByteArrayOutputStream();
+             DataOutputStream bodyOutput = new DataOutputStream(body)) {
+            bodyOutput.writeInt(items.length);
+            for (ItemStack item : items) {
+                if (item == null || item.getType() == Material.AIR) {
+                    // Air has no data, and the native codec refuses to encode it
+                    bodyOutput.writeInt(0);
+                    continue;
+                }
+                byte[] encoded = itemCodec.encode(item);
+                bodyOutput.writeInt(encoded.length);
+                bodyOutput.write(encoded);
+            }
+            bodyOutput.flush();
+
+            byte flags = 0;
+            byte[] payload = body.toByteArray();
+            if (payload.length >= COMPRESSION_THRESHOLD) {
+                byte[] deflated = deflate(payload);
+                if (deflated.length < payload.length) {
+                    payload = deflated;
+                    flags |= FLAG_DEFLATED;
+                }
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(payload.length + 3);
+            output.write(MAGIC);
+            output.write(itemCodec.getId());
+            output.write(flags);
+            output.write(payload);
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Deserialize items written by {@link #serializeToBytes(ItemStack...)}, raw data in the legacy format,
+     * or the bytes of anything written by {@link #serialize(ItemStack...)}, as columns that held text still do.
+     *
+     * @param source the encoded items.
+     * @return the items.
+     * @throws IllegalArgumentException if the items could not be decoded.
+     */
+    public ItemStack[] deserializeFromBytes(byte[] source) {
+        if (source.length > 0 && source[0] != MAGIC && source[0] != LEGACY_MAGIC) {
+            return deserialize(new String(source, StandardCharsets.US_ASCII));
+        }
+        return decode(source);
+    }
+
+    private ItemStack[] decode(byte[] source) {
+        try {
+            if (source.length < 3 || source[0] != MAGIC) {
+                return deserializeLegacy(source);
+            }
+            ItemCodec itemCodec = codecs.get(source[1]);
+            if (itemCodec == null) {
+                throw new IOException("Unknown item codec " + source[1]);
+            }
+            if (!itemCodec.isAvailable()) {
+                throw new IOException("Item codec %d is not available on this server, the items were written by a server that has it"
+                        .formatted(source[1]));
+            }
+            byte[] payload = new byte[source.length - 3];
+            System.arraycopy(source, 3, payload, 0, payload.length);
+            if ((source[2] & FLAG_DEFLATED) != 0) {
+                payload = inflate(payload);
+            }
+
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+                ItemStack[] items = new ItemStack[input.readInt()];
+                for (int i = 0; i < items.length; i++) {
+                    byte[] encoded = new byte[input.readInt()];
+                    input.readFully(encoded);
+                    items[i] = encoded.length == 0 ? new ItemStack(Material.AIR) : itemCodec.decode(encoded);
+                }
+                return items;
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to deserialize items", e);
+        }
+    }
+
+    private ItemStack[] deserializeLegacy(byte[] source) throws IOException, ClassNotFoundException {
+        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(source);
              BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
 
             ItemStack[] items = new ItemStack[dataInput.readInt()];
@@ -37,8 +226,41 @@ public class ItemSerializer {
                 items[i] = (ItemStack) dataInput.readObject();
 
             return items;
-        } catch (Exception ignored) {
-            return new ItemStack[0];
+        }
+    }
+
+    private byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 2);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated item data");
+                }
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
         }
     }
 }
@@ -5,9 +5,11 @@ import me.clip.placeholderapi.PlaceholderAPI;
 import net.md_5.bungee.api.ChatColor;
 import org.bukkit.Bukkit;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -159,6 +161,22 @@ public class StringUtils {
         return result;
     }
 
+    /**
+     * Get the key an item is ordered by when sorting alphabetically.
+     *
+     * @param item the item to get the key of.
+     * @return the color stripped, lower case display name, or the material name if the item has none.
+     */
+    public String extractSortKey(ItemStack item) {
+        if (item.hasItemMeta()) {
+            ItemMeta meta = item.getItemMeta();
+            if (meta.hasDisplayName()) {
+                return removeColorCodes(meta.getDisplayName()).toLowerCase(Locale.ROOT);
+            }
+        }
+        return item.getType().name().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Formats a string into a component.
      *
@@ -2,13 +2,21 @@ package info.preva1l.fadah.utils.guis;
 
 import info.preva1l.fadah.Fadah;
 import info.preva1l.fadah.config.Menus;
+import info.preva1l.fadah.utils.TaskManager;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public abstract class PaginatedFastInv extends FastInv {
     protected final Player player;
@@ -16,8 +24,12 @@ public abstract class PaginatedFastInv extends FastInv {
     protected int page = 0;
     protected int index = 0;
     private List<Integer> paginationMappings;
-    private final List<PaginatedItem> paginatedItems = new ArrayList<>();
+    // Only the visible page and its neighbours are ever rendered
+    private final Map<Integer, PaginatedItem> renderedItems = new ConcurrentHashMap<>();
     protected boolean needsClearing = false;
+    private long renderedVersion = -1;
+    // Bumped whenever the source data is rebuilt, renders made from an older build are thrown away
+    private long generation = 0;
 
     protected PaginatedFastInv(int size, @NotNull String title, @NotNull Player player, LayoutManager.MenuType menuType) {
         super(size, title, menuType);
@@ -28,7 +40,7 @@ public abstract class PaginatedFastInv extends FastInv {
                 31, 32, 33, 34, 38, 39, 40,
                 41, 42, 43);
 
-        BukkitTask task = Bukkit.getServer().getScheduler().runTaskTimerAsynchronously(Fadah.getINSTANCE(), this::updatePagination, 20L, 20L);
+        BukkitTask task = Bukkit.getServer().getScheduler().runTaskTimerAsynchronously(Fadah.getINSTANCE(), this::refresh, 20L, 20L);
         InventoryEventHandler.tasksToQuit.put(getInventory(), task);
     }
 
@@ -37,7 +49,7 @@ public abstract class PaginatedFastInv extends FastInv {
         this.player = player;
         this.paginationMappings = paginationMappings;
 
-        BukkitTask task = Bukkit.getServer().getScheduler().runTaskTimerAsynchronously(Fadah.getINSTANCE(), this::updatePagination, 20L, 20L);
+        BukkitTask task = Bukkit.getServer().getScheduler().runTaskTimerAsynchronously(Fadah.getINSTANCE(), this::refresh, 20L, 20L);
         InventoryEventHandler.tasksToQuit.put(getInventory(), task);
     }
 
@@ -46,7 +58,7 @@ public abstract class PaginatedFastInv extends FastInv {
     }
 
     protected void nextPage() {
-        if (paginatedItems == null || paginatedItems.size() < index + 1) {
+        if (getPaginationSize() < index + 1) {
             return;
         }
         page++;
@@ -63,36 +75,182 @@ public abstract class PaginatedFastInv extends FastInv {
         addPaginationControls();
     }
 
+    /**
+     * Subclasses only change their source data while holding the lock of the menu,
+     * so entries are looked up under the same lock and rendered once it has been released.
+     */
     protected void populatePage() {
-        int maxItemsPerPage = paginationMappings.size();
-        boolean empty = paginatedItems == null || paginatedItems.isEmpty();
-        if (empty) {
-            if (needsClearing) {
-                for (Integer paginationMapping : paginationMappings) removeItem(paginationMapping);
-                needsClearing = false;
+        int maxItemsPerPage;
+        int size;
+        int currentPage;
+        long currentGeneration;
+        Map<Integer, PaginatedItem> shown = new HashMap<>();
+        Map<Integer, Supplier<PaginatedItem>> pending = new HashMap<>();
+        synchronized (this) {
+            maxItemsPerPage = paginationMappings.size();
+            size = getPaginationSize();
+            if (size == 0) {
+                if (needsClearing) {
+                    for (Integer paginationMapping : paginationMappings) removeItem(paginationMapping);
+                    needsClearing = false;
+                }
+                paginationEmpty();
+                return;
             }
-            paginationEmpty();
+
+            needsClearing = true;
+            currentPage = page;
+            currentGeneration = generation;
+            for (int i = 0; i < maxItemsPerPage; i++) {
+                index = maxItemsPerPage * currentPage + i;
+                if (index >= size) continue;
+                PaginatedItem item = renderedItems.get(index);
+                if (item != null) {
+                    shown.put(index, item);
+                } else {
+                    pending.put(index, itemRenderer(index));
+                }
+            }
+        }
+
+        Map<Integer, PaginatedItem> rendered = render(pending);
+        shown.putAll(rendered);
+
+        synchronized (this) {
+            // The menu was rebuilt or the page turned while rendering, whoever did that draws the page
+            if (generation != currentGeneration || page != currentPage) return;
+            rendered.forEach(renderedItems::putIfAbsent);
+            for (int i = 0; i < maxItemsPerPage; i++) {
+                removeItem(paginationMappings.get(i));
+                PaginatedItem item = shown.get(maxItemsPerPage * currentPage + i);
+                if (item == null) continue;
+                setItem(paginationMappings.get(i), item.itemStack(), item.eventConsumer());
+            }
+        }
+
+        TaskManager.Async.run(Fadah.getINSTANCE(), () -> prefetch(currentPage, currentGeneration));
+    }
+
+    /**
+     * Renders the page after the current one ahead of time and drops anything that is no longer near the viewer.
+     */
+    private void prefetch(int currentPage, long expectedGeneration) {
+        Map<Integer, Supplier<PaginatedItem>> pending = new HashMap<>();
+        synchronized (this) {
+            if (generation != expectedGeneration) return;
+            int maxItemsPerPage = paginationMappings.size();
+            int first = maxItemsPerPage * Math.max(0, currentPage - 1);
+            int last = Math.min(maxItemsPerPage * (currentPage + 2), getPaginationSize());
+            renderedItems.keySet().removeIf(i -> i < first || i >= last);
+            for (int i = maxItemsPerPage * (currentPage + 1); i < last; i++) {
+                if (!renderedItems.containsKey(i)) pending.put(i, itemRenderer(i));
+            }
+        }
+
+        Map<Integer, PaginatedItem> rendered = render(pending);
+
+        synchronized (this) {
+            if (generation != expectedGeneration) return;
+            rendered.forEach(renderedItems::putIfAbsent);
+        }
+    }
+
+    private Map<Integer, PaginatedItem> render(Map<Integer, Supplier<PaginatedItem>> pending) {
+        Map<Integer, PaginatedItem> rendered = new HashMap<>();
+        pending.forEach((i, renderer) -> rendered.put(i, renderer.get()));
+        return rendered;
+    }
+
+    /**
+     * Called every second while the menu is open.
+     * The menu is only rebuilt when its source data has changed, otherwise only the time shown on the visible page is updated.
+     */
+    private void refresh() {
+        long version = getSourceVersion();
+        if (version != renderedVersion) {
+            renderedVersion = version;
+            updatePagination();
             return;
         }
+        refreshTimes();
+    }
+
+    /**
+     * Brings the time dependent lore of the entries on the current page up to date, see {@link PaginatedItem#timeUpdater()}.
+     * Nothing else about the entries is rendered again.
+     */
+    private void refreshTimes() {
+        int maxItemsPerPage;
+        int currentPage;
+        long currentGeneration;
+        Map<Integer, PaginatedItem> visible = new HashMap<>();
+        synchronized (this) {
+            maxItemsPerPage = paginationMappings.size();
+            currentPage = page;
+            currentGeneration = generation;
+            for (int i = 0; i < maxItemsPerPage; i++) {
+                PaginatedItem item = renderedItems.get(maxItemsPerPage * currentPage + i);
+                if (item != null && item.timeUpdater() != null) visible.put(i, item);
+            }
+        }
+
+        Map<Integer, PaginatedItem> updated = new HashMap<>();
+        visible.forEach((i, item) -> {
+            ItemStack itemStack = item.timeUpdater().apply(item.itemStack());
+            if (itemStack != null) updated.put(i, item.withItemStack(itemStack));
+        });
+        if (updated.isEmpty()) return;
 
-        needsClearing = true;
-        
-        for (int i = 0; i < maxItemsPerPage; i++) {
-            removeItem(paginationMappings.get(i));
-            index = maxItemsPerPage * page + i;
-            if (index >= paginatedItems.size()) continue;
-            PaginatedItem item = paginatedItems.get(index);
-            setItem(paginationMappings.get(i), item.itemStack(), item.eventConsumer());
+        synchronized (this) {
+            if (generation != currentGeneration || page != currentPage) return;
+            updated.forEach((i, item) -> {
+                renderedItems.put(maxItemsPerPage * currentPage + i, item);
+                setItem(paginationMappings.get(i), item.itemStack(), item.eventConsumer());
+            });
         }
     }
 
+    /**
+     * Rebuilds the menu from its source data, see {@link #loadSource()}.
+     */
     protected void updatePagination() {
-        paginatedItems.clear();
-        fillPaginationItems();
+        synchronized (this) {
+            loadSource();
+            generation++;
+            renderedItems.clear();
+        }
         populatePage();
         addPaginationControls();
     }
 
+    /**
+     * Reload the source data of the menu, called while holding the lock of the menu.
+     */
+    protected void loadSource() {
+    }
+
+    /**
+     * Replaces the lore of an item from a line on, for use in a {@link PaginatedItem#timeUpdater()}.
+     *
+     * @param itemStack the item as it is shown.
+     * @param from      the first line to replace.
+     * @param lines     the lines that replace the lore from there on.
+     * @return a copy of the item with the new lore, or null when the lore already reads the same.
+     */
+    protected static @Nullable ItemStack replaceLore(@NotNull ItemStack itemStack, int from, @NotNull List<String> lines) {
+        ItemMeta meta = itemStack.getItemMeta();
+        if (meta == null) return null;
+        List<String> lore = meta.getLore() == null ? new ArrayList<>() : new ArrayList<>(meta.getLore());
+        if (lore.size() < from) return null;
+        if (lore.subList(from, lore.size()).equals(lines)) return null;
+        lore.subList(from, lore.size()).clear();
+        lore.addAll(lines);
+        ItemStack updated = itemStack.clone();
+        meta.setLore(lore);
+        updated.setItemMeta(meta);
+        return updated;
+    }
+
     protected void paginationEmpty() {
         List<Integer> noItems = getLayout().noItems();
         if (!noItems.isEmpty()) {
@@ -104,11 +262,30 @@ public abstract class PaginatedFastInv extends FastInv {
         }
     }
 
-    protected abstract void fillPaginationItems();
+    /**
+     * Get the amount of entries in the menu.
+     *
+     * @return the size of the menus source data.
+     */
+    protected abstract int getPaginationSize();
 
-    protected abstract void addPaginationControls();
+    /**
+     * Look up a single entry of the menu, only called for entries on or near the visible page.
+     * This is called while holding the lock of the menu, the returned renderer is not and must not read the source data again.
+     *
+     * @param index the index of the entry in the menus source data.
+     * @return renders the entry.
+     */
+    protected abstract @NotNull Supplier<PaginatedItem> itemRenderer(int index);
 
-    protected void addPaginationItem(PaginatedItem item) {
-        paginatedItems.add(item);
+    /**
+     * Get the version of the data this menu is built from, see {@link info.preva1l.fadah.cache.CacheBus}.
+     *
+     * @return the version of the source data, the menu is rebuilt when this changes.
+     */
+    protected long getSourceVersion() {
+        return 0;
     }
+
+    protected abstract void addPaginationControls();
 }
@@ -2,8 +2,23 @@ package info.preva1l.fadah.utils.guis;
 
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
-public record PaginatedItem(ItemStack itemStack, Consumer<InventoryClickEvent> eventConsumer) {
-}
\ No newline at end of file
+/**
+ * @param timeUpdater given the item as it is shown, returns a copy with its time dependent lore brought up to date,
+ *                    or null when it is still current. Null for items with nothing in them that changes over time.
+ */
+public record PaginatedItem(ItemStack itemStack, Consumer<InventoryClickEvent> eventConsumer,
+                            @Nullable UnaryOperator<ItemStack> timeUpdater) {
+    public PaginatedItem(ItemStack itemStack, Consumer<InventoryClickEvent> eventConsumer) {
+        this(itemStack, eventConsumer, null);
+    }
+
+    public PaginatedItem withItemStack(@NotNull ItemStack itemStack) {
+        return new PaginatedItem(itemStack, eventConsumer, timeUpdater);
+    }
+}
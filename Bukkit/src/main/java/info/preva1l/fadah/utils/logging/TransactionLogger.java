@@ -5,6 +5,7 @@ import info.preva1l.fadah.cache.HistoricItemsCache;
 import info.preva1l.fadah.config.Config;
 import info.preva1l.fadah.data.DatabaseManager;
 import info.preva1l.fadah.hooks.impl.InfluxDBHook;
+import info.preva1l.fadah.multiserver.Delta;
 import info.preva1l.fadah.multiserver.Message;
 import info.preva1l.fadah.multiserver.Payload;
 import info.preva1l.fadah.records.HistoricItem;
@@ -17,6 +18,7 @@ import org.bukkit.entity.Player;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @UtilityClass
 public class TransactionLogger {
@@ -24,17 +26,16 @@ public class TransactionLogger {
     public void listingCreated(Listing listing) {
         // In game logs
         HistoricItem historicItem = new HistoricItem(listing.getOwner(), Instant.now().toEpochMilli(), HistoricItem.LoggedAction.LISTING_START, listing.getItemStack(), listing.getPrice(), null);
-        History history = History.of(listing.getOwner());
-        history.collectableItems().add(historicItem);
-        DatabaseManager.getInstance().save(History.class, history);
+        CompletableFuture<Void> saved = DatabaseManager.getInstance()
+                .saveSpecific(History.class, History.of(listing.getOwner()), historicItem);
 
         if (!Config.i().getBroker().isEnabled()) {
             HistoricItemsCache.addLog(listing.getOwner(), historicItem);
         } else {
-            Message.builder()
+            saved.thenRun(() -> Message.builder()
                     .type(Message.Type.HISTORY_UPDATE)
-                    .payload(Payload.withUUID(listing.getOwner()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(listing.getOwner(), Delta.added(historicItem)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         // Log file logs
@@ -54,32 +55,30 @@ public class TransactionLogger {
         HistoricItem historicItemSeller = new HistoricItem(listing.getOwner(), Instant.now().toEpochMilli(),
                 HistoricItem.LoggedAction.LISTING_SOLD, listing.getItemStack(), listing.getPrice(), buyer.getUniqueId());
 
-        History historySeller = History.of(listing.getOwner());
-        historySeller.collectableItems().add(historicItemSeller);
-        DatabaseManager.getInstance().save(History.class, History.of(listing.getOwner()));
+        CompletableFuture<Void> savedSeller = DatabaseManager.getInstance()
+                .saveSpecific(History.class, History.of(listing.getOwner()), historicItemSeller);
 
         if (!Config.i().getBroker().isEnabled()) {
             HistoricItemsCache.addLog(listing.getOwner(), historicItemSeller);
         } else {
-            Message.builder()
+            savedSeller.thenRun(() -> Message.builder()
                     .type(Message.Type.HISTORY_UPDATE)
-                    .payload(Payload.withUUID(listing.getOwner()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(listing.getOwner(), Delta.added(historicItemSeller)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         HistoricItem historicItemBuyer = new HistoricItem(buyer.getUniqueId(), Instant.now().toEpochMilli(),
                 HistoricItem.LoggedAction.LISTING_PURCHASED, listing.getItemStack(), listing.getPrice(), listing.getOwner());
-        History historyBuyer = History.of(buyer.getUniqueId());
-        historyBuyer.collectableItems().add(historicItemBuyer);
-        DatabaseManager.getInstance().save(History.class, historyBuyer);
+        CompletableFuture<Void> savedBuyer = DatabaseManager.getInstance()
+                .saveSpecific(History.class, History.of(buyer.getUniqueId()), historicItemBuyer);
 
         if (!Config.i().getBroker().isEnabled()) {
             HistoricItemsCache.addLog(buyer.getUniqueId(), historicItemBuyer);
         } else {
-            Message.builder()
+            savedBuyer.thenRun(() -> Message.builder()
                     .type(Message.Type.HISTORY_UPDATE)
-                    .payload(Payload.withUUID(buyer.getUniqueId()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(buyer.getUniqueId(), Delta.added(historicItemBuyer)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         // Log file logs
@@ -97,17 +96,16 @@ public class TransactionLogger {
         HistoricItem historicItem = new HistoricItem(listing.getOwner(), Instant.now().toEpochMilli(),
                 isAdmin ? HistoricItem.LoggedAction.LISTING_ADMIN_CANCEL : HistoricItem.LoggedAction.LISTING_CANCEL,
                 listing.getItemStack(), null, null);
-        History history = History.of(listing.getOwner());
-        history.collectableItems().add(historicItem);
-        DatabaseManager.getInstance().save(History.class, history);
+        CompletableFuture<Void> saved = DatabaseManager.getInstance()
+                .saveSpecific(History.class, History.of(listing.getOwner()), historicItem);
 
         if (!Config.i().getBroker().isEnabled()) {
             HistoricItemsCache.addLog(listing.getOwner(), historicItem);
         } else {
-            Message.builder()
+            saved.thenRun(() -> Message.builder()
                     .type(Message.Type.HISTORY_UPDATE)
-                    .payload(Payload.withUUID(listing.getOwner()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(listing.getOwner(), Delta.added(historicItem)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         // Log file logs
@@ -125,17 +123,16 @@ public class TransactionLogger {
         // In game logs
         HistoricItem historicItem = new HistoricItem(listing.getOwner(), Instant.now().toEpochMilli(), HistoricItem.LoggedAction.LISTING_EXPIRE,
                 listing.getItemStack(), null, null);
-        History history = History.of(listing.getOwner());
-        history.collectableItems().add(historicItem);
-        DatabaseManager.getInstance().save(History.class, history);
+        CompletableFuture<Void> saved = DatabaseManager.getInstance()
+                .saveSpecific(History.class, History.of(listing.getOwner()), historicItem);
 
         if (!Config.i().getBroker().isEnabled()) {
             HistoricItemsCache.addLog(listing.getOwner(), historicItem);
         } else {
-            Message.builder()
+            saved.thenRun(() -> Message.builder()
                     .type(Message.Type.HISTORY_UPDATE)
-                    .payload(Payload.withUUID(listing.getOwner()))
-                    .build().send(Fadah.getINSTANCE().getBroker());
+                    .payload(Payload.withDelta(listing.getOwner(), Delta.added(historicItem)))
+                    .build().send(Fadah.getINSTANCE().getBroker()));
         }
 
         // Log file logs
@@ -2,10 +2,21 @@ package info.preva1l.fadah.utils.mongo;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import info.preva1l.fadah.Fadah;
+import info.preva1l.fadah.utils.ItemSerializer;
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.logging.Level;
 
 public class CollectionHelper {
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
     private final MongoDatabase database;
     private final CacheHandler cacheHandler;
 
@@ -15,30 +26,63 @@ public class CollectionHelper {
     }
 
     public void createCollection(String collectionName) {
+        // Collections are also created by their first write, this only makes them exist up front
+        for (String name : database.listCollectionNames()) {
+            if (name.equals(collectionName)) return;
+        }
         database.createCollection(collectionName);
-        cacheHandler.updateCache(collectionName);
     }
 
     public MongoCollection<Document> getCollection(String collectionName) {
-        if (cacheHandler.getCachedCollection(collectionName) == null) createCollection(collectionName);
         return cacheHandler.getCachedCollection(collectionName);
     }
 
+    /**
+     * Read items stored in a document, as binary or as the text older versions wrote.
+     *
+     * @param document the document.
+     * @param key      the key the items are stored under.
+     * @return the items.
+     */
+    public static ItemStack[] readItems(Document document, String key) {
+        Object stored = document.get(key);
+        if (stored instanceof Binary binary) return ItemSerializer.deserializeFromBytes(binary.getData());
+        if (stored instanceof byte[] bytes) return ItemSerializer.deserializeFromBytes(bytes);
+        return ItemSerializer.deserialize((String) stored);
+    }
+
+    /**
+     * Create an index if it does not exist yet, an index that cannot be built is logged and skipped.
+     *
+     * @param collectionName the collection to index.
+     * @param keys           the keys of the index.
+     * @param options        the options of the index, its name must be set.
+     */
+    public void createIndex(String collectionName, Bson keys, IndexOptions options) {
+        try {
+            getCollection(collectionName).createIndex(keys, options);
+        } catch (Exception e) {
+            Fadah.getConsole().log(Level.WARNING, "Failed to create the index %s on %s!"
+                    .formatted(options.getName(), collectionName), e);
+        }
+    }
+
     public void insertDocument(String collectionName, Document document) {
-        MongoCollection<Document> collection = database.getCollection(collectionName);
-        collection.insertOne(document);
-        cacheHandler.updateCache(collectionName);
+        getCollection(collectionName).insertOne(document);
+    }
+
+    /**
+     * Insert a document, or replace the one with the same uuid, in a single round trip.
+     */
+    public void upsertDocument(String collectionName, Object uuid, Document document) {
+        getCollection(collectionName).replaceOne(Filters.eq("uuid", uuid), document, UPSERT);
     }
 
     public void updateDocument(String collectionName, Document document, Bson updates) {
-        MongoCollection<Document> collection = database.getCollection(collectionName);
-        collection.updateOne(document, updates);
-        cacheHandler.updateCache(collectionName);
+        getCollection(collectionName).updateOne(document, updates);
     }
 
-    public void deleteDocument(String collectionName, Document document) {
-        MongoCollection<Document> collection = database.getCollection(collectionName);
-        collection.deleteOne(document);
-        cacheHandler.removeFromCache(collectionName);
+    public void deleteDocument(String collectionName, Bson filter) {
+        getCollection(collectionName).deleteOne(filter);
     }
 }
@@ -0,0 +1,44 @@
+package info.preva1l.fadah.utils.serialization;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes items with Bukkit's object streams, works on every server.
+ */
+public final class BukkitItemCodec implements ItemCodec {
+    @Override
+    public byte getId() {
+        return 1;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public byte @NotNull [] encode(@NotNull ItemStack item) throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
+            dataOutput.writeObject(item);
+            dataOutput.flush();
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Override
+    public @NotNull ItemStack decode(byte @NotNull [] data) throws IOException {
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(new ByteArrayInputStream(data))) {
+            return (ItemStack) dataInput.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package info.preva1l.fadah.utils.serialization;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Turns a single item into bytes and back.
+ * <p>
+ * The id of the codec is written in front of everything it encodes,
+ * so data stays readable after the active codec is changed.
+ * </p>
+ */
+public interface ItemCodec {
+    /**
+     * @return the id written in front of encoded data, unique between codecs.
+     */
+    byte getId();
+
+    /**
+     * @return true if this codec can be used on the running server.
+     */
+    boolean isAvailable();
+
+    byte @NotNull [] encode(@NotNull ItemStack item) throws IOException;
+
+    @NotNull ItemStack decode(byte @NotNull [] data) throws IOException;
+}
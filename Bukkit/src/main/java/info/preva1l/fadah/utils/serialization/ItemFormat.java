@@ -0,0 +1,19 @@
+package info.preva1l.fadah.utils.serialization;
+
+/**
+ * Which {@link ItemCodec} new items are stored with.
+ */
+public enum ItemFormat {
+    /**
+     * The server's own format when it is available, Bukkit's otherwise.
+     */
+    AUTO,
+    /**
+     * Bukkit's object streams, readable by every server.
+     */
+    BUKKIT,
+    /**
+     * The server's own format, only readable by Paper and its forks.
+     */
+    NATIVE,
+}
@@ -0,0 +1,61 @@
+package info.preva1l.fadah.utils.serialization;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Encodes items as the servers own NBT bytes, which is much smaller and faster than Bukkit's object streams.
+ * Only available on Paper and its forks, the methods are looked up at runtime as the plugin compiles against Spigot.
+ */
+public final class NativeItemCodec implements ItemCodec {
+    private static final MethodHandle SERIALIZE;
+    private static final MethodHandle DESERIALIZE;
+
+    static {
+        MethodHandle serialize = null;
+        MethodHandle deserialize = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            serialize = lookup.findVirtual(ItemStack.class, "serializeAsBytes", MethodType.methodType(byte[].class));
+            deserialize = lookup.findStatic(ItemStack.class, "deserializeBytes",
+                    MethodType.methodType(ItemStack.class, byte[].class));
+        } catch (ReflectiveOperationException ignored) {
+            // Not running on Paper
+        }
+        SERIALIZE = serialize;
+        DESERIALIZE = deserialize;
+    }
+
+    @Override
+    public byte getId() {
+        return 2;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return SERIALIZE != null && DESERIALIZE != null;
+    }
+
+    @Override
+    public byte @NotNull [] encode(@NotNull ItemStack item) throws IOException {
+        try {
+            return (byte[]) SERIALIZE.invoke(item);
+        } catch (Throwable t) {
+            throw new IOException(t);
+        }
+    }
+
+    @Override
+    public @NotNull ItemStack decode(byte @NotNull [] data) throws IOException {
+        try {
+            return (ItemStack) DESERIALIZE.invoke(data);
+        } catch (Throwable t) {
+            throw new IOException(t);
+        }
+    }
+}
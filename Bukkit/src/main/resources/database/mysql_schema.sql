@@ -37,5 +37,60 @@ CREATE TABLE IF NOT EXISTS historyV2
 (
     playerUUID VARCHAR(36) NOT NULL PRIMARY KEY,
     items      TEXT        NOT NULL
+) CHARACTER SET utf8
+  COLLATE utf8_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS collection_boxV3
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uuid       VARCHAR(36) NOT NULL,
+    playerUUID VARCHAR(36) NOT NULL,
+    dateAdded  BIGINT      NOT NULL,
+    itemStack  TEXT        NOT NULL,
+    UNIQUE INDEX collection_boxV3_uuid (uuid),
+    INDEX collection_boxV3_player (playerUUID, dateAdded)
+) CHARACTER SET utf8
+  COLLATE utf8_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS expired_itemsV3
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uuid       VARCHAR(36) NOT NULL,
+    playerUUID VARCHAR(36) NOT NULL,
+    dateAdded  BIGINT      NOT NULL,
+    itemStack  TEXT        NOT NULL,
+    UNIQUE INDEX expired_itemsV3_uuid (uuid),
+    INDEX expired_itemsV3_player (playerUUID, dateAdded)
+) CHARACTER SET utf8
+  COLLATE utf8_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS historyV3
+(
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uuid          VARCHAR(36) NOT NULL,
+    playerUUID    VARCHAR(36) NOT NULL,
+    loggedDate    BIGINT      NOT NULL,
+    loggedAction  INT         NOT NULL,
+    itemStack     TEXT        NOT NULL,
+    price         DOUBLE      NULL,
+    purchaserUUID VARCHAR(36) NULL,
+    UNIQUE INDEX historyV3_uuid (uuid),
+    INDEX historyV3_player (playerUUID, loggedDate),
+    INDEX historyV3_date (loggedDate)
+) CHARACTER SET utf8
+  COLLATE utf8_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS history_archiveV3
+(
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uuid          VARCHAR(36) NOT NULL,
+    playerUUID    VARCHAR(36) NOT NULL,
+    loggedDate    BIGINT      NOT NULL,
+    loggedAction  INT         NOT NULL,
+    itemStack     TEXT        NOT NULL,
+    price         DOUBLE      NULL,
+    purchaserUUID VARCHAR(36) NULL,
+    UNIQUE INDEX history_archiveV3_uuid (uuid),
+    INDEX history_archiveV3_player (playerUUID, loggedDate)
 ) CHARACTER SET utf8
   COLLATE utf8_unicode_ci;
\ No newline at end of file
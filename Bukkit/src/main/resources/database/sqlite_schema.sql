@@ -30,4 +30,64 @@ CREATE TABLE IF NOT EXISTS historyV2
 (
     playerUUID TEXT NOT NULL PRIMARY KEY,
     items      TEXT NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS collection_boxV3
+(
+    id         INTEGER PRIMARY KEY AUTOINCREMENT,
+    uuid       TEXT    NOT NULL,
+    playerUUID TEXT    NOT NULL,
+    dateAdded  INTEGER NOT NULL,
+    itemStack  TEXT    NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS collection_boxV3_uuid ON collection_boxV3 (uuid);
+
+CREATE INDEX IF NOT EXISTS collection_boxV3_player ON collection_boxV3 (playerUUID, dateAdded);
+
+CREATE TABLE IF NOT EXISTS expired_itemsV3
+(
+    id         INTEGER PRIMARY KEY AUTOINCREMENT,
+    uuid       TEXT    NOT NULL,
+    playerUUID TEXT    NOT NULL,
+    dateAdded  INTEGER NOT NULL,
+    itemStack  TEXT    NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS expired_itemsV3_uuid ON expired_itemsV3 (uuid);
+
+CREATE INDEX IF NOT EXISTS expired_itemsV3_player ON expired_itemsV3 (playerUUID, dateAdded);
+
+CREATE TABLE IF NOT EXISTS historyV3
+(
+    id            INTEGER PRIMARY KEY AUTOINCREMENT,
+    uuid          TEXT    NOT NULL,
+    playerUUID    TEXT    NOT NULL,
+    loggedDate    INTEGER NOT NULL,
+    loggedAction  INTEGER NOT NULL,
+    itemStack     TEXT    NOT NULL,
+    price         REAL NULLABLE,
+    purchaserUUID TEXT NULLABLE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS historyV3_uuid ON historyV3 (uuid);
+
+CREATE INDEX IF NOT EXISTS historyV3_player ON historyV3 (playerUUID, loggedDate);
+
+CREATE INDEX IF NOT EXISTS historyV3_date ON historyV3 (loggedDate);
+
+CREATE TABLE IF NOT EXISTS history_archiveV3
+(
+    id            INTEGER PRIMARY KEY AUTOINCREMENT,
+    uuid          TEXT    NOT NULL,
+    playerUUID    TEXT    NOT NULL,
+    loggedDate    INTEGER NOT NULL,
+    loggedAction  INTEGER NOT NULL,
+    itemStack     TEXT    NOT NULL,
+    price         REAL NULLABLE,
+    purchaserUUID TEXT NULLABLE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS history_archiveV3_uuid ON history_archiveV3 (uuid);
+
+CREATE INDEX IF NOT EXISTS history_archiveV3_player ON history_archiveV3 (playerUUID, loggedDate);
\ No newline at end of file
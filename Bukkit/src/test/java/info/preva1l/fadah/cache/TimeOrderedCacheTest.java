@@ -0,0 +1,76 @@
+package info.preva1l.fadah.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+class TimeOrderedCacheTest {
+    private final UUID player = UUID.randomUUID();
+
+    @Test
+    public void keepsItemsNewestFirst() {
+        TimeOrderedCache<Entry> cache = new TimeOrderedCache<>(Entry::time, Entry::id);
+        cache.add(player, new Entry("b", 200));
+        cache.add(player, new Entry("a", 100));
+        cache.add(player, new Entry("c", 300));
+        cache.add(player, new Entry("d", 300));
+
+        Assertions.assertEquals(List.of("c", "d", "b", "a"), ids(cache.snapshot(player)));
+    }
+
+    @Test
+    public void addingAnItemAgainReplacesIt() {
+        TimeOrderedCache<Entry> cache = new TimeOrderedCache<>(Entry::time, Entry::id);
+        cache.add(player, new Entry("a", 100));
+        cache.add(player, new Entry("b", 200));
+        cache.add(player, new Entry("a", 300));
+
+        Assertions.assertEquals(List.of("a", "b"), ids(cache.snapshot(player)));
+        Assertions.assertEquals(300, cache.snapshot(player).get(0).time());
+    }
+
+    @Test
+    public void dropsTheOldestPastCapacity() {
+        TimeOrderedCache<Entry> cache = new TimeOrderedCache<>(Entry::time, Entry::id, () -> 2);
+        cache.add(player, new Entry("a", 100));
+        cache.add(player, new Entry("b", 200));
+        cache.add(player, new Entry("c", 300));
+
+        Assertions.assertEquals(List.of("c", "b"), ids(cache.snapshot(player)));
+        Assertions.assertFalse(cache.contains(player, new Entry("a", 100)));
+    }
+
+    @Test
+    public void removesByIdAndKeepsPlayersApart() {
+        TimeOrderedCache<Entry> cache = new TimeOrderedCache<>(Entry::time, Entry::id);
+        UUID other = UUID.randomUUID();
+        cache.add(player, new Entry("a", 100));
+        cache.add(other, new Entry("a", 100));
+        cache.remove(player, new Entry("a", 0));
+
+        Assertions.assertTrue(cache.isEmpty(player));
+        Assertions.assertTrue(cache.contains(other, new Entry("a", 0)));
+    }
+
+    @Test
+    public void replaceSwapsEverythingAPlayerHas() {
+        TimeOrderedCache<Entry> cache = new TimeOrderedCache<>(Entry::time, Entry::id);
+        cache.add(player, new Entry("a", 100));
+        cache.replace(player, List.of(new Entry("b", 100), new Entry("c", 200)));
+
+        Assertions.assertEquals(List.of("c", "b"), ids(cache.snapshot(player)));
+        Assertions.assertFalse(cache.contains(player, new Entry("a", 100)));
+
+        cache.invalidate(player);
+        Assertions.assertTrue(cache.view(player).isEmpty());
+    }
+
+    private static List<String> ids(List<Entry> entries) {
+        return entries.stream().map(Entry::id).toList();
+    }
+
+    private record Entry(String id, long time) {
+    }
+}
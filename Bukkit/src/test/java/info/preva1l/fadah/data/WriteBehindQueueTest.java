@@ -0,0 +1,182 @@
+package info.preva1l.fadah.data;
+
+import info.preva1l.fadah.data.handler.DataHandler;
+import info.preva1l.fadah.records.CollectableItem;
+import info.preva1l.fadah.records.CollectionBox;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+class WriteBehindQueueTest {
+    // Long enough that nothing is flushed until the queue is closed
+    private static final long FLUSH_INTERVAL = 60000;
+
+    private final RecordingHandler handler = new RecordingHandler();
+    private final WriteBehindQueue queue = new WriteBehindQueue(handler, FLUSH_INTERVAL, 100, () -> true);
+
+    @Test
+    public void deleteReplacesQueuedSave() {
+        CollectionBox box = box(UUID.randomUUID());
+        CompletableFuture<Void> saved = queue.save(CollectionBox.class, box);
+        CompletableFuture<Void> deleted = queue.delete(CollectionBox.class, box);
+        queue.close();
+
+        Assertions.assertEquals(List.of(new Call("delete", List.of(box))), handler.calls);
+        Assertions.assertEquals(1, queue.getCoalesced());
+        Assertions.assertTrue(saved.isDone() && !saved.isCompletedExceptionally());
+        Assertions.assertTrue(deleted.isDone() && !deleted.isCompletedExceptionally());
+    }
+
+    @Test
+    public void saveReplacesQueuedDelete() {
+        UUID owner = UUID.randomUUID();
+        CollectionBox before = box(owner);
+        CollectionBox after = box(owner);
+        queue.delete(CollectionBox.class, before);
+        queue.save(CollectionBox.class, after);
+        queue.close();
+
+        Assertions.assertEquals(1, handler.calls.size());
+        Assertions.assertEquals("save", handler.calls.get(0).operation());
+        Assertions.assertSame(after, handler.calls.get(0).values().get(0));
+    }
+
+    @Test
+    public void replacedWriteMovesBehindLaterWrites() {
+        UUID first = UUID.randomUUID();
+        CollectionBox second = box(UUID.randomUUID());
+        CollectionBox latest = box(first);
+        queue.save(CollectionBox.class, box(first));
+        queue.save(CollectionBox.class, second);
+        queue.save(CollectionBox.class, latest);
+        queue.close();
+
+        Assertions.assertEquals(List.of(new Call("saveAll", List.of(second, latest))), handler.calls);
+    }
+
+    @Test
+    public void consecutiveWritesOfTheSameKindAreBatchedInOrder() {
+        CollectionBox a = box(UUID.randomUUID());
+        CollectionBox b = box(UUID.randomUUID());
+        CollectionBox c = box(UUID.randomUUID());
+        queue.save(CollectionBox.class, a);
+        queue.save(CollectionBox.class, b);
+        queue.delete(CollectionBox.class, c);
+        queue.close();
+
+        Assertions.assertEquals(List.of(
+                new Call("saveAll", List.of(a, b)),
+                new Call("delete", List.of(c))), handler.calls);
+        Assertions.assertEquals(0, queue.getCoalesced());
+    }
+
+    @Test
+    public void specificWritesAreNeverMerged() {
+        CollectionBox box = box(UUID.randomUUID());
+        CollectableItem first = new CollectableItem(UUID.randomUUID(), null, 0);
+        CollectableItem second = new CollectableItem(UUID.randomUUID(), null, 0);
+        queue.saveSpecific(CollectionBox.class, box, first);
+        queue.deleteSpecific(CollectionBox.class, box, first);
+        queue.saveSpecific(CollectionBox.class, box, second);
+        queue.close();
+
+        Assertions.assertEquals(List.of(
+                new Call("saveSpecific", List.of(box, first)),
+                new Call("deleteSpecific", List.of(box, first)),
+                new Call("saveSpecific", List.of(box, second))), handler.calls);
+        Assertions.assertEquals(0, queue.getCoalesced());
+    }
+
+    private static CollectionBox box(UUID owner) {
+        // Boxes are compared by identity, so each one gets a list of its own
+        return new CollectionBox(owner, new ArrayList<>());
+    }
+
+    private record Call(String operation, List<Object> values) {
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Call call) || !operation.equals(call.operation) || values.size() != call.values.size()) {
+                return false;
+            }
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) != call.values.get(i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return operation.hashCode();
+        }
+    }
+
+    private static final class RecordingHandler implements DataHandler {
+        private final List<Call> calls = new ArrayList<>();
+
+        @Override
+        public <T> List<T> getAll(Class<T> clazz) {
+            return List.of();
+        }
+
+        @Override
+        public <T> void streamAll(Class<T> clazz, Executor decoder, Consumer<T> consumer) {
+        }
+
+        @Override
+        public <T> Optional<T> get(Class<T> clazz, UUID id) {
+            return Optional.empty();
+        }
+
+        @Override
+        public <T> Optional<T> getPage(Class<T> clazz, UUID id, long before, int limit) {
+            return Optional.empty();
+        }
+
+        @Override
+        public <T> int archive(Class<T> clazz, long before) {
+            return 0;
+        }
+
+        @Override
+        public <T> void save(Class<T> clazz, T t) {
+            calls.add(new Call("save", List.of(t)));
+        }
+
+        @Override
+        public <T> void update(Class<T> clazz, T t, String[] params) {
+            calls.add(new Call("update", List.of(t)));
+        }
+
+        @Override
+        public <T> void delete(Class<T> clazz, T t) {
+            calls.add(new Call("delete", List.of(t)));
+        }
+
+        @Override
+        public <T> void saveAll(Class<T> clazz, List<T> ts) {
+            calls.add(new Call("saveAll", new ArrayList<>(ts)));
+        }
+
+        @Override
+        public <T> void deleteAll(Class<T> clazz, List<T> ts) {
+            calls.add(new Call("deleteAll", new ArrayList<>(ts)));
+        }
+
+        @Override
+        public <T> void saveSpecific(Class<T> clazz, T t, Object o) {
+            calls.add(new Call("saveSpecific", List.of(t, o)));
+        }
+
+        @Override
+        public <T> void deleteSpecific(Class<T> clazz, T t, Object o) {
+            calls.add(new Call("deleteSpecific", List.of(t, o)));
+        }
+    }
+}
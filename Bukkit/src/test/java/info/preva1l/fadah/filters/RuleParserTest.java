@@ -0,0 +1,68 @@
+package info.preva1l.fadah.filters;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RuleParserTest {
+    private static final ItemFacts STONE = new ItemFacts("STONE", "Shiny \"rock\"", 32, "line one\nit's line two");
+    private static final ItemFacts DIRT = new ItemFacts("DIRT", "", 64, "");
+
+    @Test
+    public void andBindsTighterThanOr() {
+        Assertions.assertTrue(test("true || false && false", STONE));
+        Assertions.assertFalse(test("(true || false) && false", STONE));
+        Assertions.assertTrue(test("%material% == \"DIRT\" || %material% == \"STONE\" && %amount% < 64", STONE));
+        Assertions.assertFalse(test("(%material% == \"DIRT\" || %material% == \"STONE\") && %amount% < 64", DIRT));
+    }
+
+    @Test
+    public void notBindsTighterThanAnd() {
+        Assertions.assertFalse(test("!true && false", STONE));
+        Assertions.assertTrue(test("!(true && false)", STONE));
+        Assertions.assertTrue(test("!%name%.includes(\"gold\") && %material% == \"STONE\"", STONE));
+        Assertions.assertTrue(test("!!true", STONE));
+    }
+
+    @Test
+    public void comparesStringsAndNumbers() {
+        Assertions.assertTrue(test("%material% === 'STONE'", STONE));
+        Assertions.assertTrue(test("\"STONE\" != %material%", DIRT));
+        Assertions.assertTrue(test("%amount% >= 64", DIRT));
+        Assertions.assertFalse(test("%amount% > -1.5 && %amount% <= 32", DIRT));
+        Assertions.assertTrue(test("%name%.startsWith(\"Shiny\") && %lore%.endsWith(\"two\")", STONE));
+    }
+
+    @Test
+    public void readsEscapesInStrings() {
+        Assertions.assertTrue(test("%name% == \"Shiny \\\"rock\\\"\"", STONE));
+        Assertions.assertTrue(test("%name% == 'Shiny \"rock\"'", STONE));
+        Assertions.assertTrue(test("%lore%.includes('one\\nit\\'s')", STONE));
+        Assertions.assertFalse(test("%lore%.includes(\"one\\\\nit\")", STONE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // Left to the script engine, which decides how these behave
+            "%amount% == \"32\"",
+            "!%amount% > 5",
+            "%name%.includes(\"a\") == true",
+            "%name%.toLowerCase() == \"rock\"",
+            "%name% == \"\\q\"",
+            "%name% == \"unterminated",
+            "%material% == \"STONE\" extra",
+            "%amount% > 5x",
+            "trueish",
+            "%material% < \"STONE\"",
+    })
+    public void leavesEverythingElseToTheScript(String source) {
+        Assertions.assertNull(RuleParser.parse(source));
+    }
+
+    private static boolean test(String source, ItemFacts facts) {
+        Rule rule = RuleParser.parse(source);
+        Assertions.assertNotNull(rule, source);
+        return rule.test(facts);
+    }
+}